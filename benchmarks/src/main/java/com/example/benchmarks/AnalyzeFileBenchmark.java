@@ -0,0 +1,69 @@
+package com.example.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.parser.AnalysisEngine;
+import com.example.parser.AnalysisOptions;
+import com.example.parser.models.CodeGraph;
+
+/**
+ * AnalysisEngine.analyzeFile()を大きさの異なる合成ソースで計測
+ * methodsは解析対象クラスのメソッド数（ファイルの大きさ）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzeFileBenchmark {
+  @Param({"1", "10", "100"})
+  public int methods;
+
+  @Param({"false", "true"})
+  public boolean compactGraph;
+
+  private Path workspace;
+  private AnalysisEngine engine;
+  private String target;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    workspace = Files.createTempDirectory("dependviz-bench");
+    SyntheticWorkspace generator = new SyntheticWorkspace(200, 7, 4, methods, 1);
+    // インターフェースにならない番号のクラスを計測対象にする
+    target = generator.writeTo(workspace).get(1).toString();
+
+    AnalysisOptions options = new AnalysisOptions();
+    options.setCompactGraph(compactGraph);
+    options.setPersistentIndex(false);
+    engine = new AnalysisEngine(workspace.toString(), options);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticWorkspace.delete(workspace);
+  }
+
+  @Benchmark
+  public CodeGraph analyzeFile() throws Exception {
+    return engine.analyzeFile(target);
+  }
+}
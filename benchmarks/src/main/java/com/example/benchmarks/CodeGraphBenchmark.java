@@ -0,0 +1,81 @@
+package com.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.CompactCodeGraph;
+
+/**
+ * CodeGraph.addReferNode()でedges本のエッジ（うち1割は重複）を追加する時間を計測
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CodeGraphBenchmark {
+  private static final String[] EDGE_TYPES = {
+    "TypeUse", "MethodCall", "ObjectCreate", "Extends", "Implements"
+  };
+
+  @Param({"10000", "100000", "1000000"})
+  public int edges;
+
+  @Param({"false", "true"})
+  public boolean compactGraph;
+
+  private String[] sources;
+  private String[] targets;
+  private String[] types;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    // ノード数はエッジ数の1/10（実際のワークスペースと同程度の密度）
+    int nodes = Math.max(2, edges / 10);
+    String[] names = new String[nodes];
+    for (int i = 0; i < nodes; i++) {
+      names[i] = "com.acme.p" + (i % 97) + ".C" + i;
+    }
+
+    sources = new String[edges];
+    targets = new String[edges];
+    types = new String[edges];
+    long state = 1;
+    for (int i = 0; i < edges; i++) {
+      if (i % 10 == 9) {
+        // 重複エッジ
+        sources[i] = sources[i / 2];
+        targets[i] = targets[i / 2];
+        types[i] = types[i / 2];
+        continue;
+      }
+      state = state * 6364136223846793005L + 1442695040888963407L;
+      sources[i] = names[(int) ((state >>> 33) % nodes)];
+      targets[i] = names[(int) ((state >>> 13) % nodes)];
+      types[i] = EDGE_TYPES[(int) ((state >>> 3) % EDGE_TYPES.length)];
+    }
+  }
+
+  @Benchmark
+  public CodeGraph addReferNode() {
+    CodeGraph graph = compactGraph ? new CompactCodeGraph() : new CodeGraph();
+    for (int i = 0; i < edges; i++) {
+      graph.addReferNode(sources[i], targets[i], types[i]);
+    }
+    return graph;
+  }
+}
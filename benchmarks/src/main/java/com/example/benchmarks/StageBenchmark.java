@@ -0,0 +1,116 @@
+package com.example.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.parser.models.CodeGraph;
+import com.example.parser.resolution.ResolutionCache;
+import com.example.parser.resolution.TypeResolver;
+import com.example.parser.stages.BaseStage;
+import com.example.parser.stages.ClassTypeStage;
+import com.example.parser.stages.ExtendsStage;
+import com.example.parser.stages.FilePathStage;
+import com.example.parser.stages.ImplementsStage;
+import com.example.parser.stages.LinesOfCodeStage;
+import com.example.parser.stages.MethodCallStage;
+import com.example.parser.stages.ObjectCreationStage;
+import com.example.parser.stages.StageContext;
+import com.example.parser.stages.TypeUseStage;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+/**
+ * 各Stageを単独で計測（構文解析済みのCompilationUnitに対してprocess()だけを実行）
+ * 型解決キャッシュは呼び出しごとに作り直し，解決のコストも含める
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StageBenchmark {
+  @Param({
+    "ClassTypeStage",
+    "ExtendsStage",
+    "FilePathStage",
+    "ImplementsStage",
+    "LinesOfCodeStage",
+    "MethodCallStage",
+    "ObjectCreationStage",
+    "TypeUseStage"
+  })
+  public String stage;
+
+  @Param({"10"})
+  public int methods;
+
+  private Path workspace;
+  private CompilationUnit cu;
+  private BaseStage target;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    workspace = Files.createTempDirectory("dependviz-bench");
+    SyntheticWorkspace generator = new SyntheticWorkspace(200, 7, 4, methods, 1);
+    Path file = generator.writeTo(workspace).get(1);
+
+    CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+    typeSolver.add(new ReflectionTypeSolver());
+    typeSolver.add(new JavaParserTypeSolver(workspace.resolve(SyntheticWorkspace.SOURCE_ROOT)));
+    ParserConfiguration configuration = new ParserConfiguration();
+    configuration.setSymbolResolver(new JavaSymbolSolver(typeSolver));
+    configuration.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+    cu = new JavaParser(configuration).parse(file).getResult().orElseThrow();
+
+    target = createStage(stage);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticWorkspace.delete(workspace);
+  }
+
+  @Benchmark
+  public CodeGraph process() {
+    CodeGraph graph = new CodeGraph();
+    StageContext context = StageContext.multiPass(cu, new TypeResolver(new ResolutionCache(0), cu));
+    target.process(context, graph);
+    return graph;
+  }
+
+  private static BaseStage createStage(String name) {
+    return switch (name) {
+      case "ClassTypeStage" -> new ClassTypeStage();
+      case "ExtendsStage" -> new ExtendsStage();
+      case "FilePathStage" -> new FilePathStage();
+      case "ImplementsStage" -> new ImplementsStage();
+      case "LinesOfCodeStage" -> new LinesOfCodeStage();
+      case "MethodCallStage" -> new MethodCallStage();
+      case "ObjectCreationStage" -> new ObjectCreationStage();
+      case "TypeUseStage" -> new TypeUseStage();
+      default -> throw new IllegalArgumentException("Unknown stage: " + name);
+    };
+  }
+}
@@ -0,0 +1,173 @@
+package com.example.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * ベンチマーク用の合成Javaワークスペースを生成
+ * クラスはpackageCount個のパッケージに分散し，各クラスは他のクラスをフィールド・生成・メソッド呼び出し・
+ * 継承・実装で参照する．同じseedからは常に同じソースが生成される．
+ *
+ * <p>単体でも実行できる: java -cp benchmarks.jar com.example.benchmarks.SyntheticWorkspace &lt;dir&gt; [classes]
+ */
+public final class SyntheticWorkspace {
+  public static final String SOURCE_ROOT = "src/main/java";
+
+  private final int classCount;
+  private final int packageCount;
+  private final int dependencies;
+  private final int methods;
+  private final long seed;
+
+  /**
+   * @param classCount 生成するクラス数
+   * @param packageCount パッケージ数
+   * @param dependencies 1クラスあたりの参照先クラス数
+   * @param methods 1クラスあたりのメソッド数（ファイルの大きさを決める）
+   * @param seed 乱数の種
+   */
+  public SyntheticWorkspace(
+      int classCount, int packageCount, int dependencies, int methods, long seed) {
+    this.classCount = classCount;
+    this.packageCount = Math.max(1, packageCount);
+    this.dependencies = Math.min(dependencies, Math.max(0, classCount - 1));
+    this.methods = Math.max(1, methods);
+    this.seed = seed;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: SyntheticWorkspace <dir> [classes] [methods]");
+      System.exit(1);
+    }
+    int classes = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+    int methods = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    List<Path> files = new SyntheticWorkspace(classes, 7, 4, methods, 1).writeTo(Path.of(args[0]));
+    System.out.println("Generated " + files.size() + " files under " + args[0]);
+  }
+
+  /**
+   * ワークスペースをdirの下（src/main/java）に書き出し，生成したファイルを返す
+   */
+  public List<Path> writeTo(Path dir) throws IOException {
+    Path sourceRoot = dir.resolve(SOURCE_ROOT);
+    List<Path> files = new ArrayList<>(classCount);
+    for (int i = 0; i < classCount; i++) {
+      Path packageDir = sourceRoot.resolve(packageName(i).replace('.', '/'));
+      Files.createDirectories(packageDir);
+      Path file = packageDir.resolve(className(i) + ".java");
+      Files.writeString(file, source(i));
+      files.add(file);
+    }
+    return files;
+  }
+
+  /** i番目のクラスのソース */
+  public String source(int i) {
+    Random random = new Random(seed * 31 + i);
+    Set<Integer> deps = new LinkedHashSet<>();
+    while (deps.size() < dependencies) {
+      int j = random.nextInt(classCount);
+      if (j != i) {
+        deps.add(j);
+      }
+    }
+
+    StringBuilder out = new StringBuilder();
+    out.append("package ").append(packageName(i)).append(";\n\n");
+    for (int j : deps) {
+      if (!packageName(j).equals(packageName(i))) {
+        out.append("import ").append(packageName(j)).append('.').append(className(j)).append(";\n");
+      }
+    }
+    out.append('\n');
+
+    if (isInterface(i)) {
+      out.append("public interface ").append(className(i)).append(" {\n");
+      for (int m = 0; m < methods; m++) {
+        out.append("  String name").append(i).append('_').append(m).append("();\n");
+      }
+      return out.append("}\n").toString();
+    }
+
+    out.append("public ").append(isAbstract(i) ? "abstract class " : "class ").append(className(i));
+    // 自分より前の具象クラスを継承（循環しないように）
+    for (int j : deps) {
+      if (j < i && !isInterface(j) && !isAbstract(j)) {
+        out.append(" extends ").append(className(j));
+        break;
+      }
+    }
+    List<Integer> interfaces = deps.stream().filter(SyntheticWorkspace::isInterface).toList();
+    if (!interfaces.isEmpty()) {
+      out.append(" implements ");
+      for (int k = 0; k < interfaces.size(); k++) {
+        out.append(k == 0 ? "" : ", ").append(className(interfaces.get(k)));
+      }
+    }
+    out.append(" {\n");
+
+    for (int j : deps) {
+      out.append("  private ").append(className(j)).append(" f").append(j).append(";\n");
+    }
+    for (int m = 0; m < methods; m++) {
+      out.append("\n  public java.util.List<String> m").append(i).append('_').append(m)
+          .append("(String s, int x) {\n");
+      out.append("    java.util.List<String> out = new java.util.ArrayList<>();\n");
+      for (int j : deps) {
+        if (isInterface(j) || isAbstract(j)) {
+          continue;
+        }
+        out.append("    ").append(className(j)).append(" c").append(j).append(" = new ")
+            .append(className(j)).append("();\n");
+        out.append("    out.addAll(c").append(j).append(".m").append(j).append("_0(s, x));\n");
+      }
+      out.append("    StringBuilder sb = new StringBuilder().append(s).append(x);\n");
+      out.append("    out.add(sb.toString());\n");
+      out.append("    return out;\n  }\n");
+    }
+    for (int j : interfaces) {
+      for (int m = 0; m < methods; m++) {
+        out.append("\n  public String name").append(j).append('_').append(m)
+            .append("() {\n    return \"").append(className(j)).append("\";\n  }\n");
+      }
+    }
+    return out.append("}\n").toString();
+  }
+
+  public String packageName(int i) {
+    return "com.acme.p" + (i % packageCount);
+  }
+
+  public static String className(int i) {
+    return "C" + i;
+  }
+
+  private static boolean isInterface(int i) {
+    return i % 9 == 0;
+  }
+
+  private static boolean isAbstract(int i) {
+    return !isInterface(i) && i % 5 == 0;
+  }
+
+  /** 生成したワークスペースを削除（ベンチマークの後始末用） */
+  public static void delete(Path dir) throws IOException {
+    if (!Files.exists(dir)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+}
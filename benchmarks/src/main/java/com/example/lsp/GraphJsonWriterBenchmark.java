@@ -0,0 +1,65 @@
+package com.example.lsp;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.parser.models.CodeGraph;
+
+/**
+ * 言語サーバーが返すグラフJSONのシリアライズを計測（全体と1ページ分）
+ * GraphJsonWriterはパッケージプライベートなので同じパッケージに置く
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphJsonWriterBenchmark {
+  @Param({"10000", "100000"})
+  public int edges;
+
+  private CodeGraph graph;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    graph = new CodeGraph();
+    int nodes = Math.max(2, edges / 10);
+    for (int i = 0; i < edges; i++) {
+      int source = i % nodes;
+      int target = (int) ((i * 2654435761L) % nodes);
+      graph.addReferNode(
+          "com.acme.p" + (source % 97) + ".C" + source,
+          "com.acme.p" + (target % 97) + ".C" + target,
+          i % 2 == 0 ? "TypeUse" : "MethodCall");
+    }
+    for (int i = 0; i < nodes; i++) {
+      String name = "com.acme.p" + (i % 97) + ".C" + i;
+      graph.setNodeType(name, "Class");
+      graph.setNodeLinesOfCode(name, 100 + i % 400);
+      graph.setNodeFilePath(name, "/workspace/src/main/java/" + name.replace('.', '/') + ".java");
+    }
+  }
+
+  @Benchmark
+  public String toJson() {
+    return GraphJsonWriter.toJson(graph);
+  }
+
+  @Benchmark
+  public String firstPage() {
+    return GraphJsonWriter.toJson(graph, 0, 5000);
+  }
+}
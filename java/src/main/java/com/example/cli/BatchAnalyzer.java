@@ -0,0 +1,383 @@
+package com.example.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.example.lsp.GraphJsonWriter;
+import com.example.parser.AnalysisEngine;
+import com.example.parser.AnalysisOptions;
+import com.example.parser.index.WorkspaceGraph;
+import com.example.parser.models.CodeGraph;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * VS Codeなしでワークスペースを解析するコマンドライン（CIでの依存グラフ生成用）
+ *
+ * <pre>
+ * analyze &lt;workspace&gt; [--output FILE] [--threads N] [--shard K/N] [--metrics FILE]
+ *     ファイルごとの断片をJSON Lines（GraphLines）でパス順に書き出す（解析に失敗したファイルがあれば
+ *     空の断片として書き出したうえで終了コード3を返す）．
+ *     --shard K/N はワークスペースからの相対パスのハッシュでファイルをN個に分け，K番目（0始まり）だけを解析する．
+ * merge [--output FILE] [--allow-partial] &lt;shard&gt;...
+ *     analyzeの出力をまとめ，言語サーバーと同じ形式のグラフJSON（{"nodes", "links"}）を書き出す．
+ *     入力は同じワークスペースを同じ分割数で解析したものでなければならない．
+ *     欠けている分割があれば誤りとする（--allow-partialを指定すると警告して揃っている分だけをまとめる）．
+ * </pre>
+ *
+ * 解析オプションは言語サーバーと同じく-Ddependviz.*で指定する．出力先を省略すると標準出力に書き出し，
+ * 件数と所要時間は標準エラーに出力する．
+ */
+public final class BatchAnalyzer {
+  private static final Logger logger = Logger.getLogger(BatchAnalyzer.class.getName());
+
+  static final int OK = 0;
+  static final int ERROR = 1;
+  static final int USAGE = 2;
+  static final int ANALYSIS_FAILED = 3;
+
+  // 書き出し待ちの解析結果はスレッド数のこの倍数までに抑える（パス順に書くため先行しすぎないように）
+  private static final int WINDOW_PER_THREAD = 4;
+
+  private final PrintStream err;
+
+  BatchAnalyzer(PrintStream err) {
+    this.err = err;
+  }
+
+  public static void main(String[] args) {
+    System.exit(run(args));
+  }
+
+  /**
+   * コマンドを実行して終了コードを返す
+   * （0: 成功，1: 入出力エラー，2: 引数の誤り，3: 解析に失敗したファイルがある（出力は書き出す））
+   */
+  public static int run(String[] args) {
+    quietLogging();
+    return new BatchAnalyzer(System.err).execute(args);
+  }
+
+  /** 先頭の引数がバッチ解析のコマンドか */
+  public static boolean isCommand(String[] args) {
+    return args.length > 0 && (args[0].equals("analyze") || args[0].equals("merge"));
+  }
+
+  int execute(String[] args) {
+    try {
+      if (args.length > 0 && args[0].equals("analyze")) {
+        return analyze(parseAnalyze(args));
+      }
+      if (args.length > 0 && args[0].equals("merge")) {
+        return merge(parseMerge(args));
+      }
+      throw new IllegalArgumentException(
+          args.length == 0 ? "No command given" : "Unknown command: " + args[0]);
+    } catch (IllegalArgumentException e) {
+      err.println("error: " + e.getMessage());
+      usage();
+      return USAGE;
+    } catch (IOException e) {
+      err.println("error: " + e.getMessage());
+      return ERROR;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      err.println("error: interrupted");
+      return ERROR;
+    }
+  }
+
+  private int analyze(AnalyzeCommand command) throws IOException, InterruptedException {
+    AnalysisOptions options = AnalysisOptions.fromSystemProperties();
+    if (command.threads() > 0) {
+      options.setAnalysisThreads(command.threads());
+    }
+    if (command.metrics() != null) {
+      options.setMetrics(true);
+    }
+    int threads = Math.max(1, options.getAnalysisThreads());
+
+    long start = System.nanoTime();
+    AnalysisEngine engine = new AnalysisEngine(command.workspace().toString(), options);
+    Path root = engine.getWorkspaceRoot();
+    List<Path> files = new ArrayList<>();
+    for (Path file : engine.listSourceFiles()) {
+      if (command.shard().contains(root.relativize(file))) {
+        files.add(file);
+      }
+    }
+
+    int failed = 0;
+    long nodes = 0;
+    long edges = 0;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try (Writer out = openOutput(command.output());
+        GraphLines.LineWriter writer = new GraphLines.LineWriter(out)) {
+      writer.writeHeader(
+          new GraphLines.Header(root.toString(), command.shard().index(), command.shard().count()));
+
+      // パス順に書き出すため，先頭から順に完了を待つ（同じ入力からは常に同じ出力になる）
+      Deque<Future<GraphLines.FileEntry>> pending = new ArrayDeque<>();
+      int next = 0;
+      while (next < files.size() || !pending.isEmpty()) {
+        while (next < files.size() && pending.size() < threads * WINDOW_PER_THREAD) {
+          Path file = files.get(next++);
+          pending.add(executor.submit(() -> analyzeFile(engine, file)));
+        }
+        GraphLines.FileEntry entry = pending.poll().get();
+        writer.writeFile(entry);
+        failed += entry.failed() ? 1 : 0;
+        nodes += entry.graph().getGraphNodes().size();
+        edges += entry.graph().getGraphEdges().size();
+      }
+    } catch (ExecutionException e) {
+      throw new IOException("Analysis failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+      engine.close();
+    }
+
+    if (command.metrics() != null) {
+      new ObjectMapper()
+          .writerWithDefaultPrettyPrinter()
+          .writeValue(command.metrics().toFile(), engine.getMetrics().snapshot());
+    }
+    err.printf(
+        "Analyzed %d files (%d failed) on %d threads in %.1f ms: %d nodes, %d edges (shard %d/%d)%n",
+        files.size(),
+        failed,
+        threads,
+        (System.nanoTime() - start) / 1e6,
+        nodes,
+        edges,
+        command.shard().index(),
+        command.shard().count());
+    return failed > 0 ? ANALYSIS_FAILED : OK;
+  }
+
+  // 解析に失敗したファイルは言語サーバーと同じく空の断片として記録する
+  private static GraphLines.FileEntry analyzeFile(AnalysisEngine engine, Path file) {
+    try {
+      return new GraphLines.FileEntry(file.toString(), false, engine.analyzeFile(file.toString()));
+    } catch (Exception e) {
+      logger.log(Level.FINE, e, () -> "Failed to analyze: " + file);
+      return new GraphLines.FileEntry(file.toString(), true, new CodeGraph());
+    }
+  }
+
+  private int merge(MergeCommand command) throws IOException {
+    long start = System.nanoTime();
+    // 同じファイルが複数の入力にあれば後の入力を採用し，ファイルのパス順に統合する
+    // （analyzeWorkspace()がインデックスから統合グラフを作る順と同じ）
+    // 入力は同じワークスペースを同じ分割数で解析したものに限る
+    Map<String, CodeGraph> fragments = new TreeMap<>();
+    GraphLines.Header first = null;
+    TreeSet<Integer> shards = new TreeSet<>();
+    for (Path input : command.inputs()) {
+      GraphLines.Header header;
+      try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+        header =
+            GraphLines.read(in, CodeGraph::new, entry -> fragments.put(entry.file(), entry.graph()));
+      } catch (IOException e) {
+        throw new IOException(input + ": " + e.getMessage(), e);
+      }
+      if (first == null) {
+        first = header;
+      } else if (!header.workspace().equals(first.workspace())) {
+        throw new IllegalArgumentException(
+            input + ": workspace " + header.workspace() + " differs from " + first.workspace());
+      } else if (header.shards() != first.shards()) {
+        throw new IllegalArgumentException(
+            input + ": split into " + header.shards() + " shards, not " + first.shards());
+      }
+      shards.add(header.shard());
+    }
+    if (shards.size() != first.shards()) {
+      if (!command.allowPartial()) {
+        throw new IllegalArgumentException(
+            String.format(
+                "only shards %s of %d were given (use --allow-partial to merge them anyway)",
+                shards, first.shards()));
+      }
+      err.printf("warning: only shards %s of %d were given%n", shards, first.shards());
+    }
+
+    WorkspaceGraph workspaceGraph = new WorkspaceGraph(new CodeGraph());
+    fragments.forEach(workspaceGraph::update);
+    CodeGraph merged = workspaceGraph.snapshot(CodeGraph::new);
+    try (Writer out = openOutput(command.output())) {
+      GraphJsonWriter.write(merged, out);
+      out.write('\n');
+    }
+    err.printf(
+        "Merged %d files from %d inputs in %.1f ms: %d nodes, %d edges%n",
+        fragments.size(),
+        command.inputs().size(),
+        (System.nanoTime() - start) / 1e6,
+        merged.getGraphNodes().size(),
+        merged.getGraphEdges().size());
+    return OK;
+  }
+
+  private static Writer openOutput(Path output) throws IOException {
+    if (output == null) {
+      // 標準出力は閉じない
+      return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+        @Override
+        public void close() throws IOException {
+          flush();
+        }
+      };
+    }
+    Path parent = output.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    return Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+  }
+
+  private static AnalyzeCommand parseAnalyze(String[] args) {
+    Path workspace = null;
+    Path output = null;
+    Path metrics = null;
+    int threads = 0;
+    Shard shard = Shard.ALL;
+    for (int i = 1; i < args.length; i++) {
+      switch (args[i]) {
+        case "--output", "-o" -> output = outputPath(value(args, ++i));
+        case "--threads" -> threads = positiveInt("--threads", value(args, ++i));
+        case "--shard" -> shard = Shard.parse(value(args, ++i));
+        case "--metrics" -> metrics = Paths.get(value(args, ++i));
+        default -> {
+          if (args[i].startsWith("-") || workspace != null) {
+            throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+          }
+          workspace = Paths.get(args[i]);
+        }
+      }
+    }
+    if (workspace == null || !Files.isDirectory(workspace)) {
+      throw new IllegalArgumentException("Workspace directory required");
+    }
+    return new AnalyzeCommand(workspace, output, threads, shard, metrics);
+  }
+
+  private static MergeCommand parseMerge(String[] args) {
+    Path output = null;
+    boolean allowPartial = false;
+    List<Path> inputs = new ArrayList<>();
+    for (int i = 1; i < args.length; i++) {
+      switch (args[i]) {
+        case "--output", "-o" -> output = outputPath(value(args, ++i));
+        case "--allow-partial" -> allowPartial = true;
+        default -> {
+          if (args[i].startsWith("-")) {
+            throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+          }
+          inputs.add(Paths.get(args[i]));
+        }
+      }
+    }
+    if (inputs.isEmpty()) {
+      throw new IllegalArgumentException("At least one shard file required");
+    }
+    return new MergeCommand(output, allowPartial, inputs);
+  }
+
+  private static String value(String[] args, int i) {
+    if (i >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+    }
+    return args[i];
+  }
+
+  // "-"は標準出力
+  private static Path outputPath(String value) {
+    return value.equals("-") ? null : Paths.get(value);
+  }
+
+  private static int positiveInt(String option, String value) {
+    try {
+      int n = Integer.parseInt(value);
+      if (n > 0) {
+        return n;
+      }
+    } catch (NumberFormatException e) {
+      // 下で引数の誤りとして報告
+    }
+    throw new IllegalArgumentException(option + " must be a positive integer: " + value);
+  }
+
+  private void usage() {
+    err.println("usage: java -jar java-graph.jar analyze <workspace> [--output FILE]");
+    err.println("           [--threads N] [--shard K/N] [--metrics FILE]");
+    err.println("       java -jar java-graph.jar merge [--output FILE] [--allow-partial] <shard>...");
+  }
+
+  // ログの設定ファイルが指定されていなければ，ファイル・ノードごとのログで標準エラーを埋めない
+  // （失敗したファイルの数は最後に標準エラーへ出力する）
+  private static void quietLogging() {
+    if (System.getProperty("java.util.logging.config.file") != null) {
+      return;
+    }
+    Logger root = Logger.getLogger("");
+    root.setLevel(Level.SEVERE);
+    for (Handler handler : root.getHandlers()) {
+      handler.setLevel(Level.SEVERE);
+    }
+  }
+
+  private record AnalyzeCommand(
+      Path workspace, Path output, int threads, Shard shard, Path metrics) {}
+
+  private record MergeCommand(Path output, boolean allowPartial, List<Path> inputs) {}
+
+  /** ファイルの分割（index番目，count個中） */
+  record Shard(int index, int count) {
+    static final Shard ALL = new Shard(0, 1);
+
+    // "K/N"（0 <= K < N）
+    static Shard parse(String value) {
+      String[] parts = value.split("/", -1);
+      try {
+        if (parts.length == 2) {
+          int index = Integer.parseInt(parts[0]);
+          int count = Integer.parseInt(parts[1]);
+          if (count > 0 && index >= 0 && index < count) {
+            return new Shard(index, count);
+          }
+        }
+      } catch (NumberFormatException e) {
+        // 下で引数の誤りとして報告
+      }
+      throw new IllegalArgumentException("--shard must be K/N with 0 <= K < N: " + value);
+    }
+
+    // ファイルの追加・削除で他のファイルの割り当てが変わらないよう，相対パスのハッシュで決める
+    boolean contains(Path relativePath) {
+      String key = relativePath.toString().replace('\\', '/');
+      return Math.floorMod(key.hashCode(), count) == index;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.example.cli;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.example.lsp.GraphJsonWriter;
+import com.example.parser.models.CodeGraph;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * バッチ解析の出力形式（JSON Lines）
+ * 1行目はヘッダ {"format": "dependviz-graph-lines", "version": 1, "workspace", "shard", "shards"}，
+ * 以降はファイルごとに {"file", "status": "analyzed" | "failed", "nodes": [...], "links": [...]}．
+ * nodes・linksの形式は言語サーバーのグラフJSONと同じ．
+ */
+final class GraphLines {
+  static final String FORMAT = "dependviz-graph-lines";
+  static final int VERSION = 1;
+
+  private static final JsonFactory JSON_FACTORY =
+      JsonFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build();
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private GraphLines() {}
+
+  /** ヘッダ行（shardsが1なら分割なし） */
+  record Header(String workspace, int shard, int shards) {}
+
+  /** ファイル1つ分の行 */
+  record FileEntry(String file, boolean failed, CodeGraph graph) {}
+
+  /** 1行ずつ書き出す（行の区切りは"\n"） */
+  static final class LineWriter implements Closeable {
+    private final Writer out;
+    private final JsonGenerator generator;
+
+    LineWriter(Writer out) throws IOException {
+      this.out = out;
+      this.generator = JSON_FACTORY.createGenerator(out);
+      generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+    }
+
+    void writeHeader(Header header) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("format", FORMAT);
+      generator.writeNumberField("version", VERSION);
+      generator.writeStringField("workspace", header.workspace());
+      generator.writeNumberField("shard", header.shard());
+      generator.writeNumberField("shards", header.shards());
+      generator.writeEndObject();
+    }
+
+    void writeFile(FileEntry entry) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("file", entry.file());
+      generator.writeStringField("status", entry.failed() ? "failed" : "analyzed");
+      GraphJsonWriter.writeFields(generator, entry.graph());
+      generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+      generator.writeRaw('\n');
+      generator.close();
+      out.flush();
+    }
+  }
+
+  /**
+   * ヘッダを読んで返し，残りの行をファイルごとにentriesへ渡す
+   *
+   * @throws IOException 形式・バージョンが異なる場合
+   */
+  static Header read(
+      BufferedReader in, Supplier<CodeGraph> graphFactory, Consumer<FileEntry> entries)
+      throws IOException {
+    String line = in.readLine();
+    JsonNode header = line == null ? null : MAPPER.readTree(line);
+    if (header == null
+        || !FORMAT.equals(header.path("format").asText())
+        || header.path("version").asInt() != VERSION) {
+      throw new IOException("Not a " + FORMAT + " v" + VERSION + " file");
+    }
+
+    while ((line = in.readLine()) != null) {
+      if (line.isBlank()) {
+        continue;
+      }
+      JsonNode entry = MAPPER.readTree(line);
+      entries.accept(
+          new FileEntry(
+              entry.path("file").asText(),
+              "failed".equals(entry.path("status").asText()),
+              readGraph(entry, graphFactory.get())));
+    }
+    return new Header(
+        header.path("workspace").asText(),
+        header.path("shard").asInt(),
+        header.path("shards").asInt(1));
+  }
+
+  // GraphIndexStoreの読み込みと同じく，ノードを先に元の順で作成してから辺を追加する
+  private static CodeGraph readGraph(JsonNode entry, CodeGraph graph) {
+    for (JsonNode node : entry.path("nodes")) {
+      String name = node.path("id").asText();
+      graph.setNodeType(name, node.path("type").asText());
+      int linesOfCode = node.path("linesOfCode").asInt(-1);
+      if (linesOfCode != -1) {
+        graph.setNodeLinesOfCode(name, linesOfCode);
+      }
+      JsonNode filePath = node.path("filePath");
+      if (filePath.isTextual()) {
+        graph.setNodeFilePath(name, filePath.asText());
+      }
+    }
+    for (JsonNode link : entry.path("links")) {
+      graph.addReferNode(
+          link.path("source").asText(),
+          link.path("target").asText(),
+          link.path("type").asText(),
+          link.path("weight").asInt(1));
+    }
+    return graph;
+  }
+}
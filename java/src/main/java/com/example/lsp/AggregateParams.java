@@ -0,0 +1,37 @@
+package com.example.lsp;
+
+/**
+ * dependviz/getAggregatedGraphのパラメータ
+ * level: package | module（省略時はpackage），
+ * expand: クラス単位に展開するグループ名（省略時は展開しない），
+ * minWeight: 重み（参照の回数）の合計がこれ未満のリンクを送らない（省略時は全て）
+ */
+public class AggregateParams {
+  private String level;
+  private String expand;
+  private Integer minWeight;
+
+  public String getLevel() {
+    return level;
+  }
+
+  public void setLevel(String level) {
+    this.level = level;
+  }
+
+  public String getExpand() {
+    return expand;
+  }
+
+  public void setExpand(String expand) {
+    this.expand = expand;
+  }
+
+  public Integer getMinWeight() {
+    return minWeight;
+  }
+
+  public void setMinWeight(Integer minWeight) {
+    this.minWeight = minWeight;
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.lsp;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ドキュメント単位の解析スケジューラ
+ * 同じURIへの変更はデバウンス期間内にまとめ，新しいバージョンが届いたら実行中の解析を中断させる．
+ * 解析はLSPのメッセージスレッドとは別のワーカースレッドで実行する．
+ */
+public class AnalysisScheduler implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger(AnalysisScheduler.class.getName());
+
+  /** デバウンス期間（ミリ秒，-Ddependviz.debounceMillisで変更可能） */
+  public static final long DEFAULT_DEBOUNCE_MILLIS = Long.getLong("dependviz.debounceMillis", 300);
+
+  private final long debounceMillis;
+  private final ScheduledExecutorService timer;
+  private final ExecutorService worker;
+
+  // URIごとの最新の予約（古いバージョンの予約はここから外れた時点で中断扱い）
+  private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+  private volatile boolean closed;
+
+  public AnalysisScheduler() {
+    this(DEFAULT_DEBOUNCE_MILLIS);
+  }
+
+  public AnalysisScheduler(long debounceMillis) {
+    this.debounceMillis = Math.max(0, debounceMillis);
+    this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("dependviz-debounce"));
+    this.worker = Executors.newSingleThreadExecutor(daemonThreads("dependviz-analysis"));
+  }
+
+  /**
+   * 解析を予約（既存の予約より古いバージョンは無視）
+   * taskには中断判定を渡す．より新しいバージョンが予約されるとtrueを返す．
+   */
+  public void schedule(String uri, int version, Task task) {
+    if (closed) {
+      return;
+    }
+    Pending next = new Pending(version);
+    Pending scheduled =
+        pending.compute(
+            uri,
+            (key, current) -> {
+              if (current == null) {
+                return next;
+              }
+              if (current.version > version) {
+                return current;
+              }
+              current.cancelTimer();
+              return next;
+            });
+    if (scheduled != next) {
+      logger.fine(() -> "Ignoring stale change: " + uri + " v" + version);
+      return;
+    }
+
+    next.timer =
+        timer.schedule(
+            () -> worker.execute(() -> run(uri, next, task)), debounceMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * 予約済み・実行中の解析を中断（ドキュメントを閉じたときなど）
+   */
+  public void cancel(String uri) {
+    Pending removed = pending.remove(uri);
+    if (removed != null) {
+      removed.cancelTimer();
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    pending.clear();
+    timer.shutdownNow();
+    worker.shutdownNow();
+  }
+
+  private void run(String uri, Pending scheduled, Task task) {
+    BooleanSupplier cancelled = () -> closed || pending.get(uri) != scheduled;
+    if (cancelled.getAsBoolean()) {
+      return;
+    }
+    try {
+      task.run(cancelled);
+    } catch (CancellationException e) {
+      logger.fine(() -> "Analysis superseded: " + uri + " v" + scheduled.version);
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, e, () -> "Scheduled analysis failed: " + uri);
+    } finally {
+      pending.remove(uri, scheduled);
+    }
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    return Thread.ofPlatform().name(name).daemon(true).factory();
+  }
+
+  /**
+   * 予約される解析処理
+   */
+  @FunctionalInterface
+  public interface Task {
+    void run(BooleanSupplier cancelled) throws Exception;
+  }
+
+  private static final class Pending {
+    private final int version;
+    private volatile ScheduledFuture<?> timer;
+
+    private Pending(int version) {
+      this.version = version;
+    }
+
+    // デバウンス待ちなら起動を取り消す（実行中の解析は中断判定で止まる）
+    private void cancelTimer() {
+      ScheduledFuture<?> future = timer;
+      if (future != null) {
+        future.cancel(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.example.lsp;
+
+import org.eclipse.lsp4j.jsonrpc.services.JsonNotification;
+import org.eclipse.lsp4j.services.LanguageClient;
+
+/**
+ * DependViz拡張機能側のクライアント（カスタム通知を含む）
+ */
+public interface DependVizLanguageClient extends LanguageClient {
+
+  /**
+   * ワークスペースグラフの差分を通知
+   * {"fromVersion", "version", "nodes", "removedNodes", "links", "removedLinks"}
+   */
+  @JsonNotification("dependviz/graphDelta")
+  void graphDelta(GraphDeltaParams delta);
+}
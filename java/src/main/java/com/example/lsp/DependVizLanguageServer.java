@@ -18,11 +18,14 @@ import org.eclipse.lsp4j.TextDocumentSyncOptions;
 import org.eclipse.lsp4j.WorkspaceFolder;
 import org.eclipse.lsp4j.jsonrpc.services.JsonRequest;
 import org.eclipse.lsp4j.services.LanguageClient;
+import org.eclipse.lsp4j.services.LanguageClientAware;
 import org.eclipse.lsp4j.services.LanguageServer;
 import org.eclipse.lsp4j.services.TextDocumentService;
 import org.eclipse.lsp4j.services.WorkspaceService;
 
-public class DependVizLanguageServer implements LanguageServer {
+import com.example.cli.BatchAnalyzer;
+
+public class DependVizLanguageServer implements LanguageServer, LanguageClientAware {
   private static final Logger logger = Logger.getLogger(DependVizLanguageServer.class.getName());
 
   private final DependVizTextDocumentService textDocumentService;
@@ -31,7 +34,7 @@ public class DependVizLanguageServer implements LanguageServer {
 
   public DependVizLanguageServer() {
     this.textDocumentService = new DependVizTextDocumentService();
-    this.workspaceService = new NoOpWorkspaceService();
+    this.workspaceService = new DependVizWorkspaceService();
   }
 
   // カスタムリクエストハンドラの実装
@@ -40,6 +43,41 @@ public class DependVizLanguageServer implements LanguageServer {
     return textDocumentService.getFileDependencyGraph(uri);
   }
 
+  @JsonRequest("dependviz/getWorkspaceDependencyGraph")
+  public CompletableFuture<String> getWorkspaceDependencyGraph() {
+    return textDocumentService.getWorkspaceDependencyGraph();
+  }
+
+  @JsonRequest("dependviz/beginWorkspaceDependencyGraph")
+  public CompletableFuture<String> beginWorkspaceDependencyGraph(WorkspaceGraphParams params) {
+    return textDocumentService.beginWorkspaceDependencyGraph(params);
+  }
+
+  @JsonRequest("dependviz/getWorkspaceDependencyGraphPage")
+  public CompletableFuture<String> getWorkspaceDependencyGraphPage(GraphPageParams params) {
+    return textDocumentService.getWorkspaceDependencyGraphPage(params);
+  }
+
+  @JsonRequest("dependviz/query")
+  public CompletableFuture<String> query(QueryParams params) {
+    return textDocumentService.query(params);
+  }
+
+  @JsonRequest("dependviz/getAggregatedGraph")
+  public CompletableFuture<String> getAggregatedGraph(AggregateParams params) {
+    return textDocumentService.getAggregatedGraph(params);
+  }
+
+  @JsonRequest("dependviz/metrics")
+  public CompletableFuture<String> metrics() {
+    return textDocumentService.getMetrics();
+  }
+
+  @Override
+  public void connect(LanguageClient client) {
+    textDocumentService.setClient((DependVizLanguageClient) client);
+  }
+
   @Override
   public CompletableFuture<InitializeResult> initialize(InitializeParams params) {
     logger.info("Initializing DependViz Language Server");
@@ -51,14 +89,16 @@ public class DependVizLanguageServer implements LanguageServer {
     // TextDocumentServiceにワークスペースルートを設定
     textDocumentService.setWorkspaceRoot(workspaceRoot);
 
-    
+    // 前回のインデックスを読み込み，変更されたファイルだけバックグラウンドで再解析
+    textDocumentService.warmUp();
+
     // サーバー機能を設定
     ServerCapabilities capabilities = new ServerCapabilities();
 
     // TextDocument同期設定
     TextDocumentSyncOptions syncOptions = new TextDocumentSyncOptions();
     syncOptions.setOpenClose(true); // didOpen/didCloseをサポート
-    syncOptions.setChange(TextDocumentSyncKind.Full); // ファイル全体の同期
+    syncOptions.setChange(TextDocumentSyncKind.Incremental); // 変更箇所のみの同期
     capabilities.setTextDocumentSync(syncOptions);
 
     InitializeResult result = new InitializeResult(capabilities);
@@ -69,6 +109,7 @@ public class DependVizLanguageServer implements LanguageServer {
   public CompletableFuture<Object> shutdown() {
     logger.info("Shutting down DependViz Language Server");
     errorCode = 0;
+    textDocumentService.shutdown();
     return CompletableFuture.completedFuture(null);
   }
 
@@ -89,6 +130,11 @@ public class DependVizLanguageServer implements LanguageServer {
   }
 
   public static void main(String[] args) {
+    // 引数がコマンドならVS Codeなしのバッチ解析として実行
+    if (BatchAnalyzer.isCommand(args)) {
+      System.exit(BatchAnalyzer.run(args));
+    }
+
     logger.info("Starting DependViz Language Server");
     DependVizLanguageServer server = new DependVizLanguageServer();
 
@@ -96,9 +142,10 @@ public class DependVizLanguageServer implements LanguageServer {
     InputStream in = System.in;
     OutputStream out = System.out;
 
-    org.eclipse.lsp4j.jsonrpc.Launcher<LanguageClient> launcher =
+    org.eclipse.lsp4j.jsonrpc.Launcher<DependVizLanguageClient> launcher =
         org.eclipse.lsp4j.jsonrpc.Launcher.createLauncher(
-            server, LanguageClient.class, in, out);
+            server, DependVizLanguageClient.class, in, out);
+    server.connect(launcher.getRemoteProxy());
 
     logger.info("Language Server started, listening on stdin/stdout");
     try {
@@ -125,11 +172,14 @@ public class DependVizLanguageServer implements LanguageServer {
     return params.getRootPath();
   }
 
-  private static final class NoOpWorkspaceService implements WorkspaceService {
+  // 監視しているファイル（Javaファイル・ビルドファイル）の変更はTextDocumentServiceに渡す
+  private final class DependVizWorkspaceService implements WorkspaceService {
     @Override
     public void didChangeConfiguration(DidChangeConfigurationParams params) {}
 
     @Override
-    public void didChangeWatchedFiles(DidChangeWatchedFilesParams params) {}
+    public void didChangeWatchedFiles(DidChangeWatchedFilesParams params) {
+      textDocumentService.didChangeWatchedFiles(params);
+    }
   }
 }
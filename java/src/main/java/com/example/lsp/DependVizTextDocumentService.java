@@ -1,43 +1,123 @@
 package com.example.lsp;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.DidChangeWatchedFilesParams;
 import org.eclipse.lsp4j.DidCloseTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.DidSaveTextDocumentParams;
+import org.eclipse.lsp4j.FileChangeType;
+import org.eclipse.lsp4j.FileEvent;
+import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseError;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseErrorCode;
 import org.eclipse.lsp4j.services.TextDocumentService;
 
 import com.example.parser.AnalysisEngine;
+import com.example.parser.index.GraphIndex;
 import com.example.parser.models.CodeGraph;
+import com.example.parser.models.GraphDelta;
+import com.example.parser.query.GraphQuery;
+import com.example.parser.query.QueryResult;
+import com.example.parser.resolution.ModuleLayout;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class DependVizTextDocumentService implements TextDocumentService {
   private static final Logger logger = Logger.getLogger(DependVizTextDocumentService.class.getName());
 
-  // ファイルパスごとにCodeGraphをキャッシュ
-  private final Map<String, CodeGraph> graphCache = new HashMap<>();
+  private static final String EMPTY_GRAPH_JSON = "{\"nodes\": [], \"links\": []}";
+
+  // 1ページあたりのノード・リンク数（-Ddependviz.graphPageSizeで変更可能）
+  private static final int GRAPH_PAGE_SIZE =
+      Math.max(1, Integer.getInteger("dependviz.graphPageSize", 5000));
+
+  // 計測値のJSON変換用（スナップショットはgetterのみのため設定不要）
+  private static final ObjectMapper METRICS_MAPPER = new ObjectMapper();
+
+  // ファイルパスごとにCodeGraphをキャッシュ（並行リクエストから参照される）
+  private final Map<String, CodeGraph> graphCache = new ConcurrentHashMap<>();
+
+  // 差分通知の送信先（接続前はnull）
+  private volatile DependVizLanguageClient client;
 
   // 解析エンジン
-  private AnalysisEngine analysisEngine;
+  private volatile AnalysisEngine analysisEngine;
+
+  // リクエスト処理（仮想スレッド）・単一ファイルの解析（プラットフォームスレッド）に使うExecutor
+  // （共通ForkJoinPoolは使わない，構文解析・型解決は仮想スレッドでは行わない）
+  private final LspExecutors executors = LspExecutors.fromSystemProperties();
+
+  // 開かれているドキュメントの内容（解析はディスクではなくこちらを読む）
+  private final DocumentStore documentStore = new DocumentStore();
+
+  // 編集中のドキュメントの解析をメッセージスレッド外でデバウンス・中断する
+  private final AnalysisScheduler scheduler = new AnalysisScheduler();
+
+  // ページ単位で送信中のワークスペースグラフ（最新の1件のみ保持）
+  private final AtomicLong snapshotIds = new AtomicLong();
+  private volatile GraphSnapshot workspaceSnapshot;
+
+  // 表示中のワークスペースグラフから除いているリンクの重みの下限（差分にも同じ下限を適用する）
+  private volatile int liveMinWeight = 1;
+
+  // 起動時のインデックス読み込みと差分解析（完了までワークスペース解析を待たせる）
+  private volatile CompletableFuture<Void> warmUp = CompletableFuture.completedFuture(null);
+
+  public void setClient(DependVizLanguageClient client) {
+    this.client = client;
+  }
 
   public void setWorkspaceRoot(String workspaceRoot) {
     // ワークスペースルートが設定されたら解析エンジンを初期化
     try {
       String rootPath = URI.create(workspaceRoot).getPath();
-      this.analysisEngine = new AnalysisEngine(rootPath);
+      AnalysisEngine engine = new AnalysisEngine(rootPath);
+      engine.setOpenDocuments(documentStore::getText);
+      engine.getMetrics().registerMBean(rootPath);
+      AnalysisEngine previous = analysisEngine;
+      this.analysisEngine = engine;
+      if (previous != null) {
+        previous.close();
+      }
       logger.info(() -> "Analysis engine initialized for workspace: " + rootPath);
     } catch (Exception e) {
       logger.log(Level.SEVERE, "Failed to initialize analysis engine", e);
     }
   }
 
+  /**
+   * ディスク上のインデックスを読み込み，内容が変わったファイルだけ再解析する
+   */
+  public void warmUp() {
+    AnalysisEngine engine = analysisEngine;
+    if (engine == null) {
+      return;
+    }
+    warmUp = CompletableFuture.runAsync(
+        () -> {
+          engine.loadGraphIndex();
+          analyzeWorkspace(engine);
+        },
+        executors.requests());
+  }
+
   @Override
   public void didOpen(DidOpenTextDocumentParams params) {
     String uri = params.getTextDocument().getUri();
@@ -49,7 +129,9 @@ public class DependVizTextDocumentService implements TextDocumentService {
     }
 
     String filePath = URI.create(uri).getPath();
-    analyzeFile(filePath);
+    documentStore.open(filePath, params.getTextDocument().getText());
+    int version = params.getTextDocument().getVersion();
+    scheduler.schedule(uri, version, cancelled -> analyzeFile(filePath));
   }
 
   @Override
@@ -62,8 +144,12 @@ public class DependVizTextDocumentService implements TextDocumentService {
       return;
     }
 
+    // 連続した変更はまとめて，最新バージョンだけを再解析
     String filePath = URI.create(uri).getPath();
-    analyzeFile(filePath);
+    documentStore.change(filePath, params.getContentChanges());
+    Integer version = params.getTextDocument().getVersion();
+    scheduler.schedule(
+        uri, version == null ? 0 : version, cancelled -> reanalyzeFile(filePath, cancelled));
   }
 
   @Override
@@ -71,15 +157,81 @@ public class DependVizTextDocumentService implements TextDocumentService {
     String uri = params.getTextDocument().getUri();
     logger.info(() -> "Document closed: " + uri);
 
-    // クローズ時はキャッシュから削除
+    // クローズ時は予約中の解析を取り消してキャッシュから削除（以降はディスクの内容を解析）
+    scheduler.cancel(uri);
     String filePath = URI.create(uri).getPath();
+    String text = documentStore.getText(filePath);
+    documentStore.close(filePath);
     graphCache.remove(filePath);
+    AnalysisEngine engine = analysisEngine;
+    if (engine != null) {
+      engine.documentClosed(filePath);
+      // 保存せずに閉じた場合，グラフは未保存の内容のままなのでディスクの内容で解析し直す
+      if (text != null) {
+        scheduler.schedule(uri, 0, cancelled -> reanalyzeIfUnsaved(filePath, text, cancelled));
+      }
+    }
   }
 
   @Override
   public void didSave(DidSaveTextDocumentParams params) {
   }
 
+  /**
+   * 監視しているファイルの変更（workspace/didChangeWatchedFiles）
+   * エディタの外で追加・変更・削除されたJavaファイルは再解析して差分を通知する
+   * （開いているファイルはエディタの内容を解析しているので対象外）．
+   * ビルドファイルが変更されたら依存jarを読み直し，変わっていればワークスペースを解析し直す．
+   */
+  public void didChangeWatchedFiles(DidChangeWatchedFilesParams params) {
+    AnalysisEngine engine = analysisEngine;
+    if (engine == null) {
+      return;
+    }
+    boolean buildFileChanged = false;
+    for (FileEvent event : params.getChanges()) {
+      String uri = event.getUri();
+      String filePath = URI.create(uri).getPath();
+      if (ModuleLayout.isBuildFile(Paths.get(filePath))) {
+        buildFileChanged = true;
+      } else if (uri.endsWith(".java") && documentStore.getText(filePath) == null) {
+        if (event.getType() == FileChangeType.Deleted) {
+          scheduler.schedule(uri, 0, cancelled -> removeFile(filePath));
+        } else {
+          scheduler.schedule(uri, 0, cancelled -> reanalyzeFile(filePath, cancelled));
+        }
+      }
+    }
+    if (!buildFileChanged) {
+      return;
+    }
+    logger.info("Build file changed, reloading dependency jars");
+    CompletableFuture.runAsync(
+        () -> {
+          try {
+            if (engine.reloadClasspath()) {
+              analyzeWorkspace(engine);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        },
+        executors.requests());
+  }
+
+  /**
+   * 予約中の解析を破棄してワーカースレッドを停止
+   */
+  public void shutdown() {
+    scheduler.close();
+    executors.close();
+    AnalysisEngine engine = analysisEngine;
+    if (engine != null) {
+      engine.getMetrics().unregisterMBean();
+      engine.close();
+    }
+  }
+
   /**
    * 単一ファイルを解析してキャッシュに保存
    */
@@ -102,81 +254,355 @@ public class DependVizTextDocumentService implements TextDocumentService {
     }
   }
 
+  /**
+   * 変更されたファイルと，その型に依存するファイルを再解析してキャッシュを更新
+   */
+  private void reanalyzeFile(String filePath, BooleanSupplier cancelled) throws IOException {
+    AnalysisEngine engine = analysisEngine;
+    if (engine == null) {
+      logger.warning("Analysis engine not initialized");
+      return;
+    }
+
+    AnalysisEngine.Reanalysis reanalysis = engine.reanalyzeFile(filePath, cancelled);
+    // ワークスペースグラフは既に更新済みなので差分は中断されても送る
+    publishGraphDelta(reanalysis.delta());
+    // 解析中に新しいバージョンが届いていれば結果はそちらで反映する
+    if (cancelled.getAsBoolean()) {
+      return;
+    }
+
+    Set<String> affected = reanalysis.affectedFiles();
+    updateGraphCache(engine, filePath, affected);
+    logger.info(() -> String.format("Re-analyzed %s (%d files updated)", filePath, affected.size()));
+  }
+
+  // 閉じたドキュメントの最後の内容がディスクと異なれば，ディスクの内容で再解析
+  // （ファイルが削除されていればdidChangeWatchedFilesで取り除く）
+  private void reanalyzeIfUnsaved(String filePath, String text, BooleanSupplier cancelled)
+      throws IOException {
+    Path file = Paths.get(filePath);
+    if (Files.isRegularFile(file)
+        && !new String(Files.readAllBytes(file), StandardCharsets.UTF_8).equals(text)) {
+      reanalyzeFile(filePath, cancelled);
+    }
+  }
+
+  // 削除されたファイルをグラフから取り除き，依存していたファイルの再解析結果と合わせて通知
+  private void removeFile(String filePath) throws IOException {
+    AnalysisEngine engine = analysisEngine;
+    if (engine == null) {
+      logger.warning("Analysis engine not initialized");
+      return;
+    }
+
+    AnalysisEngine.Reanalysis reanalysis = engine.removeFile(filePath);
+    publishGraphDelta(reanalysis.delta());
+    graphCache.remove(filePath);
+    Set<String> affected = reanalysis.affectedFiles();
+    updateGraphCache(engine, filePath, affected);
+    logger.info(() -> String.format("Removed %s (%d files updated)", filePath, affected.size()));
+  }
+
+  // 再解析したファイルの断片でキャッシュを差し替える
+  private void updateGraphCache(AnalysisEngine engine, String filePath, Set<String> affected) {
+    GraphIndex graphIndex = engine.getGraphIndex();
+    for (String path : affected) {
+      GraphIndex.Entry entry = graphIndex.get(path);
+      if (entry == null) {
+        continue;
+      }
+      // 開いていないファイル（依存元・エディタの外での変更）はキャッシュ済みの場合のみ差し替える
+      if (path.equals(filePath) && documentStore.getText(path) != null) {
+        graphCache.put(path, entry.graph());
+      } else {
+        graphCache.computeIfPresent(path, (key, graph) -> entry.graph());
+      }
+    }
+  }
+
+  /**
+   * ワークスペースグラフの差分をクライアントに通知（空の差分は送らない）
+   */
+  private void publishGraphDelta(GraphDelta delta) {
+    DependVizLanguageClient languageClient = client;
+    if (languageClient == null || delta.isEmpty()) {
+      return;
+    }
+    languageClient.graphDelta(new GraphDeltaParams(delta, liveMinWeight));
+  }
+
   /**
    * カスタムリクエスト: 単一ファイルのグラフデータを取得
    */
   public CompletableFuture<String> getFileDependencyGraph(String uri) {
-    return CompletableFuture.supplyAsync(
-        () -> {
+    String filePath = URI.create(uri).getPath();
+    CodeGraph cached = graphCache.get(filePath);
+
+    // キャッシュにない場合は解析用のスレッドで解析し，シリアライズはリクエスト用のスレッドで行う
+    CompletableFuture<CodeGraph> graph =
+        cached != null
+            ? CompletableFuture.completedFuture(cached)
+            : CompletableFuture.supplyAsync(
+                () -> {
+                  analyzeFile(filePath);
+                  return graphCache.get(filePath);
+                },
+                executors.analysis());
+
+    return graph.thenApplyAsync(
+        result -> {
+          if (result == null) {
+            return EMPTY_GRAPH_JSON;
+          }
           try {
-            String filePath = URI.create(uri).getPath();
-            CodeGraph graph = graphCache.get(filePath);
+            return GraphJsonWriter.toJson(result);
+          } catch (UncheckedIOException e) {
+            logger.log(Level.SEVERE, e, () -> "Failed to serialize file dependency graph");
+            return EMPTY_GRAPH_JSON;
+          }
+        },
+        executors.requests());
+  }
 
-            if (graph == null) {
-              // キャッシュにない場合は解析
-              analyzeFile(filePath);
-              graph = graphCache.get(filePath);
-            }
+  /**
+   * カスタムリクエスト: ワークスペース全体のグラフデータを取得
+   */
+  public CompletableFuture<String> getWorkspaceDependencyGraph() {
+    return warmUp.handleAsync(
+        (ignored, warmUpError) -> {
+          AnalysisEngine engine = analysisEngine;
+          if (engine == null) {
+            logger.warning("Analysis engine not initialized");
+            return EMPTY_GRAPH_JSON;
+          }
 
-            if (graph == null) {
-              return "{\"nodes\": [], \"links\": []}";
-            }
+          CodeGraph graph = analyzeWorkspace(engine);
+          if (graph == null) {
+            return EMPTY_GRAPH_JSON;
+          }
+
+          try {
+            return GraphJsonWriter.toJson(graph);
+          } catch (UncheckedIOException e) {
+            logger.log(Level.SEVERE, e, () -> "Failed to serialize workspace dependency graph");
+            return EMPTY_GRAPH_JSON;
+          }
+        },
+        executors.requests());
+  }
+
+  /**
+   * カスタムリクエスト: ワークスペース全体を解析し，ページ単位で取得するためのスナップショットを作成
+   * 戻り値は{"snapshotId", "version", "nodeCount", "linkCount", "failedFileCount", "pageSize",
+   * "pageCount"}（failedFileCountは解析に失敗したファイルの数）
+   * minWeightを指定すると重みの小さいリンクを送る前に除く．以降の差分でも，重みがminWeight未満になった
+   * リンクは削除として送る（表示中のグラフと同じ下限を保つ）．
+   */
+  public CompletableFuture<String> beginWorkspaceDependencyGraph(WorkspaceGraphParams params) {
+    int minWeight = params == null || params.getMinWeight() == null ? 1 : params.getMinWeight();
+    return warmUp.handleAsync(
+        (ignored, warmUpError) -> {
+          // スナップショットより後の差分が新しい下限で送られるよう，解析の前に切り替える
+          liveMinWeight = minWeight;
+          AnalysisEngine engine = analysisEngine;
+          AnalysisEngine.WorkspaceSnapshot analyzed =
+              engine == null ? null : analyzeWorkspaceSnapshot(engine);
+          CodeGraph graph = analyzed == null ? new CodeGraph() : analyzed.graph();
+          if (analyzed != null && minWeight > 1) {
+            // マージ済みグラフのコピーなので，そのまま刈り込んでよい
+            graph.removeEdgesBelow(minWeight);
+          }
+          // 以降のdependviz/graphDeltaはこのバージョンからの差分として適用する
+          // （グラフと同じ時点のバージョンなので，その間の編集の差分を取りこぼさない）
+          long version = analyzed == null ? 0 : analyzed.version();
+          int failedFiles = analyzed == null ? 0 : analyzed.failedFiles();
+
+          GraphSnapshot snapshot =
+              new GraphSnapshot(snapshotIds.incrementAndGet(), graph, GRAPH_PAGE_SIZE);
+          workspaceSnapshot = snapshot;
+          return String.format(
+              "{\"snapshotId\": %d, \"version\": %d, \"nodeCount\": %d, \"linkCount\": %d,"
+                  + " \"failedFileCount\": %d, \"pageSize\": %d, \"pageCount\": %d}",
+              snapshot.id(),
+              version,
+              graph.getGraphNodes().size(),
+              graph.getGraphEdges().size(),
+              failedFiles,
+              snapshot.pageSize(),
+              snapshot.pageCount());
+        },
+        executors.requests());
+  }
+
+  /**
+   * カスタムリクエスト: スナップショットの1ページ分を{"nodes", "links"}として取得
+   * ノードを全て送った後にリンクを送るため，受け取った順に描画してよい
+   */
+  public CompletableFuture<String> getWorkspaceDependencyGraphPage(GraphPageParams params) {
+    GraphSnapshot snapshot = workspaceSnapshot;
+    if (snapshot == null || snapshot.id() != params.getSnapshotId()) {
+      return CompletableFuture.failedFuture(
+          new ResponseErrorException(
+              new ResponseError(
+                  ResponseErrorCode.ContentModified,
+                  "Graph snapshot is no longer available: " + params.getSnapshotId(),
+                  null)));
+    }
+    return CompletableFuture.supplyAsync(
+        () -> snapshot.page(params.getPage()), executors.requests());
+  }
 
-            ObjectMapper mapper = new ObjectMapper();
-            GraphDataJson json = toJsonObject(graph);
-            return mapper.writeValueAsString(json);
+  /**
+   * カスタムリクエスト: 解析の計測値を取得
+   * 戻り値は{"enabled", "cacheHits", "cacheMisses", "cacheHitRate", "negativeCacheHits",
+   * "astCacheHits", "astCacheMisses", "phases": [...]}
+   */
+  public CompletableFuture<String> getMetrics() {
+    AnalysisEngine engine = analysisEngine;
+    if (engine == null) {
+      return CompletableFuture.failedFuture(
+          new ResponseErrorException(
+              new ResponseError(
+                  ResponseErrorCode.ServerNotInitialized, "Analysis engine not initialized", null)));
+    }
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return METRICS_MAPPER.writeValueAsString(engine.getMetrics().snapshot());
           } catch (JsonProcessingException e) {
-            logger.log(Level.SEVERE, e, () -> "Failed to serialize file dependency graph");
-            return "{\"nodes\": [], \"links\": []}";
+            throw new UncheckedIOException(e);
           }
-        });
+        },
+        executors.requests());
   }
 
-  // JSON変換用データクラス
-  private static class GraphDataJson {
-    public java.util.List<NodeJson> nodes;
-    public java.util.List<LinkJson> links;
+  /**
+   * カスタムリクエスト: ワークスペースグラフへの問い合わせ（必要な部分グラフだけを返す）
+   * 戻り値は{"kind", "version", "components"（cyclesのみ）, "nodes", "links"}
+   */
+  public CompletableFuture<String> query(QueryParams params) {
+    AnalysisEngine engine = analysisEngine;
+    if (engine == null) {
+      return CompletableFuture.failedFuture(
+          new ResponseErrorException(
+              new ResponseError(
+                  ResponseErrorCode.ServerNotInitialized, "Analysis engine not initialized", null)));
+    }
+    return warmUp.handleAsync(
+        (ignored, warmUpError) -> {
+          // 起動時の解析が済んでいなければここで解析する
+          if (engine.getGraphVersion() == 0) {
+            analyzeWorkspace(engine);
+          }
+          try {
+            return GraphJsonWriter.toJson(runQuery(engine.getGraphQuery(), params));
+          } catch (IllegalArgumentException e) {
+            throw new ResponseErrorException(
+                new ResponseError(ResponseErrorCode.InvalidParams, e.getMessage(), null));
+          }
+        },
+        executors.requests());
   }
 
-  @SuppressWarnings("all")
-  private static class NodeJson {
-    public String id;
-    public String name;
-    public String type;
-    public int linesOfCode;
-    public String filePath;
+  /**
+   * カスタムリクエスト: パッケージ・モジュール単位に集約したグラフ（大きなワークスペースの初期表示用）
+   * expandを指定するとそのグループだけをクラス単位に展開する．
+   */
+  public CompletableFuture<String> getAggregatedGraph(AggregateParams params) {
+    AnalysisEngine engine = analysisEngine;
+    if (engine == null) {
+      return CompletableFuture.failedFuture(
+          new ResponseErrorException(
+              new ResponseError(
+                  ResponseErrorCode.ServerNotInitialized, "Analysis engine not initialized", null)));
+    }
+    return warmUp.handleAsync(
+        (ignored, warmUpError) -> {
+          if (engine.getGraphVersion() == 0) {
+            analyzeWorkspace(engine);
+          }
+          try {
+            AggregateParams request = params == null ? new AggregateParams() : params;
+            return GraphJsonWriter.toJson(
+                engine.aggregate(
+                    request.getLevel(),
+                    request.getExpand(),
+                    request.getMinWeight() == null ? 1 : request.getMinWeight()));
+          } catch (IllegalArgumentException e) {
+            throw new ResponseErrorException(
+                new ResponseError(ResponseErrorCode.InvalidParams, e.getMessage(), null));
+          }
+        },
+        executors.requests());
+  }
+
+  private static QueryResult runQuery(GraphQuery query, QueryParams params) {
+    String kind = params.getKind() == null ? "" : params.getKind();
+    int depth = params.getDepth() == null ? -1 : params.getDepth();
+    List<String> edgeTypes = params.getEdgeTypes();
+    long version = query.getVersion();
+    return switch (kind) {
+      case "dependencies" ->
+          new QueryResult(
+              kind, version, query.dependencies(requireNode(params), depth, edgeTypes));
+      case "dependents" ->
+          new QueryResult(kind, version, query.dependents(requireNode(params), depth, edgeTypes));
+      case "path" -> {
+        if (params.getTarget() == null) {
+          throw new IllegalArgumentException("target is required for path queries");
+        }
+        yield new QueryResult(
+            kind, version, query.shortestPath(requireNode(params), params.getTarget(), edgeTypes));
+      }
+      case "cycles" -> {
+        List<List<String>> components =
+            query.cycles(edgeTypes, Boolean.TRUE.equals(params.getIncludeSelfLoops()));
+        List<String> members = components.stream().flatMap(List::stream).toList();
+        yield new QueryResult(kind, version, query.subgraph(members, edgeTypes), components);
+      }
+      default -> throw new IllegalArgumentException("Unknown query kind: " + params.getKind());
+    };
   }
 
-  @SuppressWarnings("all")
-  private static class LinkJson {
-    public String source;
-    public String target;
-    public String type;
+  private static String requireNode(QueryParams params) {
+    if (params.getNode() == null) {
+      throw new IllegalArgumentException("node is required for " + params.getKind() + " queries");
+    }
+    return params.getNode();
   }
 
-  private GraphDataJson toJsonObject(CodeGraph codeGraph) {
-    GraphDataJson json = new GraphDataJson();
-    json.nodes = new java.util.ArrayList<>();
-    json.links = new java.util.ArrayList<>();
+  /**
+   * ワークスペースを解析してインデックスを保存（失敗時はnull）
+   */
+  private CodeGraph analyzeWorkspace(AnalysisEngine engine) {
+    AnalysisEngine.WorkspaceSnapshot snapshot = analyzeWorkspaceSnapshot(engine);
+    return snapshot == null ? null : snapshot.graph();
+  }
 
-    for (com.example.parser.models.GraphNode node : codeGraph.getGraphNodes()) {
-      NodeJson nodeJson = new NodeJson();
-      nodeJson.id = node.getId();
-      nodeJson.name = node.getNodeName();
-      nodeJson.type = node.getType();
-      nodeJson.linesOfCode = node.getLinesOfCode();
-      nodeJson.filePath = node.getFilePath();
-      json.nodes.add(nodeJson);
+  private AnalysisEngine.WorkspaceSnapshot analyzeWorkspaceSnapshot(AnalysisEngine engine) {
+    try {
+      AnalysisEngine.WorkspaceSnapshot snapshot = engine.analyzeWorkspaceSnapshot();
+      engine.saveGraphIndex();
+      return snapshot;
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, e, () -> "Failed to analyze workspace");
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
     }
+  }
 
-    for (com.example.parser.models.GraphEdge edge : codeGraph.getGraphEdges()) {
-      LinkJson linkJson = new LinkJson();
-      linkJson.source = edge.getSourceNode().getId();
-      linkJson.target = edge.getTargetNode().getId();
-      linkJson.type = edge.getType();
-      json.links.add(linkJson);
+  // ページ送信用に固定したワークスペースグラフ
+  private record GraphSnapshot(long id, CodeGraph graph, int pageSize) {
+    int pageCount() {
+      return (GraphJsonWriter.itemCount(graph) + pageSize - 1) / pageSize;
     }
 
-    return json;
+    String page(int page) {
+      int from = Math.max(0, page) * pageSize;
+      return GraphJsonWriter.toJson(graph, from, from + pageSize);
+    }
   }
 }
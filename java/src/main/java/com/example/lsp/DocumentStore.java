@@ -0,0 +1,88 @@
+package com.example.lsp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+
+/**
+ * エディタで開かれているドキュメントの内容を保持するストア
+ * didOpenで全文を受け取り，didChangeの差分（Incremental同期）を順に適用する．
+ * キーはファイルパス．
+ */
+public class DocumentStore {
+  private final Map<String, StringBuilder> documents = new ConcurrentHashMap<>();
+
+  public void open(String filePath, String text) {
+    documents.put(filePath, new StringBuilder(text));
+  }
+
+  /**
+   * 変更を適用（開かれていないドキュメントへの変更は無視）
+   * rangeを持たない変更は全文の置き換えとして扱う
+   */
+  public void change(String filePath, List<TextDocumentContentChangeEvent> changes) {
+    StringBuilder document = documents.get(filePath);
+    if (document == null) {
+      return;
+    }
+    synchronized (document) {
+      for (TextDocumentContentChangeEvent change : changes) {
+        Range range = change.getRange();
+        if (range == null) {
+          document.setLength(0);
+          document.append(change.getText());
+        } else {
+          int start = offsetAt(document, range.getStart());
+          int end = Math.max(start, offsetAt(document, range.getEnd()));
+          document.replace(start, end, change.getText());
+        }
+      }
+    }
+  }
+
+  public void close(String filePath) {
+    documents.remove(filePath);
+  }
+
+  /** 開かれているドキュメントの現在の内容（開かれていなければnull） */
+  public String getText(String filePath) {
+    StringBuilder document = documents.get(filePath);
+    if (document == null) {
+      return null;
+    }
+    synchronized (document) {
+      return document.toString();
+    }
+  }
+
+  /**
+   * LSPの位置（行とUTF-16単位の列）を文字オフセットに変換
+   * 行末を越える列は行末に，最終行を越える行は末尾に丸める
+   */
+  static int offsetAt(CharSequence text, Position position) {
+    int length = text.length();
+    int offset = 0;
+    for (int line = 0; line < position.getLine(); line++) {
+      while (offset < length && text.charAt(offset) != '\n' && text.charAt(offset) != '\r') {
+        offset++;
+      }
+      if (offset >= length) {
+        return length;
+      }
+      if (text.charAt(offset) == '\r' && offset + 1 < length && text.charAt(offset + 1) == '\n') {
+        offset++;
+      }
+      offset++;
+    }
+
+    int lineEnd = offset;
+    while (lineEnd < length && text.charAt(lineEnd) != '\n' && text.charAt(lineEnd) != '\r') {
+      lineEnd++;
+    }
+    return Math.min(offset + Math.max(0, position.getCharacter()), lineEnd);
+  }
+}
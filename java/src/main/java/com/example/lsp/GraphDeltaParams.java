@@ -0,0 +1,140 @@
+package com.example.lsp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.parser.models.EdgeKey;
+import com.example.parser.models.GraphDelta;
+import com.example.parser.models.GraphNode;
+
+/**
+ * dependviz/graphDeltaの通知内容（lsp4jがそのままJSONに変換する）
+ * {"fromVersion", "version", "nodes", "removedNodes", "links", "removedLinks"}
+ * ノード・リンクの形式はワークスペースグラフのJSON（GraphJsonWriter）と同じ．
+ * 表示中のグラフがminWeight未満のリンクを除いたものなら，重みがminWeight未満になったリンクは
+ * removedLinksとして送る（クライアントに無ければ何もしない）．
+ */
+public class GraphDeltaParams {
+  private final long fromVersion;
+  private final long version;
+  private final List<Node> nodes = new ArrayList<>();
+  private final List<String> removedNodes;
+  private final List<Link> links = new ArrayList<>();
+  private final List<Link> removedLinks = new ArrayList<>();
+
+  /**
+   * @param minWeight 表示中のグラフから除いているリンクの重みの下限（1以下なら全て送る）
+   */
+  GraphDeltaParams(GraphDelta delta, int minWeight) {
+    this.fromVersion = delta.getFromVersion();
+    this.version = delta.getToVersion();
+    for (GraphNode node : delta.getNodes()) {
+      nodes.add(new Node(node));
+    }
+    this.removedNodes = delta.getRemovedNodes();
+    List<EdgeKey> edges = delta.getEdges();
+    for (int i = 0; i < edges.size(); i++) {
+      int weight = delta.getEdgeWeight(i);
+      if (weight < minWeight) {
+        removedLinks.add(new Link(edges.get(i), 0));
+      } else {
+        links.add(new Link(edges.get(i), weight));
+      }
+    }
+    for (EdgeKey edge : delta.getRemovedEdges()) {
+      removedLinks.add(new Link(edge, 0));
+    }
+  }
+
+  public long getFromVersion() {
+    return fromVersion;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public List<Node> getNodes() {
+    return nodes;
+  }
+
+  public List<String> getRemovedNodes() {
+    return removedNodes;
+  }
+
+  public List<Link> getLinks() {
+    return links;
+  }
+
+  public List<Link> getRemovedLinks() {
+    return removedLinks;
+  }
+
+  /** 追加または属性が変わったノード */
+  public static class Node {
+    private final String id;
+    private final String name;
+    private final String type;
+    private final int linesOfCode;
+    private final String filePath;
+
+    Node(GraphNode node) {
+      this.id = node.getId();
+      this.name = node.getNodeName();
+      this.type = node.getType();
+      this.linesOfCode = node.getLinesOfCode();
+      this.filePath = node.getFilePath();
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public int getLinesOfCode() {
+      return linesOfCode;
+    }
+
+    public String getFilePath() {
+      return filePath;
+    }
+  }
+
+  /** 追加または重みが変わったリンク（削除されたリンクではweightは0） */
+  public static class Link {
+    private final String source;
+    private final String target;
+    private final String type;
+    private final int weight;
+
+    Link(EdgeKey edge, int weight) {
+      this.source = edge.source();
+      this.target = edge.target();
+      this.type = edge.type();
+      this.weight = weight;
+    }
+
+    public String getSource() {
+      return source;
+    }
+
+    public String getTarget() {
+      return target;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public int getWeight() {
+      return weight;
+    }
+  }
+}
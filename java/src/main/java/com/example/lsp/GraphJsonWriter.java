@@ -0,0 +1,194 @@
+package com.example.lsp;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.example.parser.index.AggregatedGraph;
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.GraphEdge;
+import com.example.parser.models.GraphNode;
+import com.example.parser.query.QueryResult;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+/**
+ * CodeGraphを中間オブジェクトを作らずにJSON（{"nodes": [...], "links": [...]}）へ書き出す
+ * ページ単位の書き出しでは，ノード列の後にリンク列が続く1本の列として範囲を切り出す．
+ * 言語サーバーのほか，コマンドラインのバッチ解析（com.example.cli）の出力にも使う．
+ */
+public final class GraphJsonWriter {
+  // 設定済みのファクトリをリクエスト間で共有（ジェネレータはリクエストごとに生成）
+  private static final JsonFactory JSON_FACTORY =
+      JsonFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build();
+
+  private GraphJsonWriter() {}
+
+  /** グラフ全体をJSON文字列に変換 */
+  public static String toJson(CodeGraph graph) {
+    return toJson(graph, 0, itemCount(graph));
+  }
+
+  /** ノード列+リンク列の[from, to)の範囲をJSON文字列に変換 */
+  static String toJson(CodeGraph graph, int from, int to) {
+    StringWriter out = new StringWriter();
+    try {
+      write(graph, from, to, out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toString();
+  }
+
+  /** グラフ全体をoutへ書き出す */
+  public static void write(CodeGraph graph, Writer out) throws IOException {
+    write(graph, 0, itemCount(graph), out);
+  }
+
+  public static void write(CodeGraph graph, int from, int to, Writer out) throws IOException {
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+      generator.writeStartObject();
+      writeFields(generator, graph, from, to);
+      generator.writeEndObject();
+    }
+  }
+
+  /** 書き出し中のオブジェクトにグラフ全体の"nodes"と"links"を追加（他のフィールドと並べる場合用） */
+  public static void writeFields(JsonGenerator generator, CodeGraph graph) throws IOException {
+    writeFields(generator, graph, 0, itemCount(graph));
+  }
+
+  private static void writeFields(JsonGenerator generator, CodeGraph graph, int from, int to)
+      throws IOException {
+    List<GraphNode> nodes = graph.getGraphNodes();
+    List<GraphEdge> edges = graph.getGraphEdges();
+    int nodeCount = nodes.size();
+    int end = Math.min(to, nodeCount + edges.size());
+
+    generator.writeArrayFieldStart("nodes");
+    for (int i = Math.max(from, 0); i < Math.min(end, nodeCount); i++) {
+      writeNode(generator, nodes.get(i));
+    }
+    generator.writeEndArray();
+
+    generator.writeArrayFieldStart("links");
+    for (int i = Math.max(from - nodeCount, 0); i < end - nodeCount; i++) {
+      writeLink(generator, edges.get(i));
+    }
+    generator.writeEndArray();
+  }
+
+  /**
+   * 問い合わせの結果をJSON文字列に変換
+   * {"kind", "version", "components"（循環の問い合わせのみ）, "nodes", "links"}
+   */
+  static String toJson(QueryResult result) {
+    StringWriter out = new StringWriter();
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeStringField("kind", result.kind());
+      generator.writeNumberField("version", result.version());
+      if (!result.components().isEmpty()) {
+        generator.writeArrayFieldStart("components");
+        for (List<String> component : result.components()) {
+          generator.writeStartArray();
+          for (String nodeId : component) {
+            generator.writeString(nodeId);
+          }
+          generator.writeEndArray();
+        }
+        generator.writeEndArray();
+      }
+      writeFields(generator, result.graph());
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toString();
+  }
+
+  /**
+   * 集約したグラフをJSON文字列に変換
+   * {"level", "expanded"（展開時のみ）, "version", "nodes": [{"id", "name", "type", "linesOfCode",
+   * "memberCount", "internalLinks", "external"}],
+   * "links": [{"source", "target", "type", "count", "weight"}]}
+   */
+  static String toJson(AggregatedGraph graph) {
+    StringWriter out = new StringWriter();
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeStringField("level", graph.level());
+      if (graph.expanded() != null) {
+        generator.writeStringField("expanded", graph.expanded());
+      }
+      generator.writeNumberField("version", graph.version());
+      generator.writeArrayFieldStart("nodes");
+      for (AggregatedGraph.Node node : graph.nodes()) {
+        generator.writeStartObject();
+        generator.writeStringField("id", node.id());
+        generator.writeStringField("name", node.id());
+        generator.writeStringField("type", node.type());
+        generator.writeNumberField("linesOfCode", node.linesOfCode());
+        generator.writeNumberField("memberCount", node.memberCount());
+        generator.writeNumberField("internalLinks", node.internalLinks());
+        generator.writeBooleanField("external", node.external());
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeArrayFieldStart("links");
+      for (AggregatedGraph.Link link : graph.links()) {
+        generator.writeStartObject();
+        generator.writeStringField("source", link.source());
+        generator.writeStringField("target", link.target());
+        generator.writeStringField("type", link.type());
+        generator.writeNumberField("count", link.count());
+        generator.writeNumberField("weight", link.weight());
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toString();
+  }
+
+  /** ページ分割の対象となる要素数（ノード数+リンク数） */
+  static int itemCount(CodeGraph graph) {
+    return graph.getGraphNodes().size() + graph.getGraphEdges().size();
+  }
+
+  private static void writeNode(JsonGenerator generator, GraphNode node) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", node.getId());
+    generator.writeStringField("name", node.getNodeName());
+    generator.writeStringField("type", node.getType());
+    generator.writeNumberField("linesOfCode", node.getLinesOfCode());
+    generator.writeStringField("filePath", node.getFilePath());
+    generator.writeEndObject();
+  }
+
+  private static void writeLink(JsonGenerator generator, GraphEdge edge) throws IOException {
+    writeLink(
+        generator,
+        edge.getSourceNode().getId(),
+        edge.getTargetNode().getId(),
+        edge.getType(),
+        edge.getWeight());
+  }
+
+  // weightは参照の回数（削除されたリンクでは0）
+  private static void writeLink(
+      JsonGenerator generator, String source, String target, String type, int weight)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("source", source);
+    generator.writeStringField("target", target);
+    generator.writeStringField("type", type);
+    generator.writeNumberField("weight", weight);
+    generator.writeEndObject();
+  }
+}
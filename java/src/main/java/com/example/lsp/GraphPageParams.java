@@ -0,0 +1,25 @@
+package com.example.lsp;
+
+/**
+ * dependviz/getWorkspaceDependencyGraphPageのパラメータ
+ */
+public class GraphPageParams {
+  private long snapshotId;
+  private int page;
+
+  public long getSnapshotId() {
+    return snapshotId;
+  }
+
+  public void setSnapshotId(long snapshotId) {
+    this.snapshotId = snapshotId;
+  }
+
+  public int getPage() {
+    return page;
+  }
+
+  public void setPage(int page) {
+    this.page = page;
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.lsp;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 言語サーバーのリクエスト処理に使うExecutor
+ * requests: インデックスの読み込み・JSONへの変換・ページの切り出しと，解析の完了待ちなど，
+ * 待つことが多いリクエスト処理用（既定は1タスク1仮想スレッド）．構文解析・型解決は行わない．
+ * analysis: 構文解析・型解決用（CPU数までのプラットフォームスレッド）．ワークスペース全体の解析は
+ * AnalysisEngineが自身のプラットフォームスレッドで行い，requestsのスレッドはその完了を待つ．
+ * 共通ForkJoinPoolを使わないことで，ブロッキングI/Oが他の非同期処理を止めないようにする．
+ */
+public class LspExecutors implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger(LspExecutors.class.getName());
+
+  private final ExecutorService requests;
+  private final ExecutorService analysis;
+
+  public LspExecutors(RequestMode requestMode, int requestThreads, int analysisThreads) {
+    this.requests =
+        requestMode == RequestMode.VIRTUAL
+            ? Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("dependviz-request-", 0).factory())
+            : boundedPool(requestThreads, "dependviz-request-");
+    this.analysis = boundedPool(analysisThreads, "dependviz-parse-");
+  }
+
+  /**
+   * 起動引数から作成
+   * -Ddependviz.requestExecutor=virtual|platform（既定virtual）
+   * -Ddependviz.requestThreads（platform時のスレッド数，既定はCPU数の4倍）
+   * -Ddependviz.analysisThreads（解析スレッド数，既定はCPU数）
+   */
+  public static LspExecutors fromSystemProperties() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    RequestMode mode;
+    String value = System.getProperty("dependviz.requestExecutor", "virtual");
+    try {
+      mode = RequestMode.valueOf(value.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      logger.log(Level.WARNING, "Unknown request executor: {0}, using virtual threads", value);
+      mode = RequestMode.VIRTUAL;
+    }
+    return new LspExecutors(
+        mode,
+        Integer.getInteger("dependviz.requestThreads", processors * 4),
+        Integer.getInteger("dependviz.analysisThreads", processors));
+  }
+
+  public ExecutorService requests() {
+    return requests;
+  }
+
+  public ExecutorService analysis() {
+    return analysis;
+  }
+
+  @Override
+  public void close() {
+    requests.shutdownNow();
+    analysis.shutdownNow();
+  }
+
+  // 上限つきのデーモンスレッドプール（アイドル時はスレッドを解放）
+  private static ExecutorService boundedPool(int threads, String namePrefix) {
+    int size = Math.max(1, threads);
+    ThreadFactory factory = Thread.ofPlatform().name(namePrefix, 0).daemon(true).factory();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            size, size, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  public enum RequestMode {
+    VIRTUAL,
+    PLATFORM
+  }
+}
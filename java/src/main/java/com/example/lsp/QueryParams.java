@@ -0,0 +1,68 @@
+package com.example.lsp;
+
+import java.util.List;
+
+/**
+ * dependviz/queryのパラメータ
+ * kind: dependencies | dependents | path | cycles
+ * node: 起点のクラス（pathでは始点），target: pathの終点，
+ * depth: dependencies・dependentsで辿る段数（省略時は制限なし），
+ * edgeTypes: 辿る辺の種別（省略時は全て），
+ * includeSelfLoops: cyclesで自分自身への辺だけからなる循環も含める（省略時はfalse）
+ */
+public class QueryParams {
+  private String kind;
+  private String node;
+  private String target;
+  private Integer depth;
+  private List<String> edgeTypes;
+  private Boolean includeSelfLoops;
+
+  public String getKind() {
+    return kind;
+  }
+
+  public void setKind(String kind) {
+    this.kind = kind;
+  }
+
+  public String getNode() {
+    return node;
+  }
+
+  public void setNode(String node) {
+    this.node = node;
+  }
+
+  public String getTarget() {
+    return target;
+  }
+
+  public void setTarget(String target) {
+    this.target = target;
+  }
+
+  public Integer getDepth() {
+    return depth;
+  }
+
+  public void setDepth(Integer depth) {
+    this.depth = depth;
+  }
+
+  public List<String> getEdgeTypes() {
+    return edgeTypes;
+  }
+
+  public void setEdgeTypes(List<String> edgeTypes) {
+    this.edgeTypes = edgeTypes;
+  }
+
+  public Boolean getIncludeSelfLoops() {
+    return includeSelfLoops;
+  }
+
+  public void setIncludeSelfLoops(Boolean includeSelfLoops) {
+    this.includeSelfLoops = includeSelfLoops;
+  }
+}
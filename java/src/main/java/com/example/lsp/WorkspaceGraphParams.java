@@ -0,0 +1,19 @@
+package com.example.lsp;
+
+/**
+ * dependviz/beginWorkspaceDependencyGraphのパラメータ（省略可）
+ * minWeight: 重み（参照の回数）がこれ未満のリンクをスナップショットから除く（省略時は全て）．
+ * 以降のdependviz/graphDeltaでも，重みがこれ未満のリンクは送らずに削除として通知する
+ * （次にこのリクエストが届くまで有効）．
+ */
+public class WorkspaceGraphParams {
+  private Integer minWeight;
+
+  public Integer getMinWeight() {
+    return minWeight;
+  }
+
+  public void setMinWeight(Integer minWeight) {
+    this.minWeight = minWeight;
+  }
+}
@@ -1,14 +1,57 @@
 package com.example.parser;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.example.parser.index.AggregatedGraph;
+import com.example.parser.index.ApiSignature;
+import com.example.parser.index.GraphAggregation;
+import com.example.parser.index.GraphIndex;
+import com.example.parser.index.GraphIndexStore;
+import com.example.parser.index.WorkspaceGraph;
+import com.example.parser.metrics.AnalysisMetrics;
+import com.example.parser.metrics.PhaseMetrics;
 import com.example.parser.models.CodeGraph;
+import com.example.parser.models.CompactCodeGraph;
+import com.example.parser.models.GraphDelta;
+import com.example.parser.models.GraphNode;
+import com.example.parser.query.GraphQuery;
+import com.example.parser.resolution.ClasspathTypeSolver;
+import com.example.parser.resolution.MavenClasspath;
+import com.example.parser.resolution.ModuleLayout;
+import com.example.parser.resolution.ResolutionCache;
+import com.example.parser.resolution.TypeResolver;
+import com.example.parser.resolution.WorkspaceTypeSolver;
 import com.example.parser.stages.BaseStage;
 import com.example.parser.stages.ClassTypeStage;
 import com.example.parser.stages.ExtendsStage;
@@ -17,43 +60,113 @@ import com.example.parser.stages.ImplementsStage;
 import com.example.parser.stages.LinesOfCodeStage;
 import com.example.parser.stages.MethodCallStage;
 import com.example.parser.stages.ObjectCreationStage;
+import com.example.parser.stages.StageContext;
 import com.example.parser.stages.TypeUseStage;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
 /**
  * 解析エンジン - 既存のステージロジックをラップ
+ * 使い終わったら（ワークスペースの切り替え・終了時に）close()でスレッドプールを停止する．
  */
-public class AnalysisEngine {
+public class AnalysisEngine implements AutoCloseable {
   private static final Logger logger = Logger.getLogger(AnalysisEngine.class.getName());
 
-  private final CombinedTypeSolver typeSolver;
+  private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+  // ワークスペース解析時に辿らないディレクトリ
+  private static final Set<String> EXCLUDED_DIRECTORIES =
+      Set.of("node_modules", "target", "build", "out", "bin");
+
+  private final Path workspaceRoot;
+  private final AnalysisOptions options;
+  private final ModuleLayout moduleLayout;
+  private final WorkspaceTypeSolver typeSolver;
+  // 依存jarの索引（ビルドファイルの変更でreloadClasspath()が差し替える，なければnull）
+  private volatile ClasspathTypeSolver classpathSolver;
+  // 依存jarが変わり，次のワークスペース解析で全ファイルを解析し直す必要がある（workspaceLockで保護）
+  private boolean classpathChanged;
+  private final JavaSymbolSolver symbolSolver;
+  private final ParserConfiguration parserConfiguration;
+  private final Queue<JavaParser> parsers = new ConcurrentLinkedQueue<>();
   private final List<BaseStage> stages;
+  private final Set<Class<? extends Node>> stageNodeKinds;
+  // 大きなファイルで独立したStageを並行に実行するプール（無効ならnull）
+  private final ForkJoinPool stagePool;
+  private final ResolutionCache resolutionCache;
+  // 内容が変わっていないファイルの再解析で構文解析を省くためのAST
+  private final AstCache astCache;
+  private final AnalysisMetrics metrics;
+  // 計測値の記録先（stagePhasesはstagesと同じ順）
+  private final PhaseMetrics parsePhase;
+  private final List<PhaseMetrics> stagePhases;
+  private final PhaseMetrics filePhase;
+  private final GraphIndex graphIndex = new GraphIndex();
+  private final GraphIndexStore graphIndexStore;
+  private final WorkspaceGraph workspaceGraph;
+  // パッケージ・モジュール単位の集約（ワークスペースグラフの変更に合わせて差分で更新）
+  private final GraphAggregation packageAggregation = GraphAggregation.byPackage();
+  private final GraphAggregation moduleAggregation;
+  // インデックスとワークスペースグラフの更新を直列化する．ロックを保持したまま解析スレッドの完了
+  // （Future.get()）を待つため，仮想スレッドから呼ばれてもキャリアスレッドを占有しないReentrantLockを使う
+  private final ReentrantLock workspaceLock = new ReentrantLock();
+  // 問い合わせ用の索引（ワークスペースグラフのバージョンが変わったら作り直す）
+  private final Object queryLock = new Object();
+  private GraphQuery graphQuery;
+
+  // エディタで開かれているファイルの未保存の内容（開かれていなければnull）
+  private volatile Function<String, String> openDocuments = filePath -> null;
 
   public AnalysisEngine(String workspaceRoot) {
-    // TypeSolverの初期化
-    this.typeSolver = new CombinedTypeSolver();
-    this.typeSolver.add(new ReflectionTypeSolver());
+    this(workspaceRoot, AnalysisOptions.fromSystemProperties());
+  }
 
-    // ソースルートを探索
-    Path sourceRoot = findSourceRoot(Paths.get(workspaceRoot));
-    if (sourceRoot != null) {
-      logger.log(Level.INFO, "Found source root: {0}", sourceRoot);
-      this.typeSolver.add(new JavaParserTypeSolver(sourceRoot.toFile()));
-    } else {
-      logger.log(Level.WARNING, "Source root not found, using workspace root: {0}", workspaceRoot);
-      this.typeSolver.add(new JavaParserTypeSolver(new File(workspaceRoot)));
+  public AnalysisEngine(String workspaceRoot, AnalysisOptions options) {
+    this.workspaceRoot = Paths.get(workspaceRoot).toAbsolutePath().normalize();
+    this.options = options;
+
+    // モジュールとソースルートを探索（ソースルートごとにTypeSolverを持ち，モジュールの依存順に探す）
+    this.moduleLayout =
+        ModuleLayout.discover(this.workspaceRoot, AnalysisEngine::isExcludedDirectory);
+    for (ModuleLayout.Module module : moduleLayout.getModules()) {
+      logger.log(
+          Level.INFO,
+          "Found module {0} with source roots: {1}",
+          new Object[] {module.name(), module.sourceRoots()});
     }
+    this.classpathSolver = createClasspathSolver();
+    this.typeSolver =
+        new WorkspaceTypeSolver(
+            moduleLayout, ParserConfiguration.LanguageLevel.JAVA_21, classpathSolver);
+
+    // SymbolSolverと設定は共有し，JavaParserは使い終わったらプールに戻して再利用する
+    // （仮想スレッドから呼ばれてもタスクごとに生成しないようスレッドには紐づけない）
+    this.symbolSolver = new JavaSymbolSolver(typeSolver);
+    this.parserConfiguration = createParserConfiguration(symbolSolver);
+
+    this.graphIndexStore = GraphIndexStore.forWorkspace(this.workspaceRoot);
+    this.workspaceGraph = new WorkspaceGraph(newCodeGraph());
+    this.moduleAggregation = new GraphAggregation("Module", this::moduleNameOf);
+    workspaceGraph.addAggregation(packageAggregation);
+    workspaceGraph.addAggregation(moduleAggregation);
+
+    // ファイル間で共有する型解決キャッシュ
+    this.resolutionCache = new ResolutionCache(options.getResolutionCacheSize());
+    this.astCache =
+        new AstCache(
+            options.getAstCacheSize(),
+            options.getAstCacheMegabytes() * 1024L * 1024L,
+            filePath -> openDocuments.apply(filePath) != null);
 
     // ステージのパイプライン構築（TypeSolverは各Stageで内部設定）
     this.stages = new ArrayList<>();
     this.stages.add(new TypeUseStage());
-    this.stages.add(new MethodCallStage());
+    this.stages.add(new MethodCallStage(options.isLazyMethodCalls()));
     this.stages.add(new ObjectCreationStage());
     this.stages.add(new ExtendsStage());
     this.stages.add(new ImplementsStage());
@@ -61,63 +174,849 @@ public class AnalysisEngine {
     this.stages.add(new LinesOfCodeStage());
     this.stages.add(new FilePathStage());
 
+    // 融合モードで1回の走査にまとめるノード種別
+    this.stageNodeKinds = new LinkedHashSet<>();
+    for (BaseStage stage : stages) {
+      stageNodeKinds.addAll(stage.getNodeKinds());
+    }
+
+    this.stagePool =
+        options.isParallelStages() ? new ForkJoinPool(Math.max(1, options.getAnalysisThreads())) : null;
+
+    // 計測フェーズは実行順に登録しておく
+    this.metrics =
+        new AnalysisMetrics(
+            resolutionCache, astCache::getHitCount, astCache::getMissCount, options.isMetrics());
+    this.parsePhase = metrics.phase("parse");
+    this.stagePhases = new ArrayList<>(stages.size());
+    for (BaseStage stage : stages) {
+      stagePhases.add(metrics.phase(stage.getClass().getSimpleName()));
+    }
+    this.filePhase = metrics.phase("file");
+
     logger.log(Level.INFO, "Analysis engine initialized with {0} stages", stages.size());
   }
 
+  // 各モジュールのpom.xmlの依存jarをまとめて索引化（pom.xmlがない・無効ならnull）
+  private ClasspathTypeSolver createClasspathSolver() {
+    if (!options.isClasspath()) {
+      return null;
+    }
+    MavenClasspath classpath = new MavenClasspath(Paths.get(options.getMavenRepository()));
+    Set<Path> jars = new LinkedHashSet<>();
+    for (ModuleLayout.Module module : moduleLayout.getModules()) {
+      Path pom = module.buildFile();
+      if (pom == null || !pom.getFileName().toString().equals("pom.xml")) {
+        continue;
+      }
+      List<Path> resolved = classpath.resolve(pom);
+      logger.log(
+          Level.INFO, "Resolved {0} dependency jars from {1}", new Object[] {resolved.size(), pom});
+      jars.addAll(resolved);
+    }
+    return jars.isEmpty() ? null : new ClasspathTypeSolver(List.copyOf(jars));
+  }
+
+  /**
+   * ビルドファイルの変更に合わせて依存jarの索引を作り直す
+   * 依存jarが変わった場合は型解決の結果（失敗の記録を含む）を全て破棄し，次のanalyzeWorkspace()で
+   * 全ファイルを解析し直す．モジュール構成（ソースルート）は作り直さない．
+   *
+   * @return 依存jarが変わった場合true
+   */
+  public boolean reloadClasspath() throws InterruptedException {
+    workspaceLock.lockInterruptibly();
+    try {
+      ClasspathTypeSolver previous = classpathSolver;
+      ClasspathTypeSolver reloaded = createClasspathSolver();
+      List<Path> previousJars = previous == null ? List.of() : previous.getJars();
+      List<Path> reloadedJars = reloaded == null ? List.of() : reloaded.getJars();
+      if (previousJars.equals(reloadedJars)) {
+        if (reloaded != null) {
+          reloaded.close();
+        }
+        return false;
+      }
+      logger.log(
+          Level.INFO,
+          "Dependency jars changed: {0} -> {1}",
+          new Object[] {previousJars.size(), reloadedJars.size()});
+      typeSolver.setClasspathSolver(reloaded);
+      classpathSolver = reloaded;
+      if (previous != null) {
+        previous.close();
+      }
+      resolutionCache.clear();
+      classpathChanged = true;
+      return true;
+    } finally {
+      workspaceLock.unlock();
+    }
+  }
+
+  public Path getWorkspaceRoot() {
+    return workspaceRoot;
+  }
+
+  /**
+   * ワークスペースの解析対象のJavaファイル（パス順，analyzeWorkspace()と同じ）
+   */
+  public List<Path> listSourceFiles() throws IOException {
+    return findSourceFiles(workspaceRoot);
+  }
+
   /**
    * 単一ファイルを解析
    */
   public CodeGraph analyzeFile(String filePath) throws Exception {
+    String text = openDocuments.apply(filePath);
+    if (text == null) {
+      text = Files.readString(Paths.get(filePath));
+    }
+    return analyzeText(filePath, text);
+  }
+
+  /**
+   * メモリ上のソーステキストを解析（filePathは型解決キャッシュやノードのファイル位置に使用）
+   */
+  public CodeGraph analyzeText(String filePath, String text) throws Exception {
+    return analyze(filePath, text, NOT_CANCELLED).graph();
+  }
+
+  /**
+   * 開かれているファイルの内容を返す関数を設定
+   * 設定したファイルはディスクではなくこの内容で解析・インデックス化される
+   */
+  public void setOpenDocuments(Function<String, String> openDocuments) {
+    this.openDocuments = openDocuments;
+  }
+
+  /** ファイルが閉じられた（保持しているASTの固定を外す） */
+  public void documentClosed(String filePath) {
+    astCache.closed(Paths.get(filePath).toAbsolutePath().normalize().toString());
+  }
+
+  // cancelledがtrueを返したらStageの区切りでCancellationExceptionを投げて中断
+  private FileAnalysis analyze(String filePath, String text, BooleanSupplier cancelled)
+      throws Exception {
     logger.log(Level.INFO, "Analyzing file: {0}", filePath);
 
-    CodeGraph codeGraph = new CodeGraph();
+    CodeGraph codeGraph = newCodeGraph();
+    byte[] apiHash;
+    Set<String> unresolvedNames;
+    // 計測の有無はファイル単位で決める（無効なら時刻も取得しない）
+    boolean measured = metrics.isEnabled();
+    long fileStart = measured ? System.nanoTime() : 0;
+    // 型はこのファイルが属するモジュール（本体かテストか）から見た順で探す
+    int previousLookup = typeSolver.enter(Paths.get(filePath));
     try {
-      CompilationUnit cu = createCompilationUnit(filePath, typeSolver);
+      CompilationUnit cu = astCache.take(filePath, text);
+      if (cu == null) {
+        cu = createCompilationUnit(filePath, text);
+      }
+      TypeResolver typeResolver =
+          new TypeResolver(resolutionCache, cu, typeSolver.currentLookup());
+      StageContext context =
+          options.isFusedPipeline()
+              ? StageContext.fused(cu, stageNodeKinds, typeResolver)
+              : StageContext.multiPass(cu, typeResolver);
+      if (measured) {
+        parsePhase.record(System.nanoTime() - fileStart, 0, 0, 0);
+      }
 
-      // パイプラインとして順に実行
-      for (BaseStage stage : stages) {
-        stage.process(cu, codeGraph);
+      // パイプラインとして順に実行（大きなファイルでは連続する独立したStageをまとめて並行に実行）
+      boolean parallel =
+          stagePool != null
+              && cu.getRange().map(range -> range.end.line).orElse(0)
+                  >= options.getParallelStageMinLines();
+      for (int i = 0; i < stages.size(); ) {
+        checkCancelled(cancelled, filePath);
+        int end = parallel ? independentRunEnd(i) : i + 1;
+        if (end - i > 1) {
+          processConcurrently(
+              i, end, measured, filePath, text, context, typeResolver, codeGraph);
+        } else if (measured) {
+          processMeasured(stages.get(i), stagePhases.get(i), context, typeResolver, codeGraph);
+        } else {
+          stages.get(i).process(context, codeGraph);
+        }
+        i = end;
+      }
+      if (measured) {
+        filePhase.record(
+            System.nanoTime() - fileStart,
+            context.getVisitedNodes(),
+            typeResolver.getResolvedCount(),
+            typeResolver.getFailedCount());
       }
 
       logger.log(
           Level.INFO,
           "Analysis completed: {0} nodes, {1} edges",
           new Object[] {codeGraph.getGraphNodes().size(), codeGraph.getGraphEdges().size()});
+      apiHash = ApiSignature.of(cu);
+      unresolvedNames = typeResolver.getUnresolvedNames();
+      astCache.put(filePath, text, cu);
 
+    } catch (CancellationException e) {
+      throw e;
     } catch (Exception e) {
       logger.log(Level.WARNING, e, () -> "Failed to parse file: " + filePath);
       throw e;
+    } finally {
+      typeSolver.exit(previousLookup);
     }
 
-    return codeGraph;
+    return new FileAnalysis(codeGraph, apiHash, unresolvedNames);
+  }
+
+  // stages[from]から続く独立したStageの終端（fromが独立でなければfrom + 1）
+  private int independentRunEnd(int from) {
+    int end = from;
+    while (end < stages.size() && stages.get(end).isIndependent()) {
+      end++;
+    }
+    return Math.max(end, from + 1);
+  }
+
+  // stages[from, to)をそれぞれ専用の断片グラフに並行して書き込み，Stageの順に統合する
+  // （統合後のノード・辺の順序は順に実行した場合と同じになる）
+  // 型解決はノードのデータ（Node.data）に結果を書き込むため，同じASTを複数のスレッドで扱わない．
+  // 最初のStageは元のASTを使い，残りのStageはそれぞれtextを構文解析し直した複製を使う．
+  private void processConcurrently(
+      int from,
+      int to,
+      boolean measured,
+      String filePath,
+      String text,
+      StageContext context,
+      TypeResolver typeResolver,
+      CodeGraph codeGraph)
+      throws Exception {
+    List<ForkJoinTask<StageRun>> tasks = new ArrayList<>(to - from);
+    int lookup = typeSolver.currentLookup();
+    for (int i = from; i < to; i++) {
+      BaseStage stage = stages.get(i);
+      PhaseMetrics phase = stagePhases.get(i);
+      boolean copy = i > from;
+      TypeResolver resolver = copy ? typeResolver.fork() : typeResolver;
+      tasks.add(
+          stagePool.submit(
+              () -> {
+                CodeGraph fragment = newCodeGraph();
+                int previous = typeSolver.enter(lookup);
+                try {
+                  StageContext stageContext =
+                      copy ? copyContext(filePath, text, stage, resolver) : context;
+                  if (measured) {
+                    processMeasured(stage, phase, stageContext, resolver, fragment);
+                  } else {
+                    stage.process(stageContext, fragment);
+                  }
+                  return new StageRun(fragment, stageContext);
+                } finally {
+                  typeSolver.exit(previous);
+                }
+              }));
+    }
+
+    // 失敗したStageがあれば，順に実行した場合と同じく最初に失敗したStageの例外を投げる
+    Throwable failure = null;
+    for (ForkJoinTask<StageRun> task : tasks) {
+      try {
+        StageRun run = task.get();
+        if (failure == null) {
+          codeGraph.merge(run.fragment());
+        }
+        if (run.context() != context) {
+          context.join(run.context());
+          typeResolver.join(run.context().getTypeResolver());
+        }
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      }
+    }
+    if (failure instanceof Exception exception) {
+      throw exception;
+    }
+    if (failure instanceof Error error) {
+      throw error;
+    }
+  }
+
+  // 並行に実行するStage専用の，構文解析し直したASTのコンテキスト
+  private StageContext copyContext(
+      String filePath, String text, BaseStage stage, TypeResolver resolver) {
+    CompilationUnit copy = createCompilationUnit(filePath, text);
+    return options.isFusedPipeline()
+        ? StageContext.fused(copy, stage.getNodeKinds(), resolver)
+        : StageContext.multiPass(copy, resolver);
+  }
+
+  private record StageRun(CodeGraph fragment, StageContext context) {}
+
+  // Stageを実行し，所要時間とStage内で増えたノード数・解決回数を記録
+  private static void processMeasured(
+      BaseStage stage,
+      PhaseMetrics phase,
+      StageContext context,
+      TypeResolver typeResolver,
+      CodeGraph codeGraph) {
+    long visited = context.getVisitedNodes();
+    long resolved = typeResolver.getResolvedCount();
+    long failed = typeResolver.getFailedCount();
+    long start = System.nanoTime();
+    stage.process(context, codeGraph);
+    phase.record(
+        System.nanoTime() - start,
+        context.getVisitedNodes() - visited,
+        typeResolver.getResolvedCount() - resolved,
+        typeResolver.getFailedCount() - failed);
+  }
+
+  /** Stageを並行に実行するスレッドプールを停止し，開いている依存jarを閉じる */
+  @Override
+  public void close() {
+    if (stagePool != null) {
+      stagePool.shutdownNow();
+    }
+    ClasspathTypeSolver classpath = classpathSolver;
+    if (classpath != null) {
+      classpath.close();
+    }
+  }
+
+  /** 解析の計測値（-Ddependviz.metrics=trueまたはsetEnabled(true)で記録を開始） */
+  public AnalysisMetrics getMetrics() {
+    return metrics;
   }
 
   /**
-   * CompilationUnitを作成（既存のMain.javaから移植）
+   * ファイルの変更を通知（そのファイルで宣言された型への解決キャッシュを破棄）
+   * 失敗の記録は残す（公開APIが変わった場合はreanalyzeFile()が破棄する）．
    */
-  private static CompilationUnit createCompilationUnit(
-      String filePath, CombinedTypeSolver typeSolver) throws Exception {
-    ParserConfiguration parserConfiguration = new ParserConfiguration();
-    JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
-    parserConfiguration.setSymbolResolver(symbolSolver);
-    // TODO: 言語レベルの対応
-    parserConfiguration.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
-    StaticJavaParser.setConfiguration(parserConfiguration);
-    return StaticJavaParser.parse(Paths.get(filePath));
+  public void invalidateFile(String filePath) {
+    Path path = Paths.get(filePath);
+    resolutionCache.invalidateFile(path.toString());
+    typeSolver.invalidate(path);
+  }
+
+  /**
+   * 変更された1ファイルを再解析し，公開APIが変わった場合はそのファイルの型に依存するファイルも再解析
+   * 戻り値には更新されたファイルとワークスペースグラフの差分が含まれる
+   */
+  public Reanalysis reanalyzeFile(String filePath) throws IOException {
+    return reanalyzeFile(filePath, NOT_CANCELLED);
+  }
+
+  /**
+   * reanalyzeFile()の中断可能版
+   * 変更されたファイル自身の解析中にcancelledがtrueになった場合はインデックスを更新せず
+   * CancellationExceptionを投げる（依存元の再解析は整合性のため最後まで実行する）
+   */
+  public Reanalysis reanalyzeFile(String filePath, BooleanSupplier cancelled) throws IOException {
+    workspaceLock.lock();
+    try {
+      Path file = Paths.get(filePath).toAbsolutePath().normalize();
+      String normalized = file.toString();
+      checkCancelled(cancelled, normalized);
+      invalidateFile(normalized);
+      astCache.markEdited(normalized);
+
+      GraphIndex.Entry previous = graphIndex.get(normalized);
+      Set<String> previousTypes = new TreeSet<>(workspaceGraph.getDeclaredTypes(normalized));
+      Set<String> types = new TreeSet<>(previousTypes);
+
+      long negativeHits = resolutionCache.getNegativeHitCount();
+      refreshIndexEntry(file, true, cancelled);
+      GraphIndex.Entry current = graphIndex.get(normalized);
+      boolean apiChanged =
+          previous == null || !Arrays.equals(previous.apiHash(), current.apiHash());
+      if (apiChanged) {
+        // 宣言している型やシグネチャが変わると，以前は解決できなかった参照が解決できるようになりうる
+        resolutionCache.clearFailures();
+        // 失敗の記録で解決を省いていれば，記録を破棄した状態で解析し直す（構文解析はAstCacheで省ける）
+        if (resolutionCache.getNegativeHitCount() != negativeHits) {
+          refreshIndexEntry(file, true, cancelled);
+          current = graphIndex.get(normalized);
+        }
+      }
+
+      Set<String> affected = new TreeSet<>();
+      affected.add(normalized);
+      GraphDelta delta;
+      workspaceGraph.startRecording();
+      try {
+        workspaceGraph.update(normalized, current.graph(), current.unresolvedNames());
+        types.addAll(workspaceGraph.getDeclaredTypes(normalized));
+
+        // 本体のみの変更なら依存元の解析結果は変わらない．公開APIが変わった場合は，
+        // 前回解析に失敗したファイルもこの変更で解析できるようになりうるので解析し直す
+        if (apiChanged) {
+          Set<String> dependents = workspaceGraph.getDependentFiles(types);
+          Set<String> addedTypes = new TreeSet<>(types);
+          addedTypes.removeAll(previousTypes);
+          dependents.addAll(shadowedDependents(addedTypes));
+          dependents.addAll(graphIndex.getFailedFilePaths());
+          for (String dependent : dependents) {
+            if (dependent.equals(normalized)) {
+              continue;
+            }
+            refreshDependent(dependent);
+            affected.add(dependent);
+          }
+        }
+      } finally {
+        delta = workspaceGraph.stopRecording();
+      }
+
+      logger.log(
+          Level.INFO,
+          "Re-analyzed {0} with {1} dependent files (graph version {2})",
+          new Object[] {normalized, affected.size() - 1, delta.getToVersion()});
+      return new Reanalysis(affected, delta);
+    } finally {
+      workspaceLock.unlock();
+    }
+  }
+
+  /**
+   * 削除されたファイルの断片を取り除き，そのファイルの型に依存していたファイルを再解析
+   * 戻り値のaffectedFilesは削除されたファイルと再解析したファイル
+   */
+  public Reanalysis removeFile(String filePath) throws IOException {
+    workspaceLock.lock();
+    try {
+      Path file = Paths.get(filePath).toAbsolutePath().normalize();
+      String normalized = file.toString();
+      Set<String> types = new TreeSet<>(workspaceGraph.getDeclaredTypes(normalized));
+      invalidateFile(normalized);
+      astCache.invalidate(normalized);
+      graphIndex.remove(normalized);
+
+      Set<String> affected = new TreeSet<>();
+      affected.add(normalized);
+      GraphDelta delta;
+      workspaceGraph.startRecording();
+      try {
+        workspaceGraph.remove(normalized);
+        for (String dependent : workspaceGraph.getDependentFiles(types)) {
+          refreshDependent(dependent);
+          affected.add(dependent);
+        }
+      } finally {
+        delta = workspaceGraph.stopRecording();
+      }
+
+      logger.log(
+          Level.INFO,
+          "Removed {0} and re-analyzed {1} dependent files (graph version {2})",
+          new Object[] {normalized, affected.size() - 1, delta.getToVersion()});
+      return new Reanalysis(affected, delta);
+    } finally {
+      workspaceLock.unlock();
+    }
+  }
+
+  // 依存元のファイルを解析し直してワークスペースグラフに反映（依存元は中断しない）
+  private IndexUpdate refreshDependent(String filePath) throws IOException {
+    IndexUpdate update = refreshIndexEntry(Paths.get(filePath), true, NOT_CANCELLED);
+    GraphIndex.Entry entry = graphIndex.get(filePath);
+    workspaceGraph.update(filePath, entry.graph(), entry.unresolvedNames());
+    return update;
+  }
+
+  // 追加された型と同じ単純名の記述への解決結果を破棄し，同じ単純名の型を参照しているファイルを返す
+  // （import q.*でq.Fooに解決していたFooは，同じパッケージにFooが追加されるとそちらに解決される）
+  private Set<String> shadowedDependents(Set<String> addedTypes) {
+    if (addedTypes.isEmpty()) {
+      return Set.of();
+    }
+    Set<String> simpleNames = new HashSet<>();
+    for (String type : addedTypes) {
+      simpleNames.add(WorkspaceGraph.simpleName(type));
+    }
+    resolutionCache.invalidateSimpleNames(simpleNames);
+    return workspaceGraph.getFilesReferencingSimpleNames(addedTypes);
+  }
+
+  // FilePathStageがファイルパスを設定したノードが，断片のファイルで宣言された型
+  private static Set<String> declaredTypes(CodeGraph fragment) {
+    Set<String> types = new LinkedHashSet<>();
+    for (GraphNode node : fragment.getGraphNodes()) {
+      if (node.getFilePath() != null) {
+        types.add(node.getNodeName());
+      }
+    }
+    return types;
+  }
+
+  /** ワークスペースグラフの現在のバージョン（reanalyzeFile()の差分はこの値から始まる） */
+  public long getGraphVersion() {
+    return workspaceGraph.getVersion();
   }
 
   /**
-   * ソースルートを探索（既存のMain.javaから移植）
+   * ワークスペースグラフの問い合わせ用索引
+   * 前回作成した後にグラフが変わっていなければ同じ索引を返す．
    */
-  private static Path findSourceRoot(Path startPath) {
-    Path current = startPath;
-    while (current != null) {
-      Path candidate = current.resolve("src/main/java");
-      if (candidate.toFile().exists() && candidate.toFile().isDirectory()) {
-        return candidate;
+  public GraphQuery getGraphQuery() {
+    synchronized (queryLock) {
+      // バージョンを先に読むので，索引のグラフは少なくともそのバージョン以降の状態になる
+      long version = workspaceGraph.getVersion();
+      if (graphQuery == null || graphQuery.getVersion() != version) {
+        graphQuery = new GraphQuery(workspaceGraph.snapshot(CodeGraph::new), version);
       }
-      current = current.getParent();
+      return graphQuery;
     }
-    return null;
   }
+
+  /**
+   * パッケージ単位（level "package"）またはモジュール単位（"module"）に集約したワークスペースグラフ
+   *
+   * @param expand クラス単位に展開するグループ（nullなら展開しない）
+   * @param minWeight 重み（参照の回数）の合計がこれ未満のリンクは除く（1以下なら全て）
+   * @throws IllegalArgumentException 不明な単位・存在しないグループを指定した場合
+   */
+  public AggregatedGraph aggregate(String level, String expand, int minWeight) {
+    GraphAggregation aggregation =
+        switch (level == null ? "package" : level) {
+          case "package" -> packageAggregation;
+          case "module" -> moduleAggregation;
+          default -> throw new IllegalArgumentException("Unknown level: " + level);
+        };
+    return workspaceGraph.aggregate(aggregation, expand, minWeight);
+  }
+
+  // 宣言しているファイルのモジュール名（ワークスペース外の型は"(external)"）
+  private String moduleNameOf(GraphNode node) {
+    if (node.getFilePath() == null) {
+      return "(external)";
+    }
+    int module = moduleLayout.moduleOf(Paths.get(node.getFilePath()));
+    if (module < 0) {
+      return "(external)";
+    }
+    // 名前のないモジュール・Gradleのルートプロジェクト（":"）はディレクトリ名で表す
+    ModuleLayout.Module found = moduleLayout.getModules().get(module);
+    return found.name().isEmpty() || found.name().equals(":")
+        ? String.valueOf(found.directory().getFileName())
+        : found.name();
+  }
+
+  /**
+   * ワークスペース内の全Javaファイルを並列に解析し，1つのCodeGraphにマージ
+   * 内容のハッシュがインデックスと一致するファイルは再解析せずに断片を再利用する．
+   * 構文解析・型解決はここで作るプラットフォームスレッド（analysisThreads個）で行い，
+   * 呼び出し元のスレッドはその完了を待つだけなので仮想スレッドから呼んでよい．
+   */
+  public CodeGraph analyzeWorkspace() throws IOException, InterruptedException {
+    return analyzeWorkspaceSnapshot().graph();
+  }
+
+  /**
+   * analyzeWorkspace()と同じ解析を行い，マージ済みグラフとそのバージョンを組にして返す
+   * （バージョンはグラフと同じ時点のもので，以降のreanalyzeFile()の差分はこのバージョンから始まる）
+   */
+  public WorkspaceSnapshot analyzeWorkspaceSnapshot() throws IOException, InterruptedException {
+    workspaceLock.lockInterruptibly();
+    try {
+      List<Path> sourceFiles = findSourceFiles(workspaceRoot);
+      int workers = Math.max(1, Math.min(options.getAnalysisThreads(), sourceFiles.size()));
+      logger.log(
+          Level.INFO,
+          "Analyzing workspace: {0} files on {1} workers",
+          new Object[] {sourceFiles.size(), workers});
+
+      // ファイルが追加・削除されていれば，以前は解決できなかった型が解決できるようになりうる
+      List<String> filePaths = sourceFiles.stream().map(Path::toString).toList();
+      Set<String> existing = new HashSet<>(filePaths);
+      boolean filesChanged = !existing.equals(new HashSet<>(graphIndex.getFilePaths()));
+      if (filesChanged) {
+        resolutionCache.clearFailures();
+      }
+
+      // 削除されたファイルの断片とASTを破棄（解析前の断片は公開APIの変化の判定に使う）
+      Map<String, GraphIndex.Entry> previousEntries = new HashMap<>();
+      for (String filePath : graphIndex.getFilePaths()) {
+        previousEntries.put(filePath, graphIndex.get(filePath));
+        if (!existing.contains(filePath)) {
+          astCache.invalidate(filePath);
+        }
+      }
+      graphIndex.retainAll(filePaths);
+
+      // 依存jarが変わっていれば内容が同じファイルも，ファイルが追加・削除されていれば
+      // 前回解析に失敗したファイルも解析し直す
+      Set<String> retried =
+          filesChanged ? new HashSet<>(graphIndex.getFailedFilePaths()) : Set.of();
+      boolean forceAll = classpathChanged;
+      Map<IndexUpdate, Integer> counts = new EnumMap<>(IndexUpdate.class);
+      Set<String> analyzed = new HashSet<>();
+      try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+        List<Future<IndexUpdate>> futures = new ArrayList<>(sourceFiles.size());
+        for (Path file : sourceFiles) {
+          boolean force = forceAll || retried.contains(file.toString());
+          futures.add(executor.submit(() -> refreshIndexEntry(file, force, NOT_CANCELLED)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+          IndexUpdate update;
+          try {
+            update = futures.get(i).get();
+          } catch (ExecutionException e) {
+            update = IndexUpdate.FAILED;
+          }
+          counts.merge(update, 1, Integer::sum);
+          if (update != IndexUpdate.REUSED) {
+            analyzed.add(filePaths.get(i));
+          }
+        }
+      }
+      classpathChanged = false;
+
+      syncWorkspaceGraph();
+
+      // 公開APIが変わった・追加・削除されたファイルの型に依存するファイルは，内容が同じでも
+      // 再利用した断片が古い型を指しうるので解析し直す
+      Set<String> changedTypes = new TreeSet<>();
+      previousEntries.forEach(
+          (filePath, previous) -> {
+            if (!existing.contains(filePath)) {
+              changedTypes.addAll(declaredTypes(previous.graph()));
+            }
+          });
+      Set<String> addedTypes = new TreeSet<>();
+      for (String filePath : analyzed) {
+        GraphIndex.Entry previous = previousEntries.get(filePath);
+        byte[] apiHash = graphIndex.get(filePath).apiHash();
+        if (previous == null || !Arrays.equals(previous.apiHash(), apiHash)) {
+          Set<String> declared = workspaceGraph.getDeclaredTypes(filePath);
+          changedTypes.addAll(declared);
+          addedTypes.addAll(declared);
+          if (previous != null) {
+            Set<String> previousTypes = declaredTypes(previous.graph());
+            changedTypes.addAll(previousTypes);
+            addedTypes.removeAll(previousTypes);
+          }
+        }
+      }
+      Set<String> dependents = workspaceGraph.getDependentFiles(changedTypes);
+      if (!previousEntries.isEmpty()) {
+        // 初回の解析では全ファイルを解析済みで，解決結果もこの時点のソースに基づく
+        dependents.addAll(shadowedDependents(addedTypes));
+      }
+      dependents.removeAll(analyzed);
+      if (!dependents.isEmpty()) {
+        resolutionCache.clearFailures();
+        for (String dependent : dependents) {
+          counts.merge(IndexUpdate.REUSED, -1, Integer::sum);
+          counts.merge(refreshDependent(dependent), 1, Integer::sum);
+        }
+        logger.log(
+            Level.INFO, "Re-analyzed {0} files depending on changed types", dependents.size());
+      }
+      CodeGraph merged = workspaceGraph.snapshot(this::newCodeGraph);
+      long version = workspaceGraph.getVersion();
+      logger.log(
+          Level.INFO,
+          "Workspace analysis completed: {0} nodes, {1} edges (reused {2}, analyzed {3}, failed {4})",
+          new Object[] {
+            merged.getGraphNodes().size(),
+            merged.getGraphEdges().size(),
+            counts.getOrDefault(IndexUpdate.REUSED, 0),
+            counts.getOrDefault(IndexUpdate.ANALYZED, 0),
+            counts.getOrDefault(IndexUpdate.FAILED, 0)
+          });
+      return new WorkspaceSnapshot(merged, version, graphIndex.getFailedFilePaths().size());
+    } finally {
+      workspaceLock.unlock();
+    }
+  }
+
+  /**
+   * ディスク上のインデックスを読み込む（persistentIndexが無効なら何もしない）
+   */
+  public void loadGraphIndex() {
+    if (options.isPersistentIndex()) {
+      graphIndexStore.load(graphIndex, indexFingerprint(), this::newCodeGraph);
+    }
+  }
+
+  /**
+   * 変更があればインデックスをディスクに保存
+   */
+  public void saveGraphIndex() throws IOException {
+    if (options.isPersistentIndex() && graphIndex.isDirty()) {
+      graphIndexStore.save(graphIndex, indexFingerprint());
+    }
+  }
+
+  public GraphIndex getGraphIndex() {
+    return graphIndex;
+  }
+
+  // 断片の内容を左右する設定と依存jar（パス・更新時刻・サイズ）のハッシュ
+  private byte[] indexFingerprint() {
+    StringBuilder fingerprint = new StringBuilder();
+    fingerprint.append("lazyMethodCalls=").append(options.isLazyMethodCalls());
+    fingerprint.append("\nparallelStages=").append(options.isParallelStages());
+    fingerprint.append("\nclasspath=").append(options.isClasspath());
+    ClasspathTypeSolver classpath = classpathSolver;
+    for (Path jar : classpath == null ? List.<Path>of() : classpath.getJars()) {
+      fingerprint.append('\n').append(jar);
+      try {
+        fingerprint.append(' ').append(Files.getLastModifiedTime(jar).toMillis());
+        fingerprint.append(' ').append(Files.size(jar));
+      } catch (IOException e) {
+        // 読めないjarはパスのみで区別する
+      }
+    }
+    return GraphIndex.contentHash(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  // ハッシュが変わったファイルだけ解析し直す（失敗したファイルは失敗の印を付けて空の断片を記録）
+  private IndexUpdate refreshIndexEntry(Path file, boolean force, BooleanSupplier cancelled)
+      throws IOException {
+    String filePath = file.toString();
+    String text = openDocuments.apply(filePath);
+    byte[] content =
+        text != null ? text.getBytes(StandardCharsets.UTF_8) : Files.readAllBytes(file);
+    byte[] contentHash = GraphIndex.contentHash(content);
+    if (!force && graphIndex.find(filePath, contentHash) != null) {
+      return IndexUpdate.REUSED;
+    }
+
+    try {
+      if (text == null) {
+        text = new String(content, StandardCharsets.UTF_8);
+      }
+      FileAnalysis analysis = analyze(filePath, text, cancelled);
+      graphIndex.put(
+          filePath, contentHash, analysis.apiHash(), analysis.graph(), analysis.unresolvedNames());
+      return IndexUpdate.ANALYZED;
+    } catch (CancellationException e) {
+      throw e;
+    } catch (Exception e) {
+      graphIndex.putFailed(filePath, contentHash, newCodeGraph());
+      return IndexUpdate.FAILED;
+    }
+  }
+
+  // インデックスの断片をファイル単位で統合グラフに反映（同じ断片のファイルは何もしない）
+  private void syncWorkspaceGraph() {
+    Set<String> indexed = new HashSet<>(graphIndex.getFilePaths());
+    for (String filePath : workspaceGraph.getFilePaths()) {
+      if (!indexed.contains(filePath)) {
+        workspaceGraph.remove(filePath);
+      }
+    }
+    for (String filePath : graphIndex.getFilePaths()) {
+      GraphIndex.Entry entry = graphIndex.get(filePath);
+      if (!workspaceGraph.contains(filePath, entry.graph())) {
+        workspaceGraph.update(filePath, entry.graph(), entry.unresolvedNames());
+      }
+    }
+  }
+
+  private static void checkCancelled(BooleanSupplier cancelled, String filePath) {
+    if (cancelled.getAsBoolean()) {
+      throw new CancellationException("Analysis cancelled: " + filePath);
+    }
+  }
+
+  private record FileAnalysis(CodeGraph graph, byte[] apiHash, Set<String> unresolvedNames) {}
+
+  /**
+   * analyzeWorkspaceSnapshot()の結果（graphはマージ済みグラフのコピー，versionはその時点のバージョン，
+   * failedFilesは解析に失敗してグラフに含まれていないファイルの数）
+   */
+  public record WorkspaceSnapshot(CodeGraph graph, long version, int failedFiles) {}
+
+  /**
+   * reanalyzeFile()の結果
+   * affectedFilesは断片が更新されたファイル（変更されたファイル自身を含む），deltaはワークスペースグラフの差分
+   */
+  public record Reanalysis(Set<String> affectedFiles, GraphDelta delta) {}
+
+  private enum IndexUpdate {
+    REUSED,
+    ANALYZED,
+    FAILED
+  }
+
+  private CodeGraph newCodeGraph() {
+    return options.isCompactGraph() ? new CompactCodeGraph() : new CodeGraph();
+  }
+
+  // ビルド出力や隠しディレクトリ
+  private static boolean isExcludedDirectory(Path dir) {
+    String name = dir.getFileName() == null ? "" : dir.getFileName().toString();
+    return name.startsWith(".") || EXCLUDED_DIRECTORIES.contains(name);
+  }
+
+  /**
+   * ワークスペース配下のJavaファイルを列挙（ビルド出力や隠しディレクトリは除外）
+   */
+  private static List<Path> findSourceFiles(Path root) throws IOException {
+    List<Path> files = new ArrayList<>();
+    Files.walkFileTree(root, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        if (!dir.equals(root) && isExcludedDirectory(dir)) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (attrs.isRegularFile() && file.toString().endsWith(".java")) {
+          files.add(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+        logger.log(Level.WARNING, e, () -> "Failed to visit: " + file);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    files.sort(null);
+    return files;
+  }
+
+  /**
+   * CompilationUnitを作成（プールから借りたJavaParserを使用）
+   * 型解決キャッシュが宣言ファイルを辿れるようにStorageにはfilePathを設定する
+   */
+  private CompilationUnit createCompilationUnit(String filePath, String text) {
+    JavaParser parser = parsers.poll();
+    if (parser == null) {
+      parser = new JavaParser(parserConfiguration);
+    }
+    ParseResult<CompilationUnit> result;
+    try {
+      result = parser.parse(text);
+    } finally {
+      parsers.offer(parser);
+    }
+    if (!result.isSuccessful() || result.getResult().isEmpty()) {
+      throw new ParseProblemException(result.getProblems());
+    }
+    CompilationUnit cu = result.getResult().get();
+    cu.setStorage(Paths.get(filePath), StandardCharsets.UTF_8);
+    return cu;
+  }
+
+  private static ParserConfiguration createParserConfiguration(JavaSymbolSolver symbolSolver) {
+    ParserConfiguration parserConfiguration = new ParserConfiguration();
+    parserConfiguration.setSymbolResolver(symbolSolver);
+    // TODO: 言語レベルの対応
+    parserConfiguration.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+    return parserConfiguration;
+  }
+
 }
@@ -0,0 +1,173 @@
+package com.example.parser;
+
+import java.nio.file.Paths;
+
+/**
+ * 解析エンジンの動作オプション
+ * 言語サーバーの起動引数（-Ddependviz.*）から読み込む
+ */
+public class AnalysisOptions {
+  private boolean compactGraph = false;
+  private boolean fusedPipeline = true;
+  private int resolutionCacheSize = 50_000;
+  private int astCacheSize = 1_000;
+  private int astCacheMegabytes = 64;
+  private boolean persistentIndex = true;
+  private int analysisThreads = Runtime.getRuntime().availableProcessors();
+  private boolean metrics = false;
+  private boolean lazyMethodCalls = false;
+  private boolean parallelStages = false;
+  private int parallelStageMinLines = 5_000;
+  private boolean classpath = true;
+  private String mavenRepository =
+      Paths.get(System.getProperty("user.home"), ".m2", "repository").toString();
+
+  public static AnalysisOptions fromSystemProperties() {
+    AnalysisOptions options = new AnalysisOptions();
+    options.setCompactGraph(Boolean.getBoolean("dependviz.compactGraph"));
+    options.setFusedPipeline(
+        Boolean.parseBoolean(System.getProperty("dependviz.fusedPipeline", "true")));
+    options.setResolutionCacheSize(
+        Integer.getInteger("dependviz.resolutionCacheSize", options.getResolutionCacheSize()));
+    options.setAstCacheSize(Integer.getInteger("dependviz.astCacheSize", options.getAstCacheSize()));
+    options.setAstCacheMegabytes(
+        Integer.getInteger("dependviz.astCacheMegabytes", options.getAstCacheMegabytes()));
+    options.setPersistentIndex(
+        Boolean.parseBoolean(System.getProperty("dependviz.persistentIndex", "true")));
+    options.setAnalysisThreads(
+        Integer.getInteger("dependviz.analysisThreads", options.getAnalysisThreads()));
+    options.setMetrics(Boolean.getBoolean("dependviz.metrics"));
+    options.setLazyMethodCalls(Boolean.getBoolean("dependviz.lazyMethodCalls"));
+    options.setParallelStages(Boolean.getBoolean("dependviz.parallelStages"));
+    options.setParallelStageMinLines(
+        Integer.getInteger("dependviz.parallelStageMinLines", options.getParallelStageMinLines()));
+    options.setClasspath(Boolean.parseBoolean(System.getProperty("dependviz.classpath", "true")));
+    options.setMavenRepository(
+        System.getProperty("dependviz.mavenRepository", options.getMavenRepository()));
+    return options;
+  }
+
+  /** trueの場合，CodeGraphをint ID・プリミティブ配列ベースのコンパクト表現で保持 */
+  public boolean isCompactGraph() {
+    return compactGraph;
+  }
+
+  public void setCompactGraph(boolean compactGraph) {
+    this.compactGraph = compactGraph;
+  }
+
+  /** trueの場合，全Stageが参照するノードを1回のAST走査で収集してから各Stageを実行 */
+  public boolean isFusedPipeline() {
+    return fusedPipeline;
+  }
+
+  public void setFusedPipeline(boolean fusedPipeline) {
+    this.fusedPipeline = fusedPipeline;
+  }
+
+  /** 型解決キャッシュの最大件数（0で無効） */
+  public int getResolutionCacheSize() {
+    return resolutionCacheSize;
+  }
+
+  public void setResolutionCacheSize(int resolutionCacheSize) {
+    this.resolutionCacheSize = resolutionCacheSize;
+  }
+
+  /** 再解析用に保持するASTの最大ファイル数（0で無効） */
+  public int getAstCacheSize() {
+    return astCacheSize;
+  }
+
+  public void setAstCacheSize(int astCacheSize) {
+    this.astCacheSize = astCacheSize;
+  }
+
+  /** 保持するASTの推定ヒープ使用量の上限（MB，開いているファイルのASTも含む） */
+  public int getAstCacheMegabytes() {
+    return astCacheMegabytes;
+  }
+
+  public void setAstCacheMegabytes(int astCacheMegabytes) {
+    this.astCacheMegabytes = astCacheMegabytes;
+  }
+
+  /** trueの場合，ファイルごとのグラフ断片を.vscode/dependviz/に保存し次回起動時に再利用 */
+  public boolean isPersistentIndex() {
+    return persistentIndex;
+  }
+
+  public void setPersistentIndex(boolean persistentIndex) {
+    this.persistentIndex = persistentIndex;
+  }
+
+  /** ワークスペース解析で構文解析・型解決に使うスレッド数（既定はCPU数） */
+  public int getAnalysisThreads() {
+    return analysisThreads;
+  }
+
+  public void setAnalysisThreads(int analysisThreads) {
+    this.analysisThreads = analysisThreads;
+  }
+
+  /** trueの場合，フェーズごとの所要時間・走査ノード数・型解決の成否を計測（JMXから後で切り替え可能） */
+  public boolean isMetrics() {
+    return metrics;
+  }
+
+  public void setMetrics(boolean metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * trueの場合，メソッド呼び出しを必要な分だけ解決（自クラス内の呼び出しは解決を省き，
+   * ライブラリ型への呼び出しはレシーバ型・引数型ごとの解決結果をファイル間で共有）
+   */
+  public boolean isLazyMethodCalls() {
+    return lazyMethodCalls;
+  }
+
+  public void setLazyMethodCalls(boolean lazyMethodCalls) {
+    this.lazyMethodCalls = lazyMethodCalls;
+  }
+
+  /**
+   * trueの場合，大きなファイルでは型解決だけを行うStage同士をfork-joinで並行に実行
+   * （JavaParserはノードに型解決の結果を書き込むため，2つ目以降のStageはファイルを構文解析し直した
+   * 複製を使う．構文解析が増えるので既定では無効）
+   */
+  public boolean isParallelStages() {
+    return parallelStages;
+  }
+
+  public void setParallelStages(boolean parallelStages) {
+    this.parallelStages = parallelStages;
+  }
+
+  /** Stageを並行に実行するファイルの最小行数 */
+  public int getParallelStageMinLines() {
+    return parallelStageMinLines;
+  }
+
+  public void setParallelStageMinLines(int parallelStageMinLines) {
+    this.parallelStageMinLines = parallelStageMinLines;
+  }
+
+  /** trueの場合，pom.xmlの依存jarをローカルMavenリポジトリから読み込み，ライブラリの型も解決する */
+  public boolean isClasspath() {
+    return classpath;
+  }
+
+  public void setClasspath(boolean classpath) {
+    this.classpath = classpath;
+  }
+
+  /** 依存jarを探すローカルMavenリポジトリ（既定は~/.m2/repository） */
+  public String getMavenRepository() {
+    return mavenRepository;
+  }
+
+  public void setMavenRepository(String mavenRepository) {
+    this.mavenRepository = mavenRepository;
+  }
+}
@@ -0,0 +1,253 @@
+package com.example.parser;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+
+/**
+ * 解析済みのCompilationUnitをファイルごとに保持し，内容が同じなら再解析で構文解析を省く
+ *
+ * <p>件数と推定ヒープ使用量（ソースの文字数に比例するとみなす）の上限を超えたらLRUで破棄する．
+ * 開かれているファイルと最近編集したファイルは固定し，強参照で保持してLRUの対象から外す
+ * （それでも上限を超える場合は古いものから破棄する）．閉じられた・最近編集したファイルから外れた時点で
+ * 強参照を外す．それ以外はSoftReferenceで保持するため，メモリが逼迫すればGCで回収される
+ * （回収された項目は次の操作で取り除き，推定ヒープ使用量に数えない）．
+ *
+ * <p>同じASTを複数の解析で同時に使わないよう，take()で取り出した項目は解析後にput()で戻すまで
+ * キャッシュから外す．戻す際は型解決の結果としてノードに付いたデータを取り除く（他のファイルの
+ * 変更で古くなるうえ，他のASTへの参照を保持してしまうため）．
+ */
+final class AstCache {
+  // ASTのヒープ使用量の見積もり（ソース1文字あたりのバイト数，実測で概ね90〜130）
+  static final long BYTES_PER_CHAR = 100;
+  // 固定する最近編集したファイルの数
+  private static final int RECENTLY_EDITED = 16;
+  // 構文解析の時点で付くデータ（取り除かない）
+  private static final List<DataKey<?>> PARSER_DATA =
+      List.of(Node.SYMBOL_RESOLVER_KEY, Node.LINE_SEPARATOR_KEY);
+
+  private final int maxEntries;
+  private final long maxWeight;
+  private final Predicate<String> open;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final ArrayDeque<String> recentlyEdited = new ArrayDeque<>();
+  // GCでASTが回収された項目の通知先
+  private final ReferenceQueue<CompilationUnit> collected = new ReferenceQueue<>();
+  private long weight;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param maxEntries 保持するファイル数の上限（0以下なら保持しない）
+   * @param maxBytes 推定ヒープ使用量の上限
+   * @param open ファイルがエディタで開かれているか
+   */
+  AstCache(int maxEntries, long maxBytes, Predicate<String> open) {
+    this.maxEntries = maxEntries;
+    this.maxWeight = maxBytes;
+    this.open = open;
+  }
+
+  /** 内容がtextと一致するASTを取り出す（なければnull，取り出した項目はput()まで保持しない） */
+  synchronized CompilationUnit take(String filePath, String text) {
+    expungeCollected();
+    Entry entry = entries.remove(filePath);
+    if (entry != null) {
+      weight -= entry.weight;
+      CompilationUnit cu = entry.get();
+      if (cu != null && entry.text.equals(text)) {
+        hits.increment();
+        return cu;
+      }
+    }
+    misses.increment();
+    return null;
+  }
+
+  /** 解析を終えたASTを保持する */
+  void put(String filePath, String text, CompilationUnit cu) {
+    if (maxEntries <= 0) {
+      return;
+    }
+    long entryWeight = text.length() * BYTES_PER_CHAR;
+    if (entryWeight > maxWeight) {
+      return;
+    }
+    // ノードの走査はロックの外で行う（取り出し済みなので他の解析からは見えない）
+    clearResolvedData(cu);
+    synchronized (this) {
+      expungeCollected();
+      Entry entry = new Entry(text, entryWeight, cu, isPinned(filePath), collected);
+      Entry previous = entries.put(filePath, entry);
+      if (previous != null) {
+        weight -= previous.weight;
+      }
+      weight += entryWeight;
+      evict();
+    }
+  }
+
+  /** ファイルが編集された（最近編集したファイルとして固定する） */
+  synchronized void markEdited(String filePath) {
+    recentlyEdited.remove(filePath);
+    recentlyEdited.addFirst(filePath);
+    if (recentlyEdited.size() > RECENTLY_EDITED) {
+      unpin(recentlyEdited.removeLast());
+    }
+  }
+
+  /** ファイルが閉じられた（最近編集したファイルでなければ固定を外す） */
+  synchronized void closed(String filePath) {
+    unpin(filePath);
+  }
+
+  /** ファイルが削除された */
+  synchronized void invalidate(String filePath) {
+    recentlyEdited.remove(filePath);
+    Entry entry = entries.remove(filePath);
+    if (entry != null) {
+      weight -= entry.weight;
+    }
+  }
+
+  synchronized int size() {
+    expungeCollected();
+    return entries.size();
+  }
+
+  /** 保持しているASTの推定ヒープ使用量（バイト，GCで回収されたものは含まない） */
+  synchronized long getWeight() {
+    expungeCollected();
+    return weight;
+  }
+
+  /** 強参照で保持しているASTの数 */
+  synchronized int getPinnedCount() {
+    int pinned = 0;
+    for (Entry entry : entries.values()) {
+      pinned += entry.strong != null ? 1 : 0;
+    }
+    return pinned;
+  }
+
+  long getHitCount() {
+    return hits.sum();
+  }
+
+  long getMissCount() {
+    return misses.sum();
+  }
+
+  private boolean isPinned(String filePath) {
+    return recentlyEdited.contains(filePath) || open.test(filePath);
+  }
+
+  // 固定する理由がなくなったファイルの強参照を外す（以降はGCで回収されうる）
+  private void unpin(String filePath) {
+    Entry entry = entries.get(filePath);
+    if (entry != null && !isPinned(filePath)) {
+      entry.strong = null;
+    }
+  }
+
+  // ASTが回収された項目を取り除く（アクセス順を変えないよう反復子で探す）
+  private void expungeCollected() {
+    boolean any = false;
+    while (collected.poll() != null) {
+      any = true;
+    }
+    if (!any) {
+      return;
+    }
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      Entry entry = it.next();
+      if (entry.get() == null) {
+        it.remove();
+        weight -= entry.weight;
+      }
+    }
+  }
+
+  // 上限内に収まるまで，固定していない古いものから，それでも足りなければ固定したものも破棄する
+  private void evict() {
+    if (withinLimits()) {
+      return;
+    }
+    List<Map.Entry<String, Entry>> pinned = new ArrayList<>();
+    Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    while (it.hasNext() && !withinLimits()) {
+      Map.Entry<String, Entry> eldest = it.next();
+      Entry entry = eldest.getValue();
+      if (entry.get() != null && isPinned(eldest.getKey())) {
+        entry.pin();
+        pinned.add(eldest);
+        continue;
+      }
+      it.remove();
+      weight -= entry.weight;
+    }
+    for (int i = 0; i < pinned.size() && !withinLimits(); i++) {
+      Entry entry = entries.remove(pinned.get(i).getKey());
+      weight -= entry.weight;
+    }
+  }
+
+  private boolean withinLimits() {
+    return entries.size() <= maxEntries && weight <= maxWeight;
+  }
+
+  // 型解決でノードに付いたデータ（解決済みの型など）を取り除く
+  private static void clearResolvedData(CompilationUnit cu) {
+    cu.walk(
+        node -> {
+          for (DataKey<?> key : new ArrayList<>(node.getDataKeys())) {
+            if (!PARSER_DATA.contains(key)) {
+              node.removeData(key);
+            }
+          }
+        });
+  }
+
+  private static final class Entry {
+    final String text;
+    final long weight;
+    final SoftReference<CompilationUnit> soft;
+    // 固定している間のみ非null
+    CompilationUnit strong;
+
+    Entry(
+        String text,
+        long weight,
+        CompilationUnit cu,
+        boolean pinned,
+        ReferenceQueue<CompilationUnit> queue) {
+      this.text = text;
+      this.weight = weight;
+      this.soft = new SoftReference<>(cu, queue);
+      this.strong = pinned ? cu : null;
+    }
+
+    CompilationUnit get() {
+      return strong != null ? strong : soft.get();
+    }
+
+    void pin() {
+      if (strong == null) {
+        strong = soft.get();
+      }
+    }
+  }
+}
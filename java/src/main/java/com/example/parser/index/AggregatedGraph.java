@@ -0,0 +1,28 @@
+package com.example.parser.index;
+
+import java.util.List;
+
+/**
+ * グループ単位に集約したグラフ
+ * levelは集約の単位（"Package" / "Module"），expandedはクラス単位に展開したグループ（なければnull），
+ * versionは集約したワークスペースグラフのバージョン．
+ */
+public record AggregatedGraph(
+    String level, String expanded, long version, List<Node> nodes, List<Link> links) {
+
+  /**
+   * グループまたは展開したクラス
+   * linesOfCodeはクラスの行数の合計（不明な型は数えない），internalLinksはグループ内のエッジ数，
+   * externalは宣言がワークスペースにない（ライブラリ・未解決の型だけからなる）ことを表す．
+   */
+  public record Node(
+      String id,
+      String type,
+      long linesOfCode,
+      int memberCount,
+      int internalLinks,
+      boolean external) {}
+
+  /** グループ間のエッジ（countは集約した元のエッジ数，weightはそれらの重み（参照の回数）の合計） */
+  public record Link(String source, String target, String type, int count, long weight) {}
+}
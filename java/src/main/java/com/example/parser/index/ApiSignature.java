@@ -0,0 +1,81 @@
+package com.example.parser.index;
+
+import java.nio.charset.StandardCharsets;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.AnnotationMemberDeclaration;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+
+/**
+ * ファイルが外部に公開する宣言（型・継承・メンバーのシグネチャ）のハッシュ
+ * メソッド本体だけの変更ではハッシュが変わらないため，依存ファイルの再解析要否の判定に使う．
+ */
+public final class ApiSignature {
+
+  private ApiSignature() {}
+
+  public static byte[] of(CompilationUnit cu) {
+    StringBuilder sb = new StringBuilder();
+    cu.getPackageDeclaration().ifPresent(pkg -> sb.append(pkg.getNameAsString()).append('\n'));
+    for (ImportDeclaration importDeclaration : cu.getImports()) {
+      sb.append(importDeclaration.toString().trim()).append('\n');
+    }
+
+    cu.walk(
+        node -> {
+          if (node instanceof TypeDeclaration<?> type) {
+            appendType(sb, type);
+          }
+        });
+    return GraphIndex.contentHash(sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void appendType(StringBuilder sb, TypeDeclaration<?> type) {
+    sb.append(type.getClass().getSimpleName())
+        .append(' ')
+        .append(type.getFullyQualifiedName().orElse(type.getNameAsString()))
+        .append(' ')
+        .append(type.getModifiers());
+
+    if (type instanceof ClassOrInterfaceDeclaration decl) {
+      sb.append(decl.isInterface() ? " interface" : " class")
+          .append(decl.getTypeParameters())
+          .append(" extends ")
+          .append(decl.getExtendedTypes())
+          .append(" implements ")
+          .append(decl.getImplementedTypes());
+    } else if (type instanceof EnumDeclaration decl) {
+      sb.append(" implements ").append(decl.getImplementedTypes());
+      for (EnumConstantDeclaration constant : decl.getEntries()) {
+        sb.append(' ').append(constant.getNameAsString());
+      }
+    }
+    sb.append('\n');
+
+    for (BodyDeclaration<?> member : type.getMembers()) {
+      if (member instanceof FieldDeclaration field) {
+        sb.append("  field ").append(field.getModifiers());
+        for (VariableDeclarator variable : field.getVariables()) {
+          sb.append(' ').append(variable.getType()).append(' ').append(variable.getNameAsString());
+        }
+        sb.append('\n');
+      } else if (member instanceof CallableDeclaration<?> callable) {
+        sb.append("  ").append(callable.getDeclarationAsString(true, true, false)).append('\n');
+      } else if (member instanceof AnnotationMemberDeclaration annotationMember) {
+        sb.append("  member ")
+            .append(annotationMember.getType())
+            .append(' ')
+            .append(annotationMember.getNameAsString())
+            .append('\n');
+      }
+    }
+  }
+}
@@ -0,0 +1,318 @@
+package com.example.parser.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import com.example.parser.models.EdgeKey;
+import com.example.parser.models.GraphNode;
+
+/**
+ * ワークスペースグラフのクラスをグループ（パッケージ・モジュール）にまとめた粗いグラフ
+ * WorkspaceGraphがノード・エッジの増減と属性・重みの変化を通知し，グループごとの行数の合計と
+ * グループ間のエッジ数・重みの合計（種別ごと）を差分で更新する．グループ内のクラスだけを展開した表示も返せる．
+ * 通知・問い合わせともWorkspaceGraphのロックの中で行う（WorkspaceGraph.aggregate()を使う）．
+ */
+public class GraphAggregation {
+  /** パッケージを持たない型（プリミティブ型・デフォルトパッケージ）のグループ */
+  public static final String DEFAULT_PACKAGE = "(default)";
+
+  private final String level;
+  private final Function<GraphNode, String> grouping;
+  private final Map<String, Member> members = new HashMap<>();
+  private final Map<String, Group> groups = new HashMap<>();
+  // 元のエッジ -> 重み
+  private final Map<EdgeKey, Integer> weights = new HashMap<>();
+  // グループ間のエッジ（source・targetはグループ名）-> 元のエッジ数と重みの合計
+  private final Map<EdgeKey, Total> links = new HashMap<>();
+
+  /**
+   * @param level グループの種別（結果のノードのtypeに使う，例: "Package"）
+   * @param grouping クラスのノードからグループ名を求める関数（属性が変わると呼び直す）
+   */
+  public GraphAggregation(String level, Function<GraphNode, String> grouping) {
+    this.level = level;
+    this.grouping = grouping;
+  }
+
+  /** パッケージ単位の集約（ノード名の先頭から，大文字で始まる型名の手前までをパッケージとみなす） */
+  public static GraphAggregation byPackage() {
+    return new GraphAggregation("Package", node -> packageOf(node.getNodeName()));
+  }
+
+  public String getLevel() {
+    return level;
+  }
+
+  static String packageOf(String typeName) {
+    int generic = typeName.indexOf('<');
+    String name = generic < 0 ? typeName : typeName.substring(0, generic);
+    int end = -1;
+    int start = 0;
+    while (true) {
+      int dot = name.indexOf('.', start);
+      if (dot < 0 || dot == start || Character.isUpperCase(name.charAt(start))) {
+        break;
+      }
+      end = dot;
+      start = dot + 1;
+    }
+    return end < 0 ? DEFAULT_PACKAGE : name.substring(0, end);
+  }
+
+  // ---- WorkspaceGraphからの通知
+
+  /** ノードが追加された，または属性が変わった */
+  void nodeChanged(GraphNode node) {
+    Member member = members.get(node.getNodeName());
+    String group = grouping.apply(node);
+    if (member == null) {
+      member = new Member(group);
+      members.put(node.getNodeName(), member);
+      groupOf(group).members.add(node.getNodeName());
+    } else {
+      removeContribution(member);
+      if (!member.group.equals(group)) {
+        regroup(node.getNodeName(), member, group);
+      }
+    }
+    member.type = node.getType();
+    member.linesOfCode = node.getLinesOfCode();
+    member.declared = node.getFilePath() != null;
+    addContribution(member);
+  }
+
+  /** ノードが削除された（接続していたエッジは先にedgeRemoved()で通知される） */
+  void nodeRemoved(String name) {
+    Member member = members.remove(name);
+    if (member == null) {
+      return;
+    }
+    removeContribution(member);
+    Group group = groups.get(member.group);
+    group.members.remove(name);
+    if (group.members.isEmpty()) {
+      groups.remove(member.group);
+    }
+  }
+
+  /** エッジが追加された（両端のノードはマージ済みグラフのもの） */
+  void edgeAdded(EdgeKey edge, GraphNode sourceNode, GraphNode targetNode, int weight) {
+    Member source = ensureMember(sourceNode);
+    Member target = ensureMember(targetNode);
+    source.edges.add(edge);
+    target.edges.add(edge);
+    weights.put(edge, weight);
+    count(groupEdge(edge), 1, weight);
+  }
+
+  /** 既存のエッジの重みが変わった */
+  void edgeWeightChanged(EdgeKey edge, int delta) {
+    if (weights.computeIfPresent(edge, (key, weight) -> weight + delta) != null) {
+      count(groupEdge(edge), 0, delta);
+    }
+  }
+
+  void edgeRemoved(EdgeKey edge) {
+    Integer weight = weights.remove(edge);
+    if (weight == null) {
+      return;
+    }
+    count(groupEdge(edge), -1, -weight);
+    members.get(edge.source()).edges.remove(edge);
+    members.get(edge.target()).edges.remove(edge);
+  }
+
+  // ---- 問い合わせ
+
+  /**
+   * expandedグループだけをクラス単位に展開したグラフ（nullならグループ単位の粗いグラフ）
+   * グループ内のエッジは各グループのinternalLinksに数え，展開したクラスと他のグループの間の
+   * エッジはグループへのエッジとして種別ごとに数える．ノードはグループ名順（展開したクラスは最後）．
+   *
+   * @param minWeight 重みの合計がこれ未満のリンクは返さない（1以下なら全て）
+   * @throws IllegalArgumentException 存在しないグループを指定した場合
+   */
+  AggregatedGraph expand(String expanded, int minWeight, long version) {
+    Group expandedGroup = expanded == null ? null : groups.get(expanded);
+    if (expanded != null && expandedGroup == null) {
+      throw new IllegalArgumentException("Unknown " + level.toLowerCase() + ": " + expanded);
+    }
+
+    List<AggregatedGraph.Node> nodes = new ArrayList<>();
+    Map<String, Group> sorted = new TreeMap<>(groups);
+    for (Map.Entry<String, Group> entry : sorted.entrySet()) {
+      if (entry.getValue() != expandedGroup) {
+        Group group = entry.getValue();
+        nodes.add(
+            new AggregatedGraph.Node(
+                entry.getKey(),
+                level,
+                group.linesOfCode,
+                group.members.size(),
+                group.internalLinks,
+                group.declared == 0));
+      }
+    }
+
+    Map<EdgeKey, Total> totals = new LinkedHashMap<>();
+    for (Map.Entry<EdgeKey, Total> entry : sortedLinks().entrySet()) {
+      EdgeKey link = entry.getKey();
+      if (link.source().equals(link.target())
+          || link.source().equals(expanded)
+          || link.target().equals(expanded)) {
+        continue;
+      }
+      totals.put(link, entry.getValue());
+    }
+
+    if (expandedGroup != null) {
+      List<String> classes = new ArrayList<>(expandedGroup.members);
+      classes.sort(null);
+      Set<EdgeKey> seen = new HashSet<>();
+      for (String name : classes) {
+        Member member = members.get(name);
+        nodes.add(
+            new AggregatedGraph.Node(
+                name, member.type, member.linesOfCode, 1, 0, !member.declared));
+      }
+      for (String name : classes) {
+        for (EdgeKey edge : members.get(name).edges) {
+          if (seen.add(edge)) {
+            EdgeKey link =
+                new EdgeKey(
+                    endpoint(edge.source(), expanded),
+                    endpoint(edge.target(), expanded),
+                    edge.type());
+            Total total = totals.computeIfAbsent(link, key -> new Total());
+            total.count++;
+            total.weight += weights.get(edge);
+          }
+        }
+      }
+    }
+
+    List<AggregatedGraph.Link> result = new ArrayList<>(totals.size());
+    totals.forEach(
+        (link, total) -> {
+          if (total.weight >= minWeight) {
+            result.add(
+                new AggregatedGraph.Link(
+                    link.source(), link.target(), link.type(), total.count, total.weight));
+          }
+        });
+    return new AggregatedGraph(level, expanded, version, nodes, result);
+  }
+
+  private Map<EdgeKey, Total> sortedLinks() {
+    Map<EdgeKey, Total> sorted =
+        new TreeMap<>(
+            (a, b) -> {
+              int c = a.source().compareTo(b.source());
+              if (c == 0) {
+                c = a.target().compareTo(b.target());
+              }
+              return c != 0 ? c : a.type().compareTo(b.type());
+            });
+    sorted.putAll(links);
+    return sorted;
+  }
+
+  // 展開したグループのクラスはクラス名のまま，それ以外はグループ名
+  private String endpoint(String name, String expanded) {
+    String group = members.get(name).group;
+    return group.equals(expanded) ? name : group;
+  }
+
+  // エッジで初めて現れたノード（宣言元の属性は後からnodeChanged()で届く）
+  private Member ensureMember(GraphNode node) {
+    Member member = members.get(node.getNodeName());
+    if (member == null) {
+      nodeChanged(node);
+      member = members.get(node.getNodeName());
+    }
+    return member;
+  }
+
+  private void regroup(String name, Member member, String group) {
+    // 接続しているエッジをいったん取り除き，新しいグループで数え直す
+    for (EdgeKey edge : member.edges) {
+      count(groupEdge(edge), -1, -weights.get(edge));
+    }
+    Group previous = groups.get(member.group);
+    previous.members.remove(name);
+    if (previous.members.isEmpty()) {
+      groups.remove(member.group);
+    }
+    member.group = group;
+    groupOf(group).members.add(name);
+    for (EdgeKey edge : member.edges) {
+      count(groupEdge(edge), 1, weights.get(edge));
+    }
+  }
+
+  private EdgeKey groupEdge(EdgeKey edge) {
+    return new EdgeKey(
+        members.get(edge.source()).group, members.get(edge.target()).group, edge.type());
+  }
+
+  private void count(EdgeKey link, int countDelta, int weightDelta) {
+    Group source = groups.get(link.source());
+    if (link.source().equals(link.target()) && source != null) {
+      source.internalLinks += countDelta;
+    }
+    Total total = links.computeIfAbsent(link, key -> new Total());
+    total.count += countDelta;
+    total.weight += weightDelta;
+    if (total.count == 0) {
+      links.remove(link);
+    }
+  }
+
+  private void addContribution(Member member) {
+    Group group = groupOf(member.group);
+    group.linesOfCode += Math.max(0, member.linesOfCode);
+    group.declared += member.declared ? 1 : 0;
+  }
+
+  private void removeContribution(Member member) {
+    Group group = groups.get(member.group);
+    group.linesOfCode -= Math.max(0, member.linesOfCode);
+    group.declared -= member.declared ? 1 : 0;
+  }
+
+  private Group groupOf(String name) {
+    return groups.computeIfAbsent(name, n -> new Group());
+  }
+
+  private static final class Member {
+    String group;
+    String type = "Unknown";
+    int linesOfCode = -1;
+    boolean declared;
+    // 接続しているエッジ（グループが変わったときの数え直しと，展開時に使う）
+    final Set<EdgeKey> edges = new HashSet<>();
+
+    Member(String group) {
+      this.group = group;
+    }
+  }
+
+  private static final class Total {
+    int count;
+    long weight;
+  }
+
+  private static final class Group {
+    final Set<String> members = new HashSet<>();
+    long linesOfCode;
+    int declared;
+    int internalLinks;
+  }
+}
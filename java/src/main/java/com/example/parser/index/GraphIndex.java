@@ -0,0 +1,130 @@
+package com.example.parser.index;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.example.parser.models.CodeGraph;
+
+/**
+ * ファイルごとのグラフ断片をコンテンツハッシュと共に保持するインデックス
+ * ハッシュが一致するファイルは再解析せずに断片を再利用する．
+ */
+public class GraphIndex {
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private volatile boolean dirty = false;
+
+  /** ファイル内容に対するハッシュが一致する場合のみ断片を返す */
+  public CodeGraph find(String filePath, byte[] contentHash) {
+    Entry entry = entries.get(filePath);
+    if (entry == null || !Arrays.equals(entry.contentHash(), contentHash)) {
+      return null;
+    }
+    return entry.graph();
+  }
+
+  public Entry get(String filePath) {
+    return entries.get(filePath);
+  }
+
+  /** unresolvedNames: 解析で解決できなかった型の単純名 */
+  public void put(
+      String filePath,
+      byte[] contentHash,
+      byte[] apiHash,
+      CodeGraph graph,
+      Set<String> unresolvedNames) {
+    entries.put(
+        filePath, new Entry(contentHash, apiHash, graph, Set.copyOf(unresolvedNames), false));
+    dirty = true;
+  }
+
+  /** 解析に失敗したファイルを空の断片で記録（内容が同じでも再解析の対象にできるよう印を付ける） */
+  public void putFailed(String filePath, byte[] contentHash, CodeGraph emptyGraph) {
+    entries.put(filePath, new Entry(contentHash, new byte[0], emptyGraph, Set.of(), true));
+    dirty = true;
+  }
+
+  /** 解析に失敗したファイル（パス順） */
+  public List<String> getFailedFilePaths() {
+    List<String> filePaths = new ArrayList<>();
+    entries.forEach(
+        (filePath, entry) -> {
+          if (entry.failed()) {
+            filePaths.add(filePath);
+          }
+        });
+    filePaths.sort(null);
+    return filePaths;
+  }
+
+  public void remove(String filePath) {
+    if (entries.remove(filePath) != null) {
+      dirty = true;
+    }
+  }
+
+  /** 指定したファイル以外のエントリを削除（削除されたファイルの断片を捨てる） */
+  public void retainAll(List<String> filePaths) {
+    if (entries.keySet().retainAll(new HashSet<>(filePaths))) {
+      dirty = true;
+    }
+  }
+
+  public List<String> getFilePaths() {
+    List<String> filePaths = new ArrayList<>(entries.keySet());
+    filePaths.sort(null);
+    return filePaths;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /** 前回の保存以降に変更があったか */
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  public void markClean() {
+    dirty = false;
+  }
+
+  /** 全断片をファイルパス順にマージしたグラフを作成 */
+  public CodeGraph toWorkspaceGraph(Supplier<CodeGraph> graphFactory) {
+    CodeGraph merged = graphFactory.get();
+    for (String filePath : getFilePaths()) {
+      Entry entry = entries.get(filePath);
+      if (entry != null) {
+        merged.merge(entry.graph());
+      }
+    }
+    return merged;
+  }
+
+  public static byte[] contentHash(byte[] content) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * contentHash: ファイル内容のハッシュ，apiHash: 宣言シグネチャのハッシュ（ApiSignature，解析失敗時は空），
+   * unresolvedNames: 解決できなかった型の単純名，failed: 解析に失敗した（graphは空）
+   */
+  public record Entry(
+      byte[] contentHash,
+      byte[] apiHash,
+      CodeGraph graph,
+      Set<String> unresolvedNames,
+      boolean failed) {}
+}
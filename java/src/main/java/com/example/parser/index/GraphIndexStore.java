@@ -0,0 +1,250 @@
+package com.example.parser.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.GraphEdge;
+import com.example.parser.models.GraphNode;
+
+/**
+ * GraphIndexをバイナリ形式でディスクに保存・読み込みする
+ *
+ * <p>形式: magic, version, 設定の指紋, 文字列テーブル, ファイルごとの[パス, 内容ハッシュ, 宣言ハッシュ,
+ * 解決できなかった型名の列, ノード列, エッジ列]．
+ * エッジは[ソース, ターゲット, 種別, 重み]．
+ * 文字列はすべてテーブルへの添字で参照し，読み込みはメモリマップしたバッファから行う．
+ * 解析に失敗したファイルは保存しない（次回の起動時に解析し直す）．
+ * 設定の指紋（解析結果を左右する設定と依存jarのハッシュ）が異なるインデックスは読み込まない．
+ */
+public class GraphIndexStore {
+  private static final Logger logger = Logger.getLogger(GraphIndexStore.class.getName());
+
+  private static final int MAGIC = 0x44564749; // "DVGI"
+  private static final int VERSION = 5;
+  private static final int NULL_STRING = -1;
+
+  private final Path indexFile;
+
+  public GraphIndexStore(Path indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  /** ワークスペース配下の既定の保存先（.vscode/dependviz/graph-index.bin） */
+  public static GraphIndexStore forWorkspace(Path workspaceRoot) {
+    return new GraphIndexStore(
+        workspaceRoot.resolve(".vscode").resolve("dependviz").resolve("graph-index.bin"));
+  }
+
+  public Path getIndexFile() {
+    return indexFile;
+  }
+
+  /** インデックスを読み込む（存在しない・形式や設定の指紋が異なる場合は空のまま） */
+  public void load(GraphIndex index, byte[] fingerprint, Supplier<CodeGraph> graphFactory) {
+    if (!Files.isRegularFile(indexFile)) {
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        logger.log(Level.INFO, "Ignoring incompatible graph index: {0}", indexFile);
+        return;
+      }
+      if (!Arrays.equals(readBytes(buffer), fingerprint)) {
+        logger.log(Level.INFO, "Ignoring graph index built with other settings: {0}", indexFile);
+        return;
+      }
+
+      String[] strings = new String[buffer.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      int fileCount = buffer.getInt();
+      for (int f = 0; f < fileCount; f++) {
+        String filePath = strings[buffer.getInt()];
+        byte[] contentHash = readBytes(buffer);
+        byte[] apiHash = readBytes(buffer);
+        Set<String> unresolvedNames = new LinkedHashSet<>();
+        for (int n = buffer.getInt(); n > 0; n--) {
+          unresolvedNames.add(strings[buffer.getInt()]);
+        }
+        CodeGraph graph = readGraph(buffer, strings, graphFactory.get());
+        index.put(filePath, contentHash, apiHash, graph, unresolvedNames);
+      }
+      index.markClean();
+      logger.log(
+          Level.INFO, "Loaded graph index: {0} files from {1}", new Object[] {fileCount, indexFile});
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, e, () -> "Failed to load graph index: " + indexFile);
+    }
+  }
+
+  /** インデックスを一時ファイルに書き出してから置き換える */
+  public void save(GraphIndex index, byte[] fingerprint) throws IOException {
+    Files.createDirectories(indexFile.getParent());
+
+    List<String> filePaths = new ArrayList<>();
+    StringTable table = new StringTable();
+    List<GraphIndex.Entry> entries = new ArrayList<>();
+    for (String filePath : index.getFilePaths()) {
+      GraphIndex.Entry entry = index.get(filePath);
+      if (entry == null || entry.failed()) {
+        continue;
+      }
+      filePaths.add(filePath);
+      entries.add(entry);
+      table.add(filePath);
+      for (String name : entry.unresolvedNames()) {
+        table.add(name);
+      }
+      for (GraphNode node : entry.graph().getGraphNodes()) {
+        table.add(node.getNodeName());
+        table.add(node.getType());
+        table.add(node.getFilePath());
+      }
+      for (GraphEdge edge : entry.graph().getGraphEdges()) {
+        table.add(edge.getType());
+      }
+    }
+
+    Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+    try (OutputStream fileOut = Files.newOutputStream(tempFile);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      writeBytes(out, fingerprint);
+      table.write(out);
+
+      out.writeInt(filePaths.size());
+      for (int f = 0; f < filePaths.size(); f++) {
+        GraphIndex.Entry entry = entries.get(f);
+        out.writeInt(table.indexOf(filePaths.get(f)));
+        writeBytes(out, entry.contentHash());
+        writeBytes(out, entry.apiHash());
+        out.writeInt(entry.unresolvedNames().size());
+        for (String name : entry.unresolvedNames()) {
+          out.writeInt(table.indexOf(name));
+        }
+        writeGraph(out, entry.graph(), table);
+      }
+    }
+    Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    index.markClean();
+    logger.log(
+        Level.INFO, "Saved graph index: {0} files to {1}", new Object[] {filePaths.size(), indexFile});
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static void writeGraph(DataOutputStream out, CodeGraph graph, StringTable table)
+      throws IOException {
+    List<GraphNode> nodes = graph.getGraphNodes();
+    Map<String, Integer> localIds = new HashMap<>();
+    out.writeInt(nodes.size());
+    for (GraphNode node : nodes) {
+      localIds.put(node.getNodeName(), localIds.size());
+      out.writeInt(table.indexOf(node.getNodeName()));
+      out.writeInt(table.indexOf(node.getType()));
+      out.writeInt(node.getLinesOfCode());
+      out.writeInt(table.indexOf(node.getFilePath()));
+    }
+
+    List<GraphEdge> edges = graph.getGraphEdges();
+    out.writeInt(edges.size());
+    for (GraphEdge edge : edges) {
+      out.writeInt(localIds.get(edge.getSourceNode().getNodeName()));
+      out.writeInt(localIds.get(edge.getTargetNode().getNodeName()));
+      out.writeInt(table.indexOf(edge.getType()));
+      out.writeInt(edge.getWeight());
+    }
+  }
+
+  private static CodeGraph readGraph(ByteBuffer buffer, String[] strings, CodeGraph graph) {
+    String[] nodeNames = new String[buffer.getInt()];
+    for (int i = 0; i < nodeNames.length; i++) {
+      String name = strings[buffer.getInt()];
+      String type = strings[buffer.getInt()];
+      int linesOfCode = buffer.getInt();
+      int filePath = buffer.getInt();
+
+      // setNodeTypeでノードを作成し，元の挿入順を再現する
+      nodeNames[i] = name;
+      graph.setNodeType(name, type);
+      if (linesOfCode != -1) {
+        graph.setNodeLinesOfCode(name, linesOfCode);
+      }
+      if (filePath != NULL_STRING) {
+        graph.setNodeFilePath(name, strings[filePath]);
+      }
+    }
+
+    int edgeCount = buffer.getInt();
+    for (int i = 0; i < edgeCount; i++) {
+      String source = nodeNames[buffer.getInt()];
+      String target = nodeNames[buffer.getInt()];
+      String type = strings[buffer.getInt()];
+      graph.addReferNode(source, target, type, buffer.getInt());
+    }
+    return graph;
+  }
+
+  // 書き込み時の文字列テーブル（出現順に添字を振る）
+  private static final class StringTable {
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    void add(String value) {
+      if (value != null && !indexes.containsKey(value)) {
+        indexes.put(value, strings.size());
+        strings.add(value);
+      }
+    }
+
+    int indexOf(String value) {
+      return value == null ? NULL_STRING : indexes.get(value);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeInt(strings.size());
+      for (String value : strings) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+  }
+}
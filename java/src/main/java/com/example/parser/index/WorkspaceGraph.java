@@ -0,0 +1,409 @@
+package com.example.parser.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.EdgeKey;
+import com.example.parser.models.GraphDelta;
+import com.example.parser.models.GraphEdge;
+import com.example.parser.models.GraphNode;
+
+/**
+ * ファイルごとのグラフ断片から組み立てたワークスペース全体のグラフ
+ * 断片の差し替えは差分としてマージ済みグラフに適用し，ノード・エッジは参照しているファイル数で管理する．
+ * マージ済みグラフのエッジの重みは，そのエッジを含む断片の重みの合計．
+ * あわせて「型 -> その型を参照しているファイル」と「単純名 -> その名前の型を解決できなかったファイル」の
+ * 逆引きを保持し，再解析対象の特定に使う．
+ */
+public class WorkspaceGraph {
+  private final CodeGraph graph;
+  private final Map<String, FileState> files = new HashMap<>();
+  private final Map<String, Integer> nodeRefs = new HashMap<>();
+  private final Map<EdgeKey, Integer> edgeRefs = new HashMap<>();
+  private final Map<String, String> declaringFiles = new HashMap<>();
+  private final Map<String, Set<String>> dependentFiles = new HashMap<>();
+  private final Map<String, Set<String>> unresolvedFiles = new HashMap<>();
+  private final List<GraphAggregation> aggregations = new ArrayList<>();
+
+  // 断片の追加・削除のたびに進むバージョン
+  private long version;
+
+  // 差分の記録中のみ非null（記録開始後に初めて触れた時点の状態を保持，nullは存在しなかったことを表す）
+  private Map<String, NodeState> recordedNodes;
+  private Map<EdgeKey, Integer> recordedEdges;
+  private long recordedFromVersion;
+
+  public WorkspaceGraph(CodeGraph graph) {
+    this.graph = graph;
+  }
+
+  /** 集約を登録し，現在のノード・エッジを反映する（以降の変更は差分で通知する） */
+  public synchronized void addAggregation(GraphAggregation aggregation) {
+    for (GraphNode node : graph.getGraphNodes()) {
+      aggregation.nodeChanged(node);
+    }
+    for (GraphEdge edge : graph.getGraphEdges()) {
+      aggregation.edgeAdded(
+          EdgeKey.of(edge), edge.getSourceNode(), edge.getTargetNode(), edge.getWeight());
+    }
+    aggregations.add(aggregation);
+  }
+
+  /**
+   * 登録済みの集約から，expandedグループ（nullなら展開なし）を展開したグラフを作成
+   * 重みの合計がminWeight未満のリンクは除く．
+   *
+   * @throws IllegalArgumentException 存在しないグループを指定した場合
+   */
+  public synchronized AggregatedGraph aggregate(
+      GraphAggregation aggregation, String expanded, int minWeight) {
+    return aggregation.expand(expanded, minWeight, version);
+  }
+
+  /** 断片が既に反映済みか（同一インスタンスかどうかで判定） */
+  public synchronized boolean contains(String filePath, CodeGraph fragment) {
+    FileState state = files.get(filePath);
+    return state != null && state.fragment() == fragment;
+  }
+
+  public synchronized List<String> getFilePaths() {
+    return new ArrayList<>(files.keySet());
+  }
+
+  /** ファイルの断片を追加または差し替え */
+  public void update(String filePath, CodeGraph fragment) {
+    update(filePath, fragment, Set.of());
+  }
+
+  /**
+   * ファイルの断片を追加または差し替え
+   *
+   * @param unresolvedNames ファイルの解析で解決できなかった型の単純名
+   */
+  public synchronized void update(
+      String filePath, CodeGraph fragment, Set<String> unresolvedNames) {
+    FileState previous = files.get(filePath);
+    if (previous != null && previous.fragment() == fragment) {
+      return;
+    }
+    record(fragment);
+    if (previous != null) {
+      record(previous.fragment());
+    }
+    version++;
+
+    // 先に新しい断片を加算し，残るノード・エッジの参照数が0にならないようにする
+    FileState current = FileState.of(filePath, fragment, unresolvedNames);
+    for (GraphNode node : fragment.getGraphNodes()) {
+      nodeRefs.merge(node.getNodeName(), 1, Integer::sum);
+    }
+    for (GraphEdge edge : fragment.getGraphEdges()) {
+      EdgeKey key = EdgeKey.of(edge);
+      graph.addReferNode(key.source(), key.target(), key.type(), edge.getWeight());
+      boolean added = edgeRefs.merge(key, 1, Integer::sum) == 1;
+      for (GraphAggregation aggregation : aggregations) {
+        if (added) {
+          aggregation.edgeAdded(
+              key, graph.findNode(key.source()), graph.findNode(key.target()), edge.getWeight());
+        } else {
+          aggregation.edgeWeightChanged(key, edge.getWeight());
+        }
+      }
+    }
+    for (String type : current.referencedTypes()) {
+      dependentFiles.computeIfAbsent(type, t -> new HashSet<>()).add(filePath);
+    }
+    for (String name : current.unresolvedNames()) {
+      unresolvedFiles.computeIfAbsent(name, n -> new HashSet<>()).add(filePath);
+    }
+    for (String type : current.declaredTypes()) {
+      declaringFiles.putIfAbsent(type, filePath);
+    }
+    files.put(filePath, current);
+
+    Set<String> touched = new LinkedHashSet<>(current.declaredTypes());
+    if (previous != null) {
+      touched.addAll(previous.declaredTypes());
+      subtract(previous);
+    }
+    refreshAttributes(touched);
+  }
+
+  /** ファイルの断片を取り除く */
+  public synchronized void remove(String filePath) {
+    FileState previous = files.remove(filePath);
+    if (previous != null) {
+      record(previous.fragment());
+      version++;
+      subtract(previous);
+      refreshAttributes(previous.declaredTypes());
+    }
+  }
+
+  /** ファイルで宣言されている型 */
+  public synchronized Set<String> getDeclaredTypes(String filePath) {
+    FileState state = files.get(filePath);
+    return state == null ? Set.of() : state.declaredTypes();
+  }
+
+  /**
+   * 指定した型を参照しているファイル
+   * 同じ単純名の型を解決できなかったファイルも含める（その型が追加されれば解決できるようになりうる）．
+   */
+  public synchronized Set<String> getDependentFiles(Collection<String> types) {
+    Set<String> result = new LinkedHashSet<>();
+    for (String type : types) {
+      result.addAll(dependentFiles.getOrDefault(type, Set.of()));
+      result.addAll(unresolvedFiles.getOrDefault(simpleName(type), Set.of()));
+    }
+    return result;
+  }
+
+  /**
+   * 指定した型と単純名が同じ型を参照しているファイル
+   * 型が追加されると，同じ単純名で別の型に解決していた記述の解決先が変わりうる．
+   */
+  public synchronized Set<String> getFilesReferencingSimpleNames(Collection<String> types) {
+    Set<String> simpleNames = new HashSet<>();
+    for (String type : types) {
+      simpleNames.add(simpleName(type));
+    }
+    Set<String> result = new LinkedHashSet<>();
+    dependentFiles.forEach(
+        (type, dependents) -> {
+          if (simpleNames.contains(simpleName(type))) {
+            result.addAll(dependents);
+          }
+        });
+    return result;
+  }
+
+  /** 完全修飾名（型引数を除く）の最後の名前 */
+  public static String simpleName(String type) {
+    int end = type.indexOf('<');
+    String name = end < 0 ? type : type.substring(0, end);
+    return name.substring(name.lastIndexOf('.') + 1);
+  }
+
+  public synchronized long getVersion() {
+    return version;
+  }
+
+  /**
+   * 差分の記録を開始（stopRecording()までのupdate()/remove()をまとめた差分を作る）
+   */
+  public synchronized void startRecording() {
+    recordedNodes = new LinkedHashMap<>();
+    recordedEdges = new LinkedHashMap<>();
+    recordedFromVersion = version;
+  }
+
+  /**
+   * 差分の記録を終了し，記録開始時点からの差分を返す
+   */
+  public synchronized GraphDelta stopRecording() {
+    if (recordedNodes == null) {
+      return new GraphDelta(version, version, List.of(), List.of(), Map.of(), List.of());
+    }
+
+    List<GraphNode> nodes = new ArrayList<>();
+    List<String> removedNodes = new ArrayList<>();
+    for (Map.Entry<String, NodeState> entry : recordedNodes.entrySet()) {
+      GraphNode node = graph.findNode(entry.getKey());
+      if (node == null) {
+        if (entry.getValue() != null) {
+          removedNodes.add(entry.getKey());
+        }
+      } else if (!NodeState.of(node).equals(entry.getValue())) {
+        nodes.add(node);
+      }
+    }
+    Map<EdgeKey, Integer> edges = new LinkedHashMap<>();
+    List<EdgeKey> removedEdges = new ArrayList<>();
+    for (Map.Entry<EdgeKey, Integer> entry : recordedEdges.entrySet()) {
+      Integer weight = currentWeight(entry.getKey());
+      if (weight != null && !weight.equals(entry.getValue())) {
+        edges.put(entry.getKey(), weight);
+      } else if (weight == null && entry.getValue() != null) {
+        removedEdges.add(entry.getKey());
+      }
+    }
+
+    GraphDelta delta =
+        new GraphDelta(recordedFromVersion, version, nodes, removedNodes, edges, removedEdges);
+    recordedNodes = null;
+    recordedEdges = null;
+    return delta;
+  }
+
+  /** マージ済みグラフのコピーを作成（呼び出し側は排他なしで参照できる） */
+  public synchronized CodeGraph snapshot(Supplier<CodeGraph> graphFactory) {
+    CodeGraph copy = graphFactory.get();
+    copy.merge(graph);
+    return copy;
+  }
+
+  // 断片に含まれるノード・エッジの変更前の状態を記録
+  private void record(CodeGraph fragment) {
+    if (recordedNodes == null) {
+      return;
+    }
+    for (GraphNode node : fragment.getGraphNodes()) {
+      if (!recordedNodes.containsKey(node.getNodeName())) {
+        recordedNodes.put(node.getNodeName(), NodeState.of(graph.findNode(node.getNodeName())));
+      }
+    }
+    for (GraphEdge edge : fragment.getGraphEdges()) {
+      EdgeKey key = EdgeKey.of(edge);
+      if (!recordedEdges.containsKey(key)) {
+        recordedEdges.put(key, currentWeight(key));
+      }
+    }
+  }
+
+  // マージ済みグラフでのエッジの重み（存在しなければnull）
+  private Integer currentWeight(EdgeKey key) {
+    return edgeRefs.containsKey(key) ? graph.getEdgeWeight(key) : null;
+  }
+
+  private void subtract(FileState state) {
+    List<EdgeKey> removedEdges = new ArrayList<>();
+    for (GraphEdge edge : state.fragment().getGraphEdges()) {
+      EdgeKey key = EdgeKey.of(edge);
+      if (edgeRefs.merge(key, -1, Integer::sum) == 0) {
+        edgeRefs.remove(key);
+        removedEdges.add(key);
+      } else {
+        graph.addEdgeWeight(key, -edge.getWeight());
+        for (GraphAggregation aggregation : aggregations) {
+          aggregation.edgeWeightChanged(key, -edge.getWeight());
+        }
+      }
+    }
+    List<String> removedNodes = new ArrayList<>();
+    for (GraphNode node : state.fragment().getGraphNodes()) {
+      if (nodeRefs.merge(node.getNodeName(), -1, Integer::sum) == 0) {
+        nodeRefs.remove(node.getNodeName());
+        removedNodes.add(node.getNodeName());
+      }
+    }
+    graph.removeEdges(removedEdges);
+    graph.removeNodes(removedNodes);
+    for (GraphAggregation aggregation : aggregations) {
+      removedEdges.forEach(aggregation::edgeRemoved);
+      removedNodes.forEach(aggregation::nodeRemoved);
+    }
+
+    // 差し替え後の断片でも参照・宣言している型は逆引きに残す
+    FileState current = files.get(state.filePath());
+    for (String type : state.referencedTypes()) {
+      if (current != null && current.referencedTypes().contains(type)) {
+        continue;
+      }
+      Set<String> dependents = dependentFiles.get(type);
+      if (dependents != null) {
+        dependents.remove(state.filePath());
+        if (dependents.isEmpty()) {
+          dependentFiles.remove(type);
+        }
+      }
+    }
+    for (String name : state.unresolvedNames()) {
+      if (current != null && current.unresolvedNames().contains(name)) {
+        continue;
+      }
+      Set<String> unresolved = unresolvedFiles.get(name);
+      if (unresolved != null) {
+        unresolved.remove(state.filePath());
+        if (unresolved.isEmpty()) {
+          unresolvedFiles.remove(name);
+        }
+      }
+    }
+    for (String type : state.declaredTypes()) {
+      if (current != null && current.declaredTypes().contains(type)) {
+        continue;
+      }
+      if (state.filePath().equals(declaringFiles.get(type))) {
+        declaringFiles.remove(type);
+      }
+    }
+  }
+
+  // 型の属性（種別・行数・ファイルパス）は宣言しているファイルの断片から取る
+  private void refreshAttributes(Collection<String> types) {
+    for (String type : types) {
+      if (!nodeRefs.containsKey(type)) {
+        continue;
+      }
+      String declaringFile = declaringFiles.get(type);
+      if (declaringFile == null) {
+        declaringFile = findDeclaringFile(type);
+      }
+      GraphNode declared =
+          declaringFile == null ? null : files.get(declaringFile).fragment().findNode(type);
+
+      graph.setNodeType(type, declared == null ? "Unknown" : declared.getType());
+      graph.setNodeLinesOfCode(type, declared == null ? -1 : declared.getLinesOfCode());
+      graph.setNodeFilePath(type, declared == null ? null : declared.getFilePath());
+      for (GraphAggregation aggregation : aggregations) {
+        aggregation.nodeChanged(graph.findNode(type));
+      }
+    }
+  }
+
+  // 宣言元が削除された型について，同名の型を宣言している別のファイルを探す
+  private String findDeclaringFile(String type) {
+    for (FileState state : files.values()) {
+      if (state.declaredTypes().contains(type)) {
+        declaringFiles.put(type, state.filePath());
+        return state.filePath();
+      }
+    }
+    return null;
+  }
+
+  private record NodeState(String type, int linesOfCode, String filePath) {
+    static NodeState of(GraphNode node) {
+      return node == null
+          ? null
+          : new NodeState(node.getType(), node.getLinesOfCode(), node.getFilePath());
+    }
+  }
+
+  private record FileState(
+      String filePath,
+      CodeGraph fragment,
+      Set<String> declaredTypes,
+      Set<String> referencedTypes,
+      Set<String> unresolvedNames) {
+
+    static FileState of(String filePath, CodeGraph fragment, Set<String> unresolvedNames) {
+      // FilePathStageがファイルパスを設定したノードがこのファイルで宣言された型
+      Set<String> declaredTypes = new LinkedHashSet<>();
+      for (GraphNode node : fragment.getGraphNodes()) {
+        if (node.getFilePath() != null) {
+          declaredTypes.add(node.getNodeName());
+        }
+      }
+      Set<String> referencedTypes = new HashSet<>();
+      for (GraphEdge edge : fragment.getGraphEdges()) {
+        String target = edge.getTargetNode().getNodeName();
+        if (!declaredTypes.contains(target)) {
+          referencedTypes.add(target);
+        }
+      }
+      return new FileState(
+          filePath, fragment, declaredTypes, referencedTypes, Set.copyOf(unresolvedNames));
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package com.example.parser.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.example.parser.resolution.ResolutionCache;
+
+/**
+ * 解析エンジンの計測値（フェーズごとの所要時間・走査ノード数・型解決の成否，キャッシュのヒット数）
+ * 無効時は解析側でSystem.nanoTime()も呼ばないため，コストはフラグの読み出し1回のみ．
+ * フェーズは解析エンジンの初期化時にphase()で登録し，返されたPhaseMetricsに直接記録する．
+ */
+public class AnalysisMetrics implements AnalysisMetricsMXBean {
+  private static final Logger logger = Logger.getLogger(AnalysisMetrics.class.getName());
+
+  private final ResolutionCache resolutionCache;
+  private final LongSupplier astCacheHits;
+  private final LongSupplier astCacheMisses;
+  // 登録順（=スナップショットでの並び順）を保つ
+  private final Map<String, PhaseMetrics> phases = new ConcurrentHashMap<>();
+  private final List<PhaseMetrics> orderedPhases = new ArrayList<>();
+
+  private volatile boolean enabled;
+  private ObjectName objectName;
+
+  /**
+   * @param astCacheHits 構文解析を省いた回数（ASTキャッシュのヒット数）
+   * @param astCacheMisses ASTキャッシュのミス数
+   */
+  public AnalysisMetrics(
+      ResolutionCache resolutionCache,
+      LongSupplier astCacheHits,
+      LongSupplier astCacheMisses,
+      boolean enabled) {
+    this.resolutionCache = resolutionCache;
+    this.astCacheHits = astCacheHits;
+    this.astCacheMisses = astCacheMisses;
+    this.enabled = enabled;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /** 名前に対応するフェーズを返す（初回は末尾に登録） */
+  public PhaseMetrics phase(String name) {
+    return phases.computeIfAbsent(
+        name,
+        key -> {
+          PhaseMetrics phase = new PhaseMetrics(key);
+          synchronized (orderedPhases) {
+            orderedPhases.add(phase);
+          }
+          return phase;
+        });
+  }
+
+  @Override
+  public long getCacheHits() {
+    return resolutionCache.getHitCount();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return resolutionCache.getMissCount();
+  }
+
+  @Override
+  public long getNegativeCacheHits() {
+    return resolutionCache.getNegativeHitCount();
+  }
+
+  @Override
+  public long getAstCacheHits() {
+    return astCacheHits.getAsLong();
+  }
+
+  @Override
+  public long getAstCacheMisses() {
+    return astCacheMisses.getAsLong();
+  }
+
+  @Override
+  public double getCacheHitRate() {
+    return snapshot().getCacheHitRate();
+  }
+
+  @Override
+  public List<PhaseSnapshot> getPhases() {
+    List<PhaseSnapshot> snapshots = new ArrayList<>();
+    synchronized (orderedPhases) {
+      for (PhaseMetrics phase : orderedPhases) {
+        snapshots.add(phase.snapshot());
+      }
+    }
+    return snapshots;
+  }
+
+  public MetricsSnapshot snapshot() {
+    return new MetricsSnapshot(
+        enabled,
+        getCacheHits(),
+        getCacheMisses(),
+        getNegativeCacheHits(),
+        getAstCacheHits(),
+        getAstCacheMisses(),
+        getPhases());
+  }
+
+  @Override
+  public void reset() {
+    synchronized (orderedPhases) {
+      for (PhaseMetrics phase : orderedPhases) {
+        phase.reset();
+      }
+    }
+  }
+
+  /**
+   * プラットフォームMBeanServerに登録（同じワークスペースの登録済みMBeanは置き換える）
+   * 登録に失敗しても解析には影響しないためログに残すだけにする
+   */
+  public synchronized void registerMBean(String workspace) {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName name =
+          new ObjectName(
+              "com.example.dependviz:type=AnalysisMetrics,workspace=" + ObjectName.quote(workspace));
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(this, name);
+      objectName = name;
+    } catch (JMException e) {
+      logger.log(Level.WARNING, e, () -> "Failed to register metrics MBean for " + workspace);
+    }
+  }
+
+  public synchronized void unregisterMBean() {
+    if (objectName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (JMException e) {
+      logger.log(Level.FINE, e, () -> "Failed to unregister metrics MBean");
+    }
+    objectName = null;
+  }
+}
@@ -0,0 +1,30 @@
+package com.example.parser.metrics;
+
+import java.util.List;
+
+/**
+ * JMXに公開する解析の計測値
+ * ObjectNameは com.example.dependviz:type=AnalysisMetrics,workspace="<ワークスペースルート>"
+ */
+public interface AnalysisMetricsMXBean {
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  long getCacheHits();
+
+  long getCacheMisses();
+
+  double getCacheHitRate();
+
+  long getNegativeCacheHits();
+
+  long getAstCacheHits();
+
+  long getAstCacheMisses();
+
+  List<PhaseSnapshot> getPhases();
+
+  /** フェーズごとの計測値を0に戻す（キャッシュの累計は戻さない） */
+  void reset();
+}
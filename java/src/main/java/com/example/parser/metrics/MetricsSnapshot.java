@@ -0,0 +1,76 @@
+package com.example.parser.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+
+/**
+ * AnalysisMetrics全体のある時点の値
+ */
+public class MetricsSnapshot {
+  private final boolean enabled;
+  private final long cacheHits;
+  private final long cacheMisses;
+  private final long negativeCacheHits;
+  private final long astCacheHits;
+  private final long astCacheMisses;
+  private final List<PhaseSnapshot> phases;
+
+  @ConstructorProperties({
+    "enabled", "cacheHits", "cacheMisses", "negativeCacheHits", "astCacheHits", "astCacheMisses",
+    "phases"
+  })
+  public MetricsSnapshot(
+      boolean enabled,
+      long cacheHits,
+      long cacheMisses,
+      long negativeCacheHits,
+      long astCacheHits,
+      long astCacheMisses,
+      List<PhaseSnapshot> phases) {
+    this.enabled = enabled;
+    this.cacheHits = cacheHits;
+    this.cacheMisses = cacheMisses;
+    this.negativeCacheHits = negativeCacheHits;
+    this.astCacheHits = astCacheHits;
+    this.astCacheMisses = astCacheMisses;
+    this.phases = List.copyOf(phases);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** 型解決キャッシュのヒット数（計測の有効・無効に関わらず常に数える） */
+  public long getCacheHits() {
+    return cacheHits;
+  }
+
+  public long getCacheMisses() {
+    return cacheMisses;
+  }
+
+  /** 失敗の記録により解決を試みずに失敗とした回数（型の解決ではcacheMissesの内数） */
+  public long getNegativeCacheHits() {
+    return negativeCacheHits;
+  }
+
+  /** 内容が同じASTを再利用して構文解析を省いた回数（計測の有効・無効に関わらず常に数える） */
+  public long getAstCacheHits() {
+    return astCacheHits;
+  }
+
+  public long getAstCacheMisses() {
+    return astCacheMisses;
+  }
+
+  /** 型解決キャッシュのヒット率（0〜1，参照がなければ0） */
+  public double getCacheHitRate() {
+    long total = cacheHits + cacheMisses;
+    return total == 0 ? 0 : (double) cacheHits / total;
+  }
+
+  /** 構文解析，各Stage（実行順），ファイル全体の順 */
+  public List<PhaseSnapshot> getPhases() {
+    return phases;
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.parser.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 解析の1フェーズ（構文解析・各Stage・ファイル全体）の計測値
+ * 1ファイルの処理ごとにrecord()で所要時間と件数を加算する．複数スレッドから同時に呼んでよい．
+ */
+public final class PhaseMetrics {
+  private final String name;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+  private final LongAdder nodesVisited = new LongAdder();
+  private final LongAdder resolved = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  PhaseMetrics(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * 1回分の計測値を加算
+   *
+   * @param nanos 所要時間（ナノ秒）
+   * @param nodes 走査したASTノード数
+   * @param resolvedCount 型解決に成功した回数
+   * @param failedCount 型解決に失敗した回数
+   */
+  public void record(long nanos, long nodes, long resolvedCount, long failedCount) {
+    count.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulate(nanos);
+    latency.record(nanos);
+    if (nodes != 0) {
+      nodesVisited.add(nodes);
+    }
+    if (resolvedCount != 0) {
+      resolved.add(resolvedCount);
+    }
+    if (failedCount != 0) {
+      failed.add(failedCount);
+    }
+  }
+
+  public PhaseSnapshot snapshot() {
+    long n = count.sum();
+    long total = totalNanos.sum();
+    return new PhaseSnapshot(
+        name,
+        n,
+        total / 1_000_000.0,
+        n == 0 ? 0 : total / 1_000.0 / n,
+        latency.percentile(0.50) / 1_000.0,
+        latency.percentile(0.90) / 1_000.0,
+        latency.percentile(0.99) / 1_000.0,
+        maxNanos.get() / 1_000.0,
+        nodesVisited.sum(),
+        resolved.sum(),
+        failed.sum());
+  }
+
+  void reset() {
+    count.reset();
+    totalNanos.reset();
+    maxNanos.reset();
+    nodesVisited.reset();
+    resolved.reset();
+    failed.reset();
+    latency.reset();
+  }
+}
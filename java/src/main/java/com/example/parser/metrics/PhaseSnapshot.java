@@ -0,0 +1,96 @@
+package com.example.parser.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * PhaseMetricsのある時点の値（時間はミリ秒・マイクロ秒に換算済み）
+ * JSONとJMX（MXBeanのCompositeData）の両方に変換できるようgetterで公開する．
+ */
+public class PhaseSnapshot {
+  private final String name;
+  private final long count;
+  private final double totalMillis;
+  private final double meanMicros;
+  private final double p50Micros;
+  private final double p90Micros;
+  private final double p99Micros;
+  private final double maxMicros;
+  private final long nodesVisited;
+  private final long resolved;
+  private final long failed;
+
+  @ConstructorProperties({
+    "name", "count", "totalMillis", "meanMicros", "p50Micros", "p90Micros", "p99Micros",
+    "maxMicros", "nodesVisited", "resolved", "failed"
+  })
+  public PhaseSnapshot(
+      String name,
+      long count,
+      double totalMillis,
+      double meanMicros,
+      double p50Micros,
+      double p90Micros,
+      double p99Micros,
+      double maxMicros,
+      long nodesVisited,
+      long resolved,
+      long failed) {
+    this.name = name;
+    this.count = count;
+    this.totalMillis = totalMillis;
+    this.meanMicros = meanMicros;
+    this.p50Micros = p50Micros;
+    this.p90Micros = p90Micros;
+    this.p99Micros = p99Micros;
+    this.maxMicros = maxMicros;
+    this.nodesVisited = nodesVisited;
+    this.resolved = resolved;
+    this.failed = failed;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /** 計測回数（ファイル数） */
+  public long getCount() {
+    return count;
+  }
+
+  public double getTotalMillis() {
+    return totalMillis;
+  }
+
+  public double getMeanMicros() {
+    return meanMicros;
+  }
+
+  /** ファイルあたりの所要時間の中央値（ヒストグラムによる近似） */
+  public double getP50Micros() {
+    return p50Micros;
+  }
+
+  public double getP90Micros() {
+    return p90Micros;
+  }
+
+  public double getP99Micros() {
+    return p99Micros;
+  }
+
+  public double getMaxMicros() {
+    return maxMicros;
+  }
+
+  public long getNodesVisited() {
+    return nodesVisited;
+  }
+
+  public long getResolved() {
+    return resolved;
+  }
+
+  public long getFailed() {
+    return failed;
+  }
+}
@@ -1,29 +1,121 @@
 package com.example.parser.models;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class CodeGraph {
+  // 挿入順を保持するリストと，重複判定用のハッシュインデックスを併せて持つ
   private final List<GraphNode> graphNodes;
   private final List<GraphEdge> graphEdges;
+  private final Map<String, GraphNode> nodeIndex;
+  private final Map<EdgeKey, GraphEdge> edgeIndex;
 
   public CodeGraph() {
     this.graphNodes = new ArrayList<>();
     this.graphEdges = new ArrayList<>();
+    this.nodeIndex = new HashMap<>();
+    this.edgeIndex = new HashMap<>();
   }
 
+  /** ノードの読み取り専用ビュー（追加・変更はaddReferNode()・setNode*()で行う） */
   public List<GraphNode> getGraphNodes() {
-    return graphNodes;
+    return Collections.unmodifiableList(graphNodes);
   }
 
+  /** エッジの読み取り専用ビュー */
   public List<GraphEdge> getGraphEdges() {
-    return graphEdges;
+    return Collections.unmodifiableList(graphEdges);
   }
 
+  /** 参照を1回分追加（同じエッジが既にあれば重みを1増やす） */
   public void addReferNode(String className, String referClassName, String edgeType) {
+    addReferNode(className, referClassName, edgeType, 1);
+  }
+
+  /** 参照をweight回分追加（同じエッジが既にあれば重みに加算する） */
+  public void addReferNode(String className, String referClassName, String edgeType, int weight) {
     GraphNode graphNode = getOrCreate(className);
     GraphNode referGraphNode = getOrCreate(referClassName);
-    getOrCreateEdge(graphNode, referGraphNode, edgeType);
+    getOrCreateEdge(graphNode, referGraphNode, edgeType).addWeight(weight);
+  }
+
+  /** エッジの重み（存在しなければ0） */
+  public int getEdgeWeight(EdgeKey edgeKey) {
+    GraphEdge edge = edgeIndex.get(edgeKey);
+    return edge == null ? 0 : edge.getWeight();
+  }
+
+  /**
+   * 既存のエッジの重みを増減（存在しなければ何もしない）
+   * 重みが0以下になってもエッジは残すので，削除はremoveEdges()で行う．
+   */
+  public void addEdgeWeight(EdgeKey edgeKey, int delta) {
+    GraphEdge edge = edgeIndex.get(edgeKey);
+    if (edge != null) {
+      edge.addWeight(delta);
+    }
+  }
+
+  /** 重みがminWeight未満のエッジを削除（ノードは残す） */
+  public void removeEdgesBelow(int minWeight) {
+    List<EdgeKey> weak = new ArrayList<>();
+    for (GraphEdge edge : getGraphEdges()) {
+      if (edge.getWeight() < minWeight) {
+        weak.add(EdgeKey.of(edge));
+      }
+    }
+    if (!weak.isEmpty()) {
+      removeEdges(weak);
+    }
+  }
+
+  /** ノード名からノードを取得（存在しなければnull） */
+  public GraphNode findNode(String className) {
+    return nodeIndex.get(className);
+  }
+
+  /** 指定したエッジを削除 */
+  public void removeEdges(Collection<EdgeKey> edgeKeys) {
+    Set<GraphEdge> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (EdgeKey key : edgeKeys) {
+      GraphEdge edge = edgeIndex.remove(key);
+      if (edge != null) {
+        removed.add(edge);
+      }
+    }
+    if (!removed.isEmpty()) {
+      graphEdges.removeIf(removed::contains);
+    }
+  }
+
+  /** 指定したノードと，それに接続するエッジを削除 */
+  public void removeNodes(Collection<String> classNames) {
+    Set<GraphNode> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (String className : classNames) {
+      GraphNode node = nodeIndex.remove(className);
+      if (node != null) {
+        removed.add(node);
+      }
+    }
+    if (removed.isEmpty()) {
+      return;
+    }
+
+    graphNodes.removeIf(removed::contains);
+    graphEdges.removeIf(
+        edge -> {
+          if (removed.contains(edge.getSourceNode()) || removed.contains(edge.getTargetNode())) {
+            edgeIndex.remove(EdgeKey.of(edge));
+            return true;
+          }
+          return false;
+        });
   }
 
   public void setNodeType(String className, String type) {
@@ -41,42 +133,55 @@ public class CodeGraph {
     graphNode.setFilePath(filePath);
   }
 
+  /**
+   * 他のグラフをマージ（ノード属性は未設定のものだけ上書きし，エッジの重みは加算する）
+   */
+  public void merge(CodeGraph other) {
+    for (GraphNode node : other.getGraphNodes()) {
+      mergeNode(node);
+    }
+
+    for (GraphEdge edge : other.getGraphEdges()) {
+      addReferNode(
+          edge.getSourceNode().getNodeName(),
+          edge.getTargetNode().getNodeName(),
+          edge.getType(),
+          edge.getWeight());
+    }
+  }
+
+  protected void mergeNode(GraphNode node) {
+    GraphNode graphNode = getOrCreate(node.getNodeName());
+    if (GraphNode.UNKNOWN_TYPE.equals(graphNode.getType())
+        && !GraphNode.UNKNOWN_TYPE.equals(node.getType())) {
+      graphNode.setType(node.getType());
+    }
+    if (graphNode.getLinesOfCode() == -1 && node.getLinesOfCode() != -1) {
+      graphNode.setLinesOfCode(node.getLinesOfCode());
+    }
+    if (graphNode.getFilePath() == null && node.getFilePath() != null) {
+      graphNode.setFilePath(node.getFilePath());
+    }
+  }
+
   private GraphNode getOrCreate(String className) {
-    GraphNode graphNode = findGraphNode(className);
+    GraphNode graphNode = nodeIndex.get(className);
     if (graphNode == null) {
       graphNode = new GraphNode(className);
+      nodeIndex.put(className, graphNode);
       graphNodes.add(graphNode);
     }
     return graphNode;
   }
 
-  private GraphNode findGraphNode(String className) {
-    for (GraphNode node : graphNodes) {
-      if (node.getNodeName().equals(className)) {
-        return node;
-      }
-    }
-    return null;
-  }
-
   private GraphEdge getOrCreateEdge(GraphNode source, GraphNode target, String edgeType) {
-    GraphEdge existingEdge = findEdge(source, target, edgeType);
+    EdgeKey key = new EdgeKey(source.getNodeName(), target.getNodeName(), edgeType);
+    GraphEdge existingEdge = edgeIndex.get(key);
     if (existingEdge == null) {
-      existingEdge = new GraphEdge(source, target, edgeType);
+      existingEdge = new GraphEdge(source, target, edgeType, 0);
+      edgeIndex.put(key, existingEdge);
       graphEdges.add(existingEdge);
     }
     return existingEdge;
   }
-
-  private GraphEdge findEdge(GraphNode source, GraphNode target, String edgeType) {
-    for (GraphEdge edge : graphEdges) {
-      if (edge.getSourceNode().equals(source)
-          && edge.getTargetNode().equals(target)
-          && edge.getType().equals(edgeType)) {
-        return edge;
-      }
-    }
-    return null;
-  }
-
 }
@@ -0,0 +1,369 @@
+package com.example.parser.models;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * CodeGraphのコンパクト表現
+ * ノード名はint IDにinternし，エッジは(source, target, type)と重みをプリミティブ配列で保持する．
+ * getGraphNodes()/getGraphEdges()は要素をその都度生成する読み取り専用ビューを返すため，
+ * 既存のStageやJSONシリアライザはそのまま利用できる（リスト・要素とも変更できず，
+ * 変更はaddReferNode()・setNode*()で行う）．
+ */
+public class CompactCodeGraph extends CodeGraph {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int EMPTY = 0;
+
+  // ノード（IDは配列の添字）
+  private String[] nodeNames = new String[INITIAL_CAPACITY];
+  private byte[] nodeTypes = new byte[INITIAL_CAPACITY];
+  private int[] nodeLinesOfCode = new int[INITIAL_CAPACITY];
+  private String[] nodeFilePaths = new String[INITIAL_CAPACITY];
+  private int nodeCount = 0;
+  // ノード名 -> ID+1 のオープンアドレス法ハッシュ表
+  private int[] nodeTable = new int[INITIAL_CAPACITY * 2];
+
+  // ノード種別のラベル（nodeTypesはこのリストの添字）
+  private final List<String> typeLabels = new ArrayList<>(List.of(GraphNode.UNKNOWN_TYPE));
+
+  // エッジ（添字がエッジ番号）
+  private int[] edgeSources = new int[INITIAL_CAPACITY];
+  private int[] edgeTargets = new int[INITIAL_CAPACITY];
+  private byte[] edgeTypes = new byte[INITIAL_CAPACITY];
+  private int[] edgeWeights = new int[INITIAL_CAPACITY];
+  private int edgeCount = 0;
+  // (source, target, type) -> エッジ番号+1 のハッシュ表
+  private int[] edgeTable = new int[INITIAL_CAPACITY * 2];
+
+  @Override
+  public List<GraphNode> getGraphNodes() {
+    return new AbstractList<>() {
+      @Override
+      public GraphNode get(int index) {
+        if (index < 0 || index >= nodeCount) {
+          throw new IndexOutOfBoundsException(index);
+        }
+        return toGraphNode(index);
+      }
+
+      @Override
+      public int size() {
+        return nodeCount;
+      }
+    };
+  }
+
+  @Override
+  public List<GraphEdge> getGraphEdges() {
+    return new AbstractList<>() {
+      @Override
+      public GraphEdge get(int index) {
+        if (index < 0 || index >= edgeCount) {
+          throw new IndexOutOfBoundsException(index);
+        }
+        return new GraphEdge(
+            toGraphNode(edgeSources[index]),
+            toGraphNode(edgeTargets[index]),
+            EdgeType.fromOrdinal(edgeTypes[index]).getLabel(),
+            edgeWeights[index]);
+      }
+
+      @Override
+      public int size() {
+        return edgeCount;
+      }
+    };
+  }
+
+  @Override
+  public void addReferNode(String className, String referClassName, String edgeType, int weight) {
+    int source = intern(className);
+    int target = intern(referClassName);
+    int edge = getOrCreateEdge(source, target, (byte) EdgeType.fromLabel(edgeType).ordinal());
+    edgeWeights[edge] += weight;
+  }
+
+  @Override
+  public int getEdgeWeight(EdgeKey edgeKey) {
+    int edge = findEdgeId(edgeKey);
+    return edge < 0 ? 0 : edgeWeights[edge];
+  }
+
+  @Override
+  public void addEdgeWeight(EdgeKey edgeKey, int delta) {
+    int edge = findEdgeId(edgeKey);
+    if (edge >= 0) {
+      edgeWeights[edge] += delta;
+    }
+  }
+
+  @Override
+  public void removeEdgesBelow(int minWeight) {
+    boolean[] removed = new boolean[edgeCount];
+    boolean any = false;
+    for (int edge = 0; edge < edgeCount; edge++) {
+      removed[edge] = edgeWeights[edge] < minWeight;
+      any |= removed[edge];
+    }
+    if (any) {
+      compactEdges(removed, null);
+    }
+  }
+
+  @Override
+  public GraphNode findNode(String className) {
+    int id = findNodeId(className);
+    return id < 0 ? null : toGraphNode(id);
+  }
+
+  @Override
+  public void removeEdges(Collection<EdgeKey> edgeKeys) {
+    boolean[] removed = new boolean[edgeCount];
+    boolean any = false;
+    for (EdgeKey key : edgeKeys) {
+      int edge = findEdgeId(key);
+      if (edge >= 0) {
+        removed[edge] = true;
+        any = true;
+      }
+    }
+    if (any) {
+      compactEdges(removed, null);
+    }
+  }
+
+  @Override
+  public void removeNodes(Collection<String> classNames) {
+    boolean[] removed = new boolean[nodeCount];
+    boolean any = false;
+    for (String className : classNames) {
+      int id = findNodeId(className);
+      if (id >= 0) {
+        removed[id] = true;
+        any = true;
+      }
+    }
+    if (!any) {
+      return;
+    }
+
+    // 残すノードを前詰めし，旧ID -> 新IDの対応を作る
+    int[] remap = new int[nodeCount];
+    int count = 0;
+    for (int id = 0; id < nodeCount; id++) {
+      if (removed[id]) {
+        remap[id] = -1;
+        continue;
+      }
+      remap[id] = count;
+      nodeNames[count] = nodeNames[id];
+      nodeTypes[count] = nodeTypes[id];
+      nodeLinesOfCode[count] = nodeLinesOfCode[id];
+      nodeFilePaths[count] = nodeFilePaths[id];
+      count++;
+    }
+    Arrays.fill(nodeNames, count, nodeCount, null);
+    Arrays.fill(nodeFilePaths, count, nodeCount, null);
+    nodeCount = count;
+    nodeTable = rehash(nodeTable.length, nodeCount, i -> mix(nodeNames[i].hashCode()));
+
+    boolean[] removedEdges = new boolean[edgeCount];
+    for (int edge = 0; edge < edgeCount; edge++) {
+      removedEdges[edge] = remap[edgeSources[edge]] < 0 || remap[edgeTargets[edge]] < 0;
+    }
+    compactEdges(removedEdges, remap);
+  }
+
+  @Override
+  public void setNodeType(String className, String type) {
+    nodeTypes[intern(className)] = typeIndex(type);
+  }
+
+  @Override
+  public void setNodeLinesOfCode(String className, int linesOfCode) {
+    nodeLinesOfCode[intern(className)] = linesOfCode;
+  }
+
+  @Override
+  public void setNodeFilePath(String className, String filePath) {
+    nodeFilePaths[intern(className)] = filePath;
+  }
+
+  @Override
+  protected void mergeNode(GraphNode node) {
+    int id = intern(node.getNodeName());
+    if (nodeTypes[id] == 0 && !GraphNode.UNKNOWN_TYPE.equals(node.getType())) {
+      nodeTypes[id] = typeIndex(node.getType());
+    }
+    if (nodeLinesOfCode[id] == -1 && node.getLinesOfCode() != -1) {
+      nodeLinesOfCode[id] = node.getLinesOfCode();
+    }
+    if (nodeFilePaths[id] == null && node.getFilePath() != null) {
+      nodeFilePaths[id] = node.getFilePath();
+    }
+  }
+
+  private GraphNode toGraphNode(int id) {
+    GraphNode node = new GraphNode(nodeNames[id]);
+    node.setType(typeLabels.get(nodeTypes[id]));
+    node.setLinesOfCode(nodeLinesOfCode[id]);
+    node.setFilePath(nodeFilePaths[id]);
+    return node;
+  }
+
+  private byte typeIndex(String type) {
+    int index = typeLabels.indexOf(type);
+    if (index < 0) {
+      if (typeLabels.size() > Byte.MAX_VALUE) {
+        throw new IllegalStateException("Too many node types: " + type);
+      }
+      index = typeLabels.size();
+      typeLabels.add(type);
+    }
+    return (byte) index;
+  }
+
+  private int findNodeId(String name) {
+    int mask = nodeTable.length - 1;
+    int slot = mix(name.hashCode()) & mask;
+    while (nodeTable[slot] != EMPTY) {
+      int id = nodeTable[slot] - 1;
+      if (nodeNames[id].equals(name)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private int findEdgeId(EdgeKey key) {
+    int source = findNodeId(key.source());
+    int target = findNodeId(key.target());
+    if (source < 0 || target < 0) {
+      return -1;
+    }
+    byte type = (byte) EdgeType.fromLabel(key.type()).ordinal();
+    int mask = edgeTable.length - 1;
+    int slot = edgeHash(source, target, type) & mask;
+    while (edgeTable[slot] != EMPTY) {
+      int edge = edgeTable[slot] - 1;
+      if (edgeSources[edge] == source && edgeTargets[edge] == target && edgeTypes[edge] == type) {
+        return edge;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  // 削除対象を除いてエッジを前詰めする（remapが指定されればノードIDも付け替える）
+  private void compactEdges(boolean[] removed, int[] remap) {
+    int count = 0;
+    for (int edge = 0; edge < edgeCount; edge++) {
+      if (removed[edge]) {
+        continue;
+      }
+      edgeSources[count] = remap == null ? edgeSources[edge] : remap[edgeSources[edge]];
+      edgeTargets[count] = remap == null ? edgeTargets[edge] : remap[edgeTargets[edge]];
+      edgeTypes[count] = edgeTypes[edge];
+      edgeWeights[count] = edgeWeights[edge];
+      count++;
+    }
+    edgeCount = count;
+    edgeTable =
+        rehash(
+            edgeTable.length,
+            edgeCount,
+            i -> edgeHash(edgeSources[i], edgeTargets[i], edgeTypes[i]));
+  }
+
+  /** ノード名をIDに変換（未登録なら追加） */
+  private int intern(String name) {
+    int mask = nodeTable.length - 1;
+    int slot = mix(name.hashCode()) & mask;
+    while (nodeTable[slot] != EMPTY) {
+      int id = nodeTable[slot] - 1;
+      if (nodeNames[id].equals(name)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int id = nodeCount++;
+    if (id == nodeNames.length) {
+      int capacity = nodeNames.length * 2;
+      nodeNames = Arrays.copyOf(nodeNames, capacity);
+      nodeTypes = Arrays.copyOf(nodeTypes, capacity);
+      nodeLinesOfCode = Arrays.copyOf(nodeLinesOfCode, capacity);
+      nodeFilePaths = Arrays.copyOf(nodeFilePaths, capacity);
+    }
+    nodeNames[id] = name;
+    nodeTypes[id] = 0;
+    nodeLinesOfCode[id] = -1;
+    nodeTable[slot] = id + 1;
+    if (nodeCount * 2 > nodeTable.length) {
+      nodeTable = rehash(nodeTable.length * 2, nodeCount, i -> mix(nodeNames[i].hashCode()));
+    }
+    return id;
+  }
+
+  private int getOrCreateEdge(int source, int target, byte type) {
+    int mask = edgeTable.length - 1;
+    int slot = edgeHash(source, target, type) & mask;
+    while (edgeTable[slot] != EMPTY) {
+      int edge = edgeTable[slot] - 1;
+      if (edgeSources[edge] == source && edgeTargets[edge] == target && edgeTypes[edge] == type) {
+        return edge;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int edge = edgeCount++;
+    if (edge == edgeSources.length) {
+      int capacity = edgeSources.length * 2;
+      edgeSources = Arrays.copyOf(edgeSources, capacity);
+      edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+      edgeTypes = Arrays.copyOf(edgeTypes, capacity);
+      edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+    }
+    edgeSources[edge] = source;
+    edgeTargets[edge] = target;
+    edgeTypes[edge] = type;
+    edgeWeights[edge] = 0;
+    edgeTable[slot] = edge + 1;
+    if (edgeCount * 2 > edgeTable.length) {
+      edgeTable =
+          rehash(
+              edgeTable.length * 2,
+              edgeCount,
+              i -> edgeHash(edgeSources[i], edgeTargets[i], edgeTypes[i]));
+    }
+    return edge;
+  }
+
+  // 指定サイズのハッシュ表を作り直す（capacityは2の冪）
+  private static int[] rehash(int capacity, int count, IntUnaryOperator hash) {
+    int[] resized = new int[capacity];
+    int mask = resized.length - 1;
+    for (int i = 0; i < count; i++) {
+      int slot = hash.applyAsInt(i) & mask;
+      while (resized[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      resized[slot] = i + 1;
+    }
+    return resized;
+  }
+
+  private static int edgeHash(int source, int target, byte type) {
+    return mix((source * 31 + target) * 31 + type);
+  }
+
+  private static int mix(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
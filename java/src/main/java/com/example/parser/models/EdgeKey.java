@@ -0,0 +1,10 @@
+package com.example.parser.models;
+
+/** エッジの同一性を表すキー（ノード名は一意なので名前で比較する） */
+public record EdgeKey(String source, String target, String type) {
+
+  public static EdgeKey of(GraphEdge edge) {
+    return new EdgeKey(
+        edge.getSourceNode().getNodeName(), edge.getTargetNode().getNodeName(), edge.getType());
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.parser.models;
+
+/** 依存エッジの種類（コンパクト表現ではordinalをbyteとして保持する） */
+public enum EdgeType {
+  TYPE_USE("TypeUse"),
+  METHOD_CALL("MethodCall"),
+  OBJECT_CREATE("ObjectCreate"),
+  EXTENDS("Extends"),
+  IMPLEMENTS("Implements");
+
+  private static final EdgeType[] VALUES = values();
+
+  private final String label;
+
+  EdgeType(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+
+  static EdgeType fromOrdinal(int ordinal) {
+    return VALUES[ordinal];
+  }
+
+  public static EdgeType fromLabel(String label) {
+    for (EdgeType type : VALUES) {
+      if (type.label.equals(label)) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException("Unknown edge type: " + label);
+  }
+}
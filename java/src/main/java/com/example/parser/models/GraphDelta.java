@@ -0,0 +1,80 @@
+package com.example.parser.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * グラフの差分（fromVersionの状態に適用するとtoVersionの状態になる）
+ * nodesは追加または属性が変わったノード，edgesは追加または重みが変わったエッジ（重みは変更後の値）
+ * ノードは作成時点の属性をコピーして保持する
+ */
+public class GraphDelta {
+  private final long fromVersion;
+  private final long toVersion;
+  private final List<GraphNode> nodes;
+  private final List<String> removedNodes;
+  private final List<EdgeKey> edges;
+  private final int[] edgeWeights;
+  private final List<EdgeKey> removedEdges;
+
+  public GraphDelta(
+      long fromVersion,
+      long toVersion,
+      Collection<GraphNode> nodes,
+      Collection<String> removedNodes,
+      Map<EdgeKey, Integer> edges,
+      Collection<EdgeKey> removedEdges) {
+    this.fromVersion = fromVersion;
+    this.toVersion = toVersion;
+    this.nodes = new ArrayList<>(nodes.size());
+    for (GraphNode node : nodes) {
+      GraphNode copy = new GraphNode(node.getNodeName());
+      copy.setType(node.getType());
+      copy.setLinesOfCode(node.getLinesOfCode());
+      copy.setFilePath(node.getFilePath());
+      this.nodes.add(copy);
+    }
+    this.removedNodes = List.copyOf(removedNodes);
+    this.edges = List.copyOf(edges.keySet());
+    this.edgeWeights = new int[this.edges.size()];
+    for (int i = 0; i < edgeWeights.length; i++) {
+      edgeWeights[i] = edges.get(this.edges.get(i));
+    }
+    this.removedEdges = List.copyOf(removedEdges);
+  }
+
+  public long getFromVersion() {
+    return fromVersion;
+  }
+
+  public long getToVersion() {
+    return toVersion;
+  }
+
+  public List<GraphNode> getNodes() {
+    return nodes;
+  }
+
+  public List<String> getRemovedNodes() {
+    return removedNodes;
+  }
+
+  public List<EdgeKey> getEdges() {
+    return edges;
+  }
+
+  /** getEdges()のindex番目のエッジの重み */
+  public int getEdgeWeight(int index) {
+    return edgeWeights[index];
+  }
+
+  public List<EdgeKey> getRemovedEdges() {
+    return removedEdges;
+  }
+
+  public boolean isEmpty() {
+    return nodes.isEmpty() && removedNodes.isEmpty() && edges.isEmpty() && removedEdges.isEmpty();
+  }
+}
@@ -4,11 +4,18 @@ public class GraphEdge {
   private final GraphNode sourceNode;
   private final GraphNode targetNode;
   private final String type;
+  // 同じ(source, target, type)の参照が現れた回数
+  private int weight;
 
   public GraphEdge(GraphNode sourceNode, GraphNode targetNode, String type) {
+    this(sourceNode, targetNode, type, 1);
+  }
+
+  public GraphEdge(GraphNode sourceNode, GraphNode targetNode, String type, int weight) {
     this.sourceNode = sourceNode;
     this.targetNode = targetNode;
     this.type = type;
+    this.weight = weight;
   }
 
   public GraphNode getSourceNode() {
@@ -22,4 +29,12 @@ public class GraphEdge {
   public String getType() {
     return type;
   }
+
+  public int getWeight() {
+    return weight;
+  }
+
+  void addWeight(int delta) {
+    weight += delta;
+  }
 }
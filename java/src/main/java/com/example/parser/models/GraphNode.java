@@ -1,15 +1,20 @@
 package com.example.parser.models;
 
+/**
+ * グラフのノード（属性の変更はCodeGraphのsetNode*()で行う．CompactCodeGraphが返すノードは
+ * その都度生成した写しなので，直接変更できないようにしている）
+ */
 public class GraphNode {
+  static final String UNKNOWN_TYPE = "Unknown";
+
+  // IDはノード名（完全修飾名）と同一なので別フィールドには保持しない
   private final String nodeName;
-  private final String id;
-  private String type = "Unknown";
+  private String type = UNKNOWN_TYPE;
   private int linesOfCode = -1; // 行数フィールドを追加（初期値-1）
   private String filePath = null;
 
   GraphNode(String nodeName) {
     this.nodeName = nodeName;
-    this.id = nodeName;
   }
 
   public String getNodeName() {
@@ -17,18 +22,18 @@ public class GraphNode {
   }
 
   public String getId() {
-    return id;
+    return nodeName;
   }
 
   public String getType() {
     return type;
   }
 
-  public void setType(String type) {
+  void setType(String type) {
     this.type = type;
   }
 
-  public void setLinesOfCode(int linesOfCode) {
+  void setLinesOfCode(int linesOfCode) {
     this.linesOfCode = linesOfCode;
   }
 
@@ -36,7 +41,7 @@ public class GraphNode {
     return linesOfCode;
   }
 
-  public void setFilePath(String filePath) {
+  void setFilePath(String filePath) {
     this.filePath = filePath;
   }
 
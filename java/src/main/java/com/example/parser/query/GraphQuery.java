@@ -0,0 +1,350 @@
+package com.example.parser.query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.GraphEdge;
+import com.example.parser.models.GraphNode;
+
+/**
+ * ワークスペースグラフに対する問い合わせ（推移的な依存先・依存元，最短経路，循環）
+ * 構築時のグラフを固定し，ノードをint IDに置き換えた隣接配列（CSR形式，順方向と逆方向）で探索する．
+ * 不変なので複数のリクエストから同時に使ってよい．
+ */
+public class GraphQuery {
+  private final long version;
+  private final Map<String, Integer> ids;
+  private final GraphNode[] nodes;
+  private final String[] edgeTypes;
+  // 順方向: ノードiの辺はoutEdges[outOffsets[i] .. outOffsets[i + 1])（辺の添字，辺はソース・ターゲット・種別の配列）
+  private final int[] outOffsets;
+  private final int[] outEdges;
+  private final int[] inOffsets;
+  private final int[] inEdges;
+  private final int[] sources;
+  private final int[] targets;
+  private final int[] weights;
+
+  /**
+   * @param graph 問い合わせ対象のグラフ（ノードを共有するため，構築後は変更しないスナップショットを渡す）
+   * @param version グラフのバージョン（結果に付けて返す）
+   */
+  public GraphQuery(CodeGraph graph, long version) {
+    this.version = version;
+    List<GraphNode> graphNodes = graph.getGraphNodes();
+    List<GraphEdge> graphEdges = graph.getGraphEdges();
+    int nodeCount = graphNodes.size();
+    int edgeCount = graphEdges.size();
+
+    this.ids = new HashMap<>(nodeCount * 2);
+    this.nodes = new GraphNode[nodeCount];
+    for (int i = 0; i < nodeCount; i++) {
+      nodes[i] = graphNodes.get(i);
+      ids.put(nodes[i].getNodeName(), i);
+    }
+
+    this.sources = new int[edgeCount];
+    this.targets = new int[edgeCount];
+    this.edgeTypes = new String[edgeCount];
+    this.weights = new int[edgeCount];
+    this.outOffsets = new int[nodeCount + 1];
+    this.inOffsets = new int[nodeCount + 1];
+    for (int e = 0; e < edgeCount; e++) {
+      GraphEdge edge = graphEdges.get(e);
+      sources[e] = ids.get(edge.getSourceNode().getNodeName());
+      targets[e] = ids.get(edge.getTargetNode().getNodeName());
+      edgeTypes[e] = edge.getType().intern();
+      weights[e] = edge.getWeight();
+      outOffsets[sources[e] + 1]++;
+      inOffsets[targets[e] + 1]++;
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      outOffsets[i + 1] += outOffsets[i];
+      inOffsets[i + 1] += inOffsets[i];
+    }
+    this.outEdges = new int[edgeCount];
+    this.inEdges = new int[edgeCount];
+    int[] outFill = Arrays.copyOf(outOffsets, nodeCount);
+    int[] inFill = Arrays.copyOf(inOffsets, nodeCount);
+    for (int e = 0; e < edgeCount; e++) {
+      outEdges[outFill[sources[e]]++] = e;
+      inEdges[inFill[targets[e]]++] = e;
+    }
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public int nodeCount() {
+    return nodes.length;
+  }
+
+  public boolean contains(String nodeId) {
+    return ids.containsKey(nodeId);
+  }
+
+  /**
+   * nodeIdから辺を順方向にdepth段まで辿って到達するノードと，辿った辺からなる部分グラフ
+   *
+   * @param depth 辿る段数（負なら制限なし）
+   * @param types 辿る辺の種別（nullまたは空なら全て）
+   */
+  public CodeGraph dependencies(String nodeId, int depth, Collection<String> types) {
+    return reachable(nodeId, depth, types, true);
+  }
+
+  /** nodeIdへ辺を逆向きにdepth段まで辿って到達するノード（影響を受けるクラス）の部分グラフ */
+  public CodeGraph dependents(String nodeId, int depth, Collection<String> types) {
+    return reachable(nodeId, depth, types, false);
+  }
+
+  /**
+   * fromからtoへの辺数が最小の経路（ノードと経路上の辺のみ，経路がなければ空のグラフ）
+   * ノードはfromから経路順に並ぶ．
+   */
+  public CodeGraph shortestPath(String from, String to, Collection<String> types) {
+    int source = id(from);
+    int target = id(to);
+    EdgeFilter filter = EdgeFilter.of(types);
+    // 到達したノードへの辺（未到達は-1，始点は-2）
+    int[] via = new int[nodes.length];
+    Arrays.fill(via, -1);
+    via[source] = -2;
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    queue.add(source);
+    while (!queue.isEmpty() && via[target] == -1) {
+      int node = queue.poll();
+      for (int k = outOffsets[node]; k < outOffsets[node + 1]; k++) {
+        int e = outEdges[k];
+        if (filter.accepts(edgeTypes[e]) && via[targets[e]] == -1) {
+          via[targets[e]] = e;
+          queue.add(targets[e]);
+        }
+      }
+    }
+
+    CodeGraph path = new CodeGraph();
+    if (via[target] == -1) {
+      return path;
+    }
+    List<Integer> edges = new ArrayList<>();
+    for (int node = target; via[node] >= 0; node = sources[via[node]]) {
+      edges.add(via[node]);
+    }
+    copyNode(path, nodes[source]);
+    for (int k = edges.size() - 1; k >= 0; k--) {
+      copyNode(path, nodes[targets[edges.get(k)]]);
+    }
+    for (int k = edges.size() - 1; k >= 0; k--) {
+      copyEdge(path, edges.get(k));
+    }
+    return path;
+  }
+
+  /**
+   * 循環（2つ以上のノードからなる強連結成分）をTarjanのアルゴリズムで求める
+   * 成分は大きい順（同じ大きさなら先頭のノード名順），成分内のノードは名前順．
+   *
+   * @param includeSelfLoops 自分自身への辺だけからなる循環（再帰呼び出し・自身の型の参照など，
+   *     ほとんどのクラスが持つ）も1ノードの成分として含める
+   */
+  public List<List<String>> cycles(Collection<String> types, boolean includeSelfLoops) {
+    EdgeFilter filter = EdgeFilter.of(types);
+    int n = nodes.length;
+    int[] index = new int[n];
+    int[] lowLink = new int[n];
+    boolean[] onStack = new boolean[n];
+    Arrays.fill(index, -1);
+    int[] stack = new int[n];
+    int stackSize = 0;
+    // 再帰の代わりに使う呼び出しスタック（ノードと，次に調べる辺の位置）
+    int[] callNode = new int[n];
+    int[] callEdge = new int[n];
+    int counter = 0;
+    List<List<String>> components = new ArrayList<>();
+
+    for (int root = 0; root < n; root++) {
+      if (index[root] != -1) {
+        continue;
+      }
+      int depth = 0;
+      callNode[0] = root;
+      callEdge[0] = outOffsets[root];
+      index[root] = lowLink[root] = counter++;
+      stack[stackSize++] = root;
+      onStack[root] = true;
+
+      while (depth >= 0) {
+        int node = callNode[depth];
+        if (callEdge[depth] < outOffsets[node + 1]) {
+          int e = outEdges[callEdge[depth]++];
+          if (!filter.accepts(edgeTypes[e])) {
+            continue;
+          }
+          int next = targets[e];
+          if (index[next] == -1) {
+            index[next] = lowLink[next] = counter++;
+            stack[stackSize++] = next;
+            onStack[next] = true;
+            depth++;
+            callNode[depth] = next;
+            callEdge[depth] = outOffsets[next];
+          } else if (onStack[next]) {
+            lowLink[node] = Math.min(lowLink[node], index[next]);
+          }
+          continue;
+        }
+
+        // nodeの辺を調べ終えた: 根なら成分を取り出し，呼び出し元へlowLinkを伝える
+        if (lowLink[node] == index[node]) {
+          List<String> component = new ArrayList<>();
+          int member;
+          do {
+            member = stack[--stackSize];
+            onStack[member] = false;
+            component.add(nodes[member].getNodeName());
+          } while (member != node);
+          if (component.size() > 1 || (includeSelfLoops && hasSelfLoop(node, filter))) {
+            component.sort(null);
+            components.add(component);
+          }
+        }
+        depth--;
+        if (depth >= 0) {
+          int caller = callNode[depth];
+          lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+        }
+      }
+    }
+
+    components.sort(
+        Comparator.<List<String>>comparingInt(List::size)
+            .reversed()
+            .thenComparing(component -> component.get(0)));
+    return components;
+  }
+
+  /** ノード集合とその間の辺（種別で絞り込み）からなる部分グラフ（循環の表示用） */
+  public CodeGraph subgraph(Collection<String> nodeIds, Collection<String> types) {
+    EdgeFilter filter = EdgeFilter.of(types);
+    boolean[] included = new boolean[nodes.length];
+    CodeGraph subgraph = new CodeGraph();
+    for (String nodeId : nodeIds) {
+      int node = id(nodeId);
+      if (!included[node]) {
+        included[node] = true;
+        copyNode(subgraph, nodes[node]);
+      }
+    }
+    for (int e = 0; e < sources.length; e++) {
+      if (included[sources[e]] && included[targets[e]] && filter.accepts(edgeTypes[e])) {
+        copyEdge(subgraph, e);
+      }
+    }
+    return subgraph;
+  }
+
+  // 幅優先でdepth段まで辿る（辿った辺は到達済みのノードへの辺も含める）
+  private CodeGraph reachable(
+      String nodeId, int depth, Collection<String> types, boolean forward) {
+    int start = id(nodeId);
+    EdgeFilter filter = EdgeFilter.of(types);
+    int[] offsets = forward ? outOffsets : inOffsets;
+    int[] adjacency = forward ? outEdges : inEdges;
+    int[] ends = forward ? targets : sources;
+
+    int[] distance = new int[nodes.length];
+    Arrays.fill(distance, -1);
+    distance[start] = 0;
+    List<Integer> order = new ArrayList<>();
+    List<Integer> edges = new ArrayList<>();
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    queue.add(start);
+    while (!queue.isEmpty()) {
+      int node = queue.poll();
+      order.add(node);
+      if (depth >= 0 && distance[node] >= depth) {
+        continue;
+      }
+      for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+        int e = adjacency[k];
+        if (!filter.accepts(edgeTypes[e])) {
+          continue;
+        }
+        edges.add(e);
+        int next = ends[e];
+        if (distance[next] == -1) {
+          distance[next] = distance[node] + 1;
+          queue.add(next);
+        }
+      }
+    }
+
+    CodeGraph result = new CodeGraph();
+    for (int node : order) {
+      copyNode(result, nodes[node]);
+    }
+    for (int e : edges) {
+      copyEdge(result, e);
+    }
+    return result;
+  }
+
+  private boolean hasSelfLoop(int node, EdgeFilter filter) {
+    for (int k = outOffsets[node]; k < outOffsets[node + 1]; k++) {
+      int e = outEdges[k];
+      if (targets[e] == node && filter.accepts(edgeTypes[e])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int id(String nodeId) {
+    Integer id = ids.get(nodeId);
+    if (id == null) {
+      throw new IllegalArgumentException("Unknown node: " + nodeId);
+    }
+    return id;
+  }
+
+  private void copyEdge(CodeGraph graph, int e) {
+    graph.addReferNode(
+        nodes[sources[e]].getNodeName(),
+        nodes[targets[e]].getNodeName(),
+        edgeTypes[e],
+        weights[e]);
+  }
+
+  // 属性ごとノードを複製（GraphIndexStoreの読み込みと同じくsetNodeTypeで作成する）
+  private static void copyNode(CodeGraph graph, GraphNode node) {
+    String name = node.getNodeName();
+    graph.setNodeType(name, node.getType());
+    if (node.getLinesOfCode() != -1) {
+      graph.setNodeLinesOfCode(name, node.getLinesOfCode());
+    }
+    if (node.getFilePath() != null) {
+      graph.setNodeFilePath(name, node.getFilePath());
+    }
+  }
+
+  // 辿る辺の種別（空なら全て）
+  private record EdgeFilter(Collection<String> types) {
+    static EdgeFilter of(Collection<String> types) {
+      return new EdgeFilter(types == null || types.isEmpty() ? null : Set.copyOf(types));
+    }
+
+    boolean accepts(String type) {
+      return types == null || types.contains(type);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.parser.query;
+
+import java.util.List;
+
+import com.example.parser.models.CodeGraph;
+
+/**
+ * 問い合わせの結果
+ * graphは結果の部分グラフ，componentsは循環の問い合わせでのみ強連結成分（それ以外は空），
+ * versionは問い合わせたワークスペースグラフのバージョン．
+ */
+public record QueryResult(
+    String kind, long version, CodeGraph graph, List<List<String>> components) {
+
+  public QueryResult(String kind, long version, CodeGraph graph) {
+    this(kind, version, graph, List.of());
+  }
+}
@@ -0,0 +1,13 @@
+package com.example.parser.resolution;
+
+/**
+ * 以前に失敗した解決をResolutionCacheの記録から再び失敗とするときの例外
+ * メッセージは最初の失敗のもの．繰り返し投げられるためスタックトレースは記録しない．
+ */
+public final class CachedResolutionFailure extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public CachedResolutionFailure(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,210 @@
+package com.example.parser.resolution;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+
+import javassist.ClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+/**
+ * 依存jar群の型を解決するTypeSolver
+ * 起動時に各jarの中央ディレクトリだけを読んでクラス名 -> (jar, エントリ)の索引を作り，
+ * クラスファイル本体は型が初めて要求されたときに読み込む．
+ * 索引にない名前は例外を投げずにその場で未解決を返すため，ライブラリ型の探索は索引の参照1回で済む．
+ */
+public class ClasspathTypeSolver implements TypeSolver, AutoCloseable {
+  private static final Logger logger = Logger.getLogger(ClasspathTypeSolver.class.getName());
+
+  private static final String CLASS_EXTENSION = ".class";
+
+  private final List<Path> jars;
+  // 正準名（入れ子のクラスは"."区切り） -> クラスファイルの位置（同名のクラスは先のjarを優先）
+  private final Map<String, ClassEntry> classes = new HashMap<>();
+  // 初めて参照されたときに開く
+  private final ZipFile[] openJars;
+  private final ClassPool classPool = new ClassPool(false);
+  private final Map<String, ResolvedReferenceTypeDeclaration> declarations =
+      new ConcurrentHashMap<>();
+  private TypeSolver parent;
+
+  public ClasspathTypeSolver(List<Path> jars) {
+    this.jars = List.copyOf(jars);
+    this.openJars = new ZipFile[this.jars.size()];
+    for (int i = 0; i < this.jars.size(); i++) {
+      index(i);
+    }
+    classPool.appendClassPath(new IndexedClassPath());
+    logger.log(
+        Level.INFO,
+        "Indexed {0} classes from {1} jars",
+        new Object[] {classes.size(), this.jars.size()});
+  }
+
+  public List<Path> getJars() {
+    return jars;
+  }
+
+  /** 索引に含まれるクラス数 */
+  public int size() {
+    return classes.size();
+  }
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (parent == null) {
+      throw new NullPointerException("parent for type solver can't be null");
+    }
+    if (parent == this) {
+      throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+    }
+    if (this.parent != null) {
+      throw new IllegalStateException("This TypeSolver already has a parent.");
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    ResolvedReferenceTypeDeclaration declaration = declarations.get(name);
+    if (declaration != null) {
+      return SymbolReference.solved(declaration);
+    }
+    ClassEntry entry = classes.get(name);
+    if (entry == null) {
+      return SymbolReference.unsolved();
+    }
+    try {
+      CtClass ctClass = classPool.get(entry.binaryName());
+      declaration = JavassistFactory.toTypeDeclaration(ctClass, getRoot());
+    } catch (NotFoundException | RuntimeException e) {
+      logger.log(Level.FINE, e, () -> "Failed to load class from classpath: " + name);
+      return SymbolReference.unsolved();
+    }
+    declarations.putIfAbsent(name, declaration);
+    return SymbolReference.solved(declaration);
+  }
+
+  @Override
+  public synchronized void close() {
+    for (int i = 0; i < openJars.length; i++) {
+      if (openJars[i] != null) {
+        try {
+          openJars[i].close();
+        } catch (IOException e) {
+          logger.log(Level.FINE, e, () -> "Failed to close jar");
+        }
+        openJars[i] = null;
+      }
+    }
+  }
+
+  // jarのエントリ名からクラスを登録（匿名・ローカルクラス，module-info等は除く）
+  private void index(int jarIndex) {
+    Path jar = jars.get(jarIndex);
+    try (ZipFile zip = new ZipFile(jar.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        String entryName = entries.nextElement().getName();
+        if (!entryName.endsWith(CLASS_EXTENSION) || entryName.startsWith("META-INF/")) {
+          continue;
+        }
+        String binaryName =
+            entryName.substring(0, entryName.length() - CLASS_EXTENSION.length()).replace('/', '.');
+        if (binaryName.endsWith("module-info") || binaryName.endsWith("package-info")
+            || isLocalOrAnonymous(binaryName)) {
+          continue;
+        }
+        classes.putIfAbsent(
+            binaryName.replace('$', '.'), new ClassEntry(jarIndex, entryName, binaryName));
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING, e, () -> "Failed to index jar: " + jar);
+    }
+  }
+
+  private static boolean isLocalOrAnonymous(String binaryName) {
+    int dollar = binaryName.indexOf('$');
+    while (dollar >= 0 && dollar + 1 < binaryName.length()) {
+      if (Character.isDigit(binaryName.charAt(dollar + 1))) {
+        return true;
+      }
+      dollar = binaryName.indexOf('$', dollar + 1);
+    }
+    return false;
+  }
+
+  private synchronized ZipFile jar(int jarIndex) throws IOException {
+    ZipFile zip = openJars[jarIndex];
+    if (zip == null) {
+      zip = new ZipFile(jars.get(jarIndex).toFile());
+      openJars[jarIndex] = zip;
+    }
+    return zip;
+  }
+
+  // javassistのクラス名（$区切り）から索引を引く
+  private ClassEntry lookup(String binaryName) {
+    ClassEntry entry = classes.get(binaryName.replace('$', '.'));
+    return entry != null && entry.binaryName().equals(binaryName) ? entry : null;
+  }
+
+  private record ClassEntry(int jarIndex, String entryName, String binaryName) {}
+
+  /**
+   * javassistのクラス探索を索引経由でjarから読むようにするClassPath
+   */
+  private final class IndexedClassPath implements ClassPath {
+    @Override
+    public InputStream openClassfile(String classname) throws NotFoundException {
+      ClassEntry entry = lookup(classname);
+      if (entry == null) {
+        return null;
+      }
+      try {
+        ZipFile zip = jar(entry.jarIndex());
+        return zip.getInputStream(zip.getEntry(entry.entryName()));
+      } catch (IOException e) {
+        throw new NotFoundException("Failed to read " + classname, e);
+      }
+    }
+
+    @Override
+    public URL find(String classname) {
+      ClassEntry entry = lookup(classname);
+      if (entry == null) {
+        return null;
+      }
+      try {
+        URI jarUri = jars.get(entry.jarIndex()).toUri();
+        return URI.create("jar:" + jarUri + "!/" + entry.entryName()).toURL();
+      } catch (MalformedURLException | IllegalArgumentException e) {
+        return null;
+      }
+    }
+  }
+}
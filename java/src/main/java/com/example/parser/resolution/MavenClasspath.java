@@ -0,0 +1,395 @@
+package com.example.parser.resolution;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * pom.xmlの依存関係をローカルMavenリポジトリのjarに解決する
+ * 推移的な依存（compile/runtimeスコープ，optionalを除く）も辿り，同じgroupId:artifactIdは近い方を採用する．
+ * プロパティ・親POM・dependencyManagement（importしたBOMを含む）からバージョンを決めるが，
+ * バージョン範囲とプロファイルは扱わない．リポジトリにないjarは無視する（ダウンロードはしない）．
+ */
+public class MavenClasspath {
+  private static final Logger logger = Logger.getLogger(MavenClasspath.class.getName());
+
+  private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+  private static final Set<String> TRANSITIVE_SCOPES = Set.of("compile", "runtime");
+
+  private final Path repository;
+  // 読み込み済みのPOM（親POMやBOMは複数の依存から参照される）
+  private final Map<Path, Optional<PomModel>> models = new HashMap<>();
+
+  public MavenClasspath(Path repository) {
+    this.repository = repository;
+  }
+
+  /**
+   * pom.xmlの依存jarを宣言に近い順に返す（testスコープは除く）
+   */
+  public List<Path> resolve(Path pomFile) {
+    PomModel root = load(pomFile.toAbsolutePath().normalize()).orElse(null);
+    if (root == null) {
+      return List.of();
+    }
+
+    Map<String, Path> jars = new LinkedHashMap<>();
+    Set<String> visited = new HashSet<>();
+    Deque<Pending> queue = new ArrayDeque<>();
+    for (Dependency dependency : root.dependencies()) {
+      Dependency resolved = root.effective(dependency, root);
+      if (resolved != null && !"test".equals(resolved.scope()) && !"system".equals(resolved.scope())) {
+        queue.add(new Pending(resolved, resolved.exclusions()));
+      }
+    }
+
+    while (!queue.isEmpty()) {
+      Pending pending = queue.poll();
+      Dependency dependency = pending.dependency();
+      if (!visited.add(dependency.key())) {
+        continue;
+      }
+      if (!"pom".equals(dependency.type())) {
+        Path jar = artifact(dependency, dependency.classifier(), "jar");
+        if (Files.isRegularFile(jar)) {
+          jars.put(dependency.key(), jar);
+        } else {
+          logger.fine(() -> "Dependency jar not found: " + jar);
+        }
+      }
+
+      // 依存先のPOMから推移的な依存を辿る（バージョンはルートのdependencyManagementを優先）
+      PomModel model = load(artifact(dependency, null, "pom")).orElse(null);
+      if (model == null) {
+        continue;
+      }
+      for (Dependency child : model.dependencies()) {
+        String scope = child.scope() == null ? "compile" : child.scope();
+        if (!TRANSITIVE_SCOPES.contains(scope)
+            || child.optional()
+            || pending.exclusions().contains("*:*")
+            || pending.exclusions().contains(model.interpolate(child.groupId()) + ":*")
+            || pending.exclusions().contains(model.key(child))) {
+          continue;
+        }
+        Dependency resolved = model.effective(child, root);
+        if (resolved != null && !visited.contains(resolved.key())) {
+          Set<String> exclusions = new HashSet<>(pending.exclusions());
+          exclusions.addAll(resolved.exclusions());
+          queue.add(new Pending(resolved, exclusions));
+        }
+      }
+    }
+    return new ArrayList<>(jars.values());
+  }
+
+  // リポジトリ内の成果物のパス（groupId/artifactId/version/artifactId-version[-classifier].ext）
+  private Path artifact(Dependency dependency, String classifier, String extension) {
+    String fileName =
+        dependency.artifactId()
+            + "-"
+            + dependency.version()
+            + (classifier == null ? "" : "-" + classifier)
+            + "."
+            + extension;
+    return repository
+        .resolve(dependency.groupId().replace('.', '/'))
+        .resolve(dependency.artifactId())
+        .resolve(dependency.version())
+        .resolve(fileName);
+  }
+
+  private Optional<PomModel> load(Path pomFile) {
+    Optional<PomModel> cached = models.get(pomFile);
+    if (cached != null) {
+      return cached;
+    }
+    // 循環する親指定に備えて先に空を登録しておく
+    models.put(pomFile, Optional.empty());
+    Optional<PomModel> model = Optional.empty();
+    if (Files.isRegularFile(pomFile)) {
+      try {
+        model = Optional.of(parse(pomFile));
+      } catch (IOException | SAXException | ParserConfigurationException e) {
+        logger.log(Level.FINE, e, () -> "Failed to read POM: " + pomFile);
+      }
+    }
+    models.put(pomFile, model);
+    return model;
+  }
+
+  private PomModel parse(Path pomFile)
+      throws IOException, SAXException, ParserConfigurationException {
+    Element project = newDocumentBuilder().parse(pomFile.toFile()).getDocumentElement();
+
+    // 親POM（relativePathのPOMが該当すればそれを，なければリポジトリのものを使う）
+    PomModel parent = null;
+    Element parentElement = child(project, "parent");
+    if (parentElement != null) {
+      Dependency coordinates =
+          new Dependency(
+              text(parentElement, "groupId"),
+              text(parentElement, "artifactId"),
+              text(parentElement, "version"),
+              null,
+              "pom",
+              null,
+              false,
+              Set.of());
+      String relativePath = Optional.ofNullable(text(parentElement, "relativePath")).orElse("../pom.xml");
+      Path local = pomFile.getParent().resolve(relativePath).normalize();
+      if (Files.isDirectory(local)) {
+        local = local.resolve("pom.xml");
+      }
+      parent = load(local).filter(model -> model.key().equals(coordinates.key())).orElse(null);
+      if (parent == null && coordinates.version() != null) {
+        parent = load(artifact(coordinates, null, "pom")).orElse(null);
+      }
+    }
+
+    Map<String, String> properties =
+        parent == null ? new HashMap<>() : new HashMap<>(parent.properties());
+    Element propertiesElement = child(project, "properties");
+    if (propertiesElement != null) {
+      for (Element property : children(propertiesElement)) {
+        properties.put(property.getTagName(), property.getTextContent().trim());
+      }
+    }
+    String groupId =
+        Optional.ofNullable(text(project, "groupId"))
+            .orElse(parentElement == null ? null : text(parentElement, "groupId"));
+    String version =
+        Optional.ofNullable(text(project, "version"))
+            .orElse(parentElement == null ? null : text(parentElement, "version"));
+    putIfPresent(properties, "project.groupId", groupId);
+    putIfPresent(properties, "project.artifactId", text(project, "artifactId"));
+    putIfPresent(properties, "project.version", version);
+    if (parentElement != null) {
+      putIfPresent(properties, "project.parent.groupId", text(parentElement, "groupId"));
+      putIfPresent(properties, "project.parent.version", text(parentElement, "version"));
+    }
+
+    // 依存とdependencyManagementは親の分を引き継ぐ
+    List<Dependency> dependencies =
+        parent == null ? new ArrayList<>() : new ArrayList<>(parent.dependencies());
+    dependencies.addAll(dependencies(child(project, "dependencies")));
+
+    PomModel model =
+        new PomModel(
+            groupId,
+            text(project, "artifactId"),
+            properties,
+            dependencies,
+            parent == null ? new LinkedHashMap<>() : new LinkedHashMap<>(parent.managed()));
+    Element management = child(project, "dependencyManagement");
+    for (Dependency managed : dependencies(management == null ? null : child(management, "dependencies"))) {
+      Dependency resolved = model.interpolate(managed);
+      if ("import".equals(resolved.scope()) && "pom".equals(resolved.type())) {
+        // importしたBOMの管理バージョンはBOM自身のプロパティで決まる
+        load(artifact(resolved, null, "pom"))
+            .ifPresent(bom -> bom.managed().forEach(model.managed()::putIfAbsent));
+      } else {
+        model.managed().put(resolved.key(), resolved);
+      }
+    }
+    return model;
+  }
+
+  private static List<Dependency> dependencies(Element element) {
+    List<Dependency> dependencies = new ArrayList<>();
+    if (element == null) {
+      return dependencies;
+    }
+    for (Element dependency : children(element)) {
+      if (!dependency.getTagName().equals("dependency")) {
+        continue;
+      }
+      Set<String> exclusions = new HashSet<>();
+      Element exclusionsElement = child(dependency, "exclusions");
+      if (exclusionsElement != null) {
+        for (Element exclusion : children(exclusionsElement)) {
+          exclusions.add(text(exclusion, "groupId") + ":" + text(exclusion, "artifactId"));
+        }
+      }
+      dependencies.add(
+          new Dependency(
+              text(dependency, "groupId"),
+              text(dependency, "artifactId"),
+              text(dependency, "version"),
+              text(dependency, "scope"),
+              Optional.ofNullable(text(dependency, "type")).orElse("jar"),
+              text(dependency, "classifier"),
+              Boolean.parseBoolean(text(dependency, "optional")),
+              exclusions));
+    }
+    return dependencies;
+  }
+
+  private static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+    factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+    factory.setExpandEntityReferences(false);
+    return factory.newDocumentBuilder();
+  }
+
+  private static Element child(Element element, String name) {
+    for (Element child : children(element)) {
+      if (child.getTagName().equals(name)) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  private static List<Element> children(Element element) {
+    List<Element> children = new ArrayList<>();
+    for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (node instanceof Element child) {
+        children.add(child);
+      }
+    }
+    return children;
+  }
+
+  private static String text(Element element, String name) {
+    Element child = child(element, name);
+    if (child == null) {
+      return null;
+    }
+    String text = child.getTextContent().trim();
+    return text.isEmpty() ? null : text;
+  }
+
+  private static void putIfPresent(Map<String, String> properties, String key, String value) {
+    if (value != null) {
+      properties.put(key, value);
+    }
+  }
+
+  /**
+   * POMの依存宣言（値は${...}を含む未展開のまま保持する）
+   */
+  private record Dependency(
+      String groupId,
+      String artifactId,
+      String version,
+      String scope,
+      String type,
+      String classifier,
+      boolean optional,
+      Set<String> exclusions) {
+    String key() {
+      return groupId + ":" + artifactId;
+    }
+  }
+
+  private record Pending(Dependency dependency, Set<String> exclusions) {}
+
+  /**
+   * 親POMを反映したPOMの内容（managedはgroupId:artifactId -> 展開済みの管理バージョン）
+   */
+  private record PomModel(
+      String groupId,
+      String artifactId,
+      Map<String, String> properties,
+      List<Dependency> dependencies,
+      Map<String, Dependency> managed) {
+    String key() {
+      return groupId + ":" + artifactId;
+    }
+
+    String key(Dependency dependency) {
+      return interpolate(dependency.groupId()) + ":" + interpolate(dependency.artifactId());
+    }
+
+    // このPOMのプロパティで展開し，バージョンが決まらない依存はnull
+    Dependency effective(Dependency dependency, PomModel root) {
+      Dependency resolved = interpolate(dependency);
+      Dependency rootManaged = root.managed().get(resolved.key());
+      Dependency managedHere = managed().get(resolved.key());
+      String version =
+          rootManaged != null && rootManaged.version() != null && root != this
+              ? rootManaged.version()
+              : resolved.version() != null
+                  ? resolved.version()
+                  : managedHere != null ? managedHere.version() : null;
+      if (version == null || version.contains("${") || version.startsWith("[")
+          || version.startsWith("(")) {
+        return null;
+      }
+      String scope = resolved.scope();
+      if (scope == null && managedHere != null) {
+        scope = managedHere.scope();
+      }
+      return new Dependency(
+          resolved.groupId(),
+          resolved.artifactId(),
+          version,
+          scope,
+          resolved.type(),
+          resolved.classifier(),
+          resolved.optional(),
+          resolved.exclusions());
+    }
+
+    Dependency interpolate(Dependency dependency) {
+      return new Dependency(
+          interpolate(dependency.groupId()),
+          interpolate(dependency.artifactId()),
+          interpolate(dependency.version()),
+          interpolate(dependency.scope()),
+          interpolate(dependency.type()),
+          interpolate(dependency.classifier()),
+          dependency.optional(),
+          dependency.exclusions());
+    }
+
+    // ${name}を展開（入れ子のプロパティのため数回まで繰り返す，未定義のものはそのまま残す）
+    String interpolate(String value) {
+      if (value == null) {
+        return null;
+      }
+      String current = value;
+      for (int i = 0; i < 8 && current.contains("${"); i++) {
+        Matcher matcher = PROPERTY.matcher(current);
+        StringBuilder sb = new StringBuilder();
+        while (matcher.find()) {
+          String replacement = properties.get(matcher.group(1));
+          matcher.appendReplacement(
+              sb, Matcher.quoteReplacement(replacement != null ? replacement : matcher.group()));
+        }
+        matcher.appendTail(sb);
+        if (sb.toString().equals(current)) {
+          break;
+        }
+        current = sb.toString();
+      }
+      return current;
+    }
+  }
+}
@@ -0,0 +1,386 @@
+package com.example.parser.resolution;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * ワークスペース内のモジュールとソースルートの配置
+ * pom.xml・build.gradle(.kts)またはsrc/main/javaを持つディレクトリをモジュールとし，
+ * src/main/java・src/test/javaと生成ソース（target/generated-sources/*，build/generated/sources/* /java/*）を
+ * ソースルートとする．モジュール間の依存はpom.xmlのdependencyとGradleのproject(':...')から読み取る．
+ */
+public final class ModuleLayout {
+  private static final Logger logger = Logger.getLogger(ModuleLayout.class.getName());
+
+  private static final List<String> BUILD_FILES =
+      List.of("pom.xml", "build.gradle", "build.gradle.kts");
+  private static final Pattern GRADLE_PROJECT =
+      Pattern.compile("project\\(\\s*(?:path\\s*[:=]\\s*)?['\"](:[^'\"]*)['\"]");
+
+  private final List<Module> modules;
+  // モジュールごとのソースルートの探索順（自身 -> 依存モジュール（近い順）-> その他のモジュール）
+  // 本体のファイル用（自身のテストのルートを含まない）とテストのファイル用
+  private final List<List<Path>> mainLookupOrders;
+  private final List<List<Path>> testLookupOrders;
+  private final List<Path> defaultOrder;
+
+  private ModuleLayout(List<Module> modules) {
+    this.modules = List.copyOf(modules);
+    this.defaultOrder = defaultOrder(this.modules);
+    this.mainLookupOrders = new ArrayList<>(this.modules.size());
+    this.testLookupOrders = new ArrayList<>(this.modules.size());
+    for (int i = 0; i < this.modules.size(); i++) {
+      mainLookupOrders.add(computeLookupOrder(i, false));
+      testLookupOrders.add(computeLookupOrder(i, true));
+    }
+  }
+
+  /**
+   * ワークスペースを走査してモジュールを検出
+   * モジュールが1つも見つからなければ，従来どおり上位ディレクトリのsrc/main/java（なければワークスペースルート）を
+   * 唯一のソースルートとする
+   *
+   * @param excluded 辿らないディレクトリ（node_modules，隠しディレクトリなど）
+   */
+  public static ModuleLayout discover(Path workspaceRoot, Predicate<Path> excluded) {
+    List<Module> modules = new ArrayList<>();
+    try {
+      Files.walkFileTree(
+          workspaceRoot,
+          new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+              // ソースディレクトリ（src）の中にはモジュールを置かない
+              if (!dir.equals(workspaceRoot)
+                  && (excluded.test(dir) || dir.getFileName().toString().equals("src"))) {
+                return FileVisitResult.SKIP_SUBTREE;
+              }
+              Module module = readModule(workspaceRoot, dir);
+              if (module != null) {
+                modules.add(module);
+              }
+              return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+              return FileVisitResult.CONTINUE;
+            }
+          });
+    } catch (IOException e) {
+      logger.log(Level.WARNING, e, () -> "Failed to discover modules under " + workspaceRoot);
+    }
+
+    if (modules.isEmpty()) {
+      Path sourceRoot = findSourceRoot(workspaceRoot);
+      if (sourceRoot == null) {
+        logger.log(
+            Level.WARNING, "Source root not found, using workspace root: {0}", workspaceRoot);
+        sourceRoot = workspaceRoot;
+      }
+      modules.add(
+          new Module("", workspaceRoot, List.of(sourceRoot), List.of(sourceRoot), List.of(), null));
+    }
+    return new ModuleLayout(modules);
+  }
+
+  /** モジュールの検出・依存の読み取りに使うビルドファイル（pom.xml・build.gradle(.kts)）か */
+  public static boolean isBuildFile(Path file) {
+    Path name = file.getFileName();
+    return name != null && BUILD_FILES.contains(name.toString());
+  }
+
+  public List<Module> getModules() {
+    return modules;
+  }
+
+  /** 全モジュールのソースルート（モジュールの検出順，各モジュール内はmain -> test） */
+  public List<Path> getSourceRoots() {
+    List<Path> roots = new ArrayList<>();
+    for (Module module : modules) {
+      roots.addAll(module.sourceRoots());
+    }
+    return roots;
+  }
+
+  /** ファイルが属するモジュールの添字（最も深いモジュールディレクトリ，どこにも属さなければ-1） */
+  public int moduleOf(Path file) {
+    int found = -1;
+    int depth = -1;
+    for (int i = 0; i < modules.size(); i++) {
+      Path directory = modules.get(i).directory();
+      if (file.startsWith(directory) && directory.getNameCount() > depth) {
+        found = i;
+        depth = directory.getNameCount();
+      }
+    }
+    return found;
+  }
+
+  /** ファイルがモジュールのテストのソースルートにあるか */
+  public boolean isTestSource(int module, Path file) {
+    if (module < 0) {
+      return false;
+    }
+    for (Path root : modules.get(module).testRoots()) {
+      if (file.startsWith(root)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * モジュールから見たソースルートの探索順（moduleが-1なら全モジュールの本体を検出順に）
+   * テストのルートはそのモジュールのテストのファイル（testがtrue）からだけ見える．
+   */
+  public List<Path> lookupOrder(int module, boolean test) {
+    if (module < 0) {
+      return defaultOrder;
+    }
+    return test ? testLookupOrders.get(module) : mainLookupOrders.get(module);
+  }
+
+  // 自身のルート（testなら全て，そうでなければ本体のみ）-> 依存モジュールの本体ルート（幅優先）
+  // -> 残りのモジュールの本体ルート
+  private List<Path> computeLookupOrder(int module, boolean test) {
+    Map<String, Integer> byName = new HashMap<>();
+    for (int i = 0; i < modules.size(); i++) {
+      byName.putIfAbsent(modules.get(i).name(), i);
+    }
+
+    Module self = modules.get(module);
+    LinkedHashSet<Path> order = new LinkedHashSet<>(test ? self.sourceRoots() : self.mainRoots());
+    Set<Integer> visited = new LinkedHashSet<>();
+    visited.add(module);
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(module);
+    while (!queue.isEmpty()) {
+      for (String dependency : modules.get(queue.poll()).dependencies()) {
+        Integer index = byName.get(dependency);
+        if (index != null && visited.add(index)) {
+          order.addAll(modules.get(index).mainRoots());
+          queue.add(index);
+        }
+      }
+    }
+    // 依存関係を読み取れなかった場合に備え，残りのモジュールも最後に探す
+    order.addAll(defaultOrder);
+    return List.copyOf(order);
+  }
+
+  private static List<Path> defaultOrder(List<Module> modules) {
+    List<Path> order = new ArrayList<>();
+    for (Module module : modules) {
+      order.addAll(module.mainRoots());
+    }
+    return List.copyOf(order);
+  }
+
+  // ディレクトリがモジュールならその内容を読む（ビルドファイルもsrc/main/javaもなければnull）
+  private static Module readModule(Path workspaceRoot, Path dir) {
+    Path buildFile = null;
+    for (String name : BUILD_FILES) {
+      if (Files.isRegularFile(dir.resolve(name))) {
+        buildFile = dir.resolve(name);
+        break;
+      }
+    }
+    List<Path> mainRoots = new ArrayList<>();
+    List<Path> testRoots = new ArrayList<>();
+    addIfDirectory(mainRoots, dir.resolve("src/main/java"));
+    addChildren(mainRoots, dir.resolve("target/generated-sources"));
+    addGradleGenerated(mainRoots, dir, "main");
+    addIfDirectory(testRoots, dir.resolve("src/test/java"));
+    addChildren(testRoots, dir.resolve("target/generated-test-sources"));
+    addGradleGenerated(testRoots, dir, "test");
+    if (buildFile == null && mainRoots.isEmpty()) {
+      return null;
+    }
+    if (mainRoots.isEmpty() && testRoots.isEmpty()) {
+      // 集約用のpom.xmlなどソースを持たないモジュール
+      return null;
+    }
+
+    List<Path> sourceRoots = new ArrayList<>(mainRoots);
+    sourceRoots.addAll(testRoots);
+    String name;
+    List<String> dependencies;
+    if (buildFile != null && buildFile.getFileName().toString().equals("pom.xml")) {
+      MavenCoordinates pom = readPom(buildFile);
+      name = pom.name();
+      dependencies = pom.dependencies();
+    } else {
+      name = gradlePath(workspaceRoot, dir);
+      dependencies = buildFile == null ? List.of() : readGradleDependencies(buildFile);
+    }
+    return new Module(name, dir, sourceRoots, mainRoots, dependencies, buildFile);
+  }
+
+  private static void addIfDirectory(List<Path> roots, Path dir) {
+    if (Files.isDirectory(dir)) {
+      roots.add(dir);
+    }
+  }
+
+  private static void addChildren(List<Path> roots, Path dir) {
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    try (Stream<Path> children = Files.list(dir)) {
+      children.filter(Files::isDirectory).sorted().forEach(roots::add);
+    } catch (IOException e) {
+      logger.log(Level.FINE, e, () -> "Failed to list " + dir);
+    }
+  }
+
+  // build/generated/sources/<生成元>/java/<main|test>
+  private static void addGradleGenerated(List<Path> roots, Path moduleDir, String sourceSet) {
+    Path generated = moduleDir.resolve("build/generated/sources");
+    if (!Files.isDirectory(generated)) {
+      return;
+    }
+    try (Stream<Path> children = Files.list(generated)) {
+      children
+          .map(child -> child.resolve("java").resolve(sourceSet))
+          .filter(Files::isDirectory)
+          .sorted()
+          .forEach(roots::add);
+    } catch (IOException e) {
+      logger.log(Level.FINE, e, () -> "Failed to list " + generated);
+    }
+  }
+
+  // pom.xmlのgroupId:artifactIdと，依存しているgroupId:artifactId（プロパティは展開しない）
+  private static MavenCoordinates readPom(Path pomFile) {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+      factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+      Element project = factory.newDocumentBuilder().parse(pomFile.toFile()).getDocumentElement();
+      Element parent = child(project, "parent");
+      String groupId = text(project, "groupId");
+      if (groupId == null && parent != null) {
+        groupId = text(parent, "groupId");
+      }
+      List<String> dependencies = new ArrayList<>();
+      Element dependenciesElement = child(project, "dependencies");
+      if (dependenciesElement != null) {
+        for (Node node = dependenciesElement.getFirstChild();
+            node != null;
+            node = node.getNextSibling()) {
+          if (node instanceof Element dependency) {
+            String dependencyGroup = text(dependency, "groupId");
+            if (dependencyGroup == null || dependencyGroup.contains("${")) {
+              dependencyGroup = groupId;
+            }
+            dependencies.add(dependencyGroup + ":" + text(dependency, "artifactId"));
+          }
+        }
+      }
+      return new MavenCoordinates(groupId + ":" + text(project, "artifactId"), dependencies);
+    } catch (Exception e) {
+      logger.log(Level.FINE, e, () -> "Failed to read module POM: " + pomFile);
+      return new MavenCoordinates(pomFile.getParent().toString(), List.of());
+    }
+  }
+
+  private static List<String> readGradleDependencies(Path buildFile) {
+    List<String> dependencies = new ArrayList<>();
+    try {
+      Matcher matcher = GRADLE_PROJECT.matcher(Files.readString(buildFile));
+      while (matcher.find()) {
+        dependencies.add(matcher.group(1));
+      }
+    } catch (IOException e) {
+      logger.log(Level.FINE, e, () -> "Failed to read " + buildFile);
+    }
+    return dependencies;
+  }
+
+  // Gradleのプロジェクトパス（ルートは":"，サブディレクトリは":a:b"）
+  private static String gradlePath(Path workspaceRoot, Path dir) {
+    Path relative = workspaceRoot.relativize(dir);
+    if (relative.toString().isEmpty()) {
+      return ":";
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Path part : relative) {
+      sb.append(':').append(part);
+    }
+    return sb.toString();
+  }
+
+  private static Element child(Element element, String name) {
+    for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (node instanceof Element child && child.getTagName().equals(name)) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  private static String text(Element element, String name) {
+    Element child = child(element, name);
+    return child == null ? null : child.getTextContent().trim();
+  }
+
+  // 上位ディレクトリを遡って最初に見つかったsrc/main/java（モジュールが見つからない場合用）
+  private static Path findSourceRoot(Path startPath) {
+    Path current = startPath;
+    while (current != null) {
+      Path candidate = current.resolve("src/main/java");
+      if (Files.isDirectory(candidate)) {
+        return candidate;
+      }
+      current = current.getParent();
+    }
+    return null;
+  }
+
+  private record MavenCoordinates(String name, List<String> dependencies) {}
+
+  /**
+   * モジュール
+   * nameはMavenならgroupId:artifactId，Gradleならプロジェクトパス．
+   * sourceRootsは本体（mainRoots）の後にテストのルートが続く．buildFileはなければnull．
+   */
+  public record Module(
+      String name,
+      Path directory,
+      List<Path> sourceRoots,
+      List<Path> mainRoots,
+      List<String> dependencies,
+      Path buildFile) {
+
+    /** テストのソースルート（sourceRootsのうち本体以外） */
+    public List<Path> testRoots() {
+      return sourceRoots.subList(mainRoots.size(), sourceRoots.size());
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package com.example.parser.resolution;
+
+import java.lang.ref.SoftReference;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 型解決結果の共有キャッシュ
+ * 未解決の型テキストとインポート文脈をキーに，解決済みの型名を保持する．
+ * 件数上限を超えたものはLRUで破棄し，値はSoftReferenceで保持するためメモリ逼迫時にはGCで回収される．
+ * 解決先の型を宣言しているファイルが変更された場合はinvalidateFile()で，型が追加されて同じ名前の記述の
+ * 解決先が変わりうる場合はinvalidateSimpleNames()で破棄する．
+ * 解決に失敗したキーも記録しておき，同じ失敗を繰り返さないようにする．失敗の記録は，宣言している型や
+ * 公開APIが変わったとき・ソースファイルの追加や削除・クラスパスの変更時にclearFailures()で全て破棄する
+ * （メソッド本体だけの変更では他のファイルの解決結果は変わらない）．
+ */
+public class ResolutionCache {
+  // 型の記述を名前に分割する区切り（識別子以外の文字）
+  private static final Pattern NAME_SEPARATOR = Pattern.compile("[^\\p{javaJavaIdentifierPart}]+");
+
+  private final int maxEntries;
+  private final LinkedHashMap<Key, SoftReference<Entry>> entries;
+  // 宣言ファイル -> そのファイルの型に解決されたキー
+  private final Map<String, Set<Key>> keysByDeclaringFile = new HashMap<>();
+  // 解決に失敗したキー -> 失敗時の例外メッセージ（件数上限はentriesと共通，LRUで破棄）
+  private final LinkedHashMap<Key, String> failures;
+  // 解決に失敗したことのあるメソッド名（呼び出しのキーを作るかどうかの判定用，破棄はfailuresと同時）
+  private final Set<String> failedMethodNames = new HashSet<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder negativeHits = new LongAdder();
+
+  public ResolutionCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.failures = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  public boolean isEnabled() {
+    return maxEntries > 0;
+  }
+
+  /** キャッシュ済みの解決結果を取得（未登録またはGC済みならnull） */
+  public synchronized String get(Key key) {
+    SoftReference<Entry> ref = entries.get(key);
+    Entry entry = ref == null ? null : ref.get();
+    if (entry == null) {
+      if (ref != null) {
+        remove(key);
+      }
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.value();
+  }
+
+  /** 解決結果を登録（declaringFileはソースから解決された型の宣言ファイル，ライブラリ型ならnull） */
+  public synchronized void put(Key key, String value, String declaringFile) {
+    SoftReference<Entry> previous = entries.put(key, new SoftReference<>(new Entry(value, declaringFile)));
+    if (previous != null) {
+      untrack(key, previous.get());
+    }
+    if (declaringFile != null) {
+      keysByDeclaringFile.computeIfAbsent(declaringFile, f -> new HashSet<>()).add(key);
+    }
+
+    Iterator<Map.Entry<Key, SoftReference<Entry>>> eldest = entries.entrySet().iterator();
+    while (entries.size() > maxEntries && eldest.hasNext()) {
+      Map.Entry<Key, SoftReference<Entry>> e = eldest.next();
+      eldest.remove();
+      untrack(e.getKey(), e.getValue().get());
+    }
+  }
+
+  /** 解決に失敗したことが記録されていればその例外メッセージを返す（未記録ならnull） */
+  public synchronized String getFailure(Key key) {
+    String message = failures.get(key);
+    if (message != null) {
+      negativeHits.increment();
+    }
+    return message;
+  }
+
+  /** 解決に失敗したことを記録 */
+  public synchronized void putFailure(Key key, String message) {
+    failures.put(key, message == null ? "" : message);
+    Iterator<Key> eldest = failures.keySet().iterator();
+    while (failures.size() > maxEntries && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  /** メソッド呼び出しの解決に失敗したことを記録（keyがnullならメソッド名だけを記録） */
+  public synchronized void putCallFailure(String methodName, Key key, String message) {
+    failedMethodNames.add(methodName);
+    if (key != null) {
+      putFailure(key, message);
+    }
+  }
+
+  /** 同じ名前のメソッド呼び出しの解決に失敗したことがあるか（なければ失敗の記録を引くまでもない） */
+  public synchronized boolean hasFailedCall(String methodName) {
+    return failedMethodNames.contains(methodName);
+  }
+
+  /** 失敗の記録を全て破棄（宣言している型・公開APIの変更，ソースファイルの追加・削除やクラスパスの変更時） */
+  public synchronized void clearFailures() {
+    failures.clear();
+    failedMethodNames.clear();
+  }
+
+  /** 指定ファイルで宣言された型に解決されたエントリを破棄（失敗の記録は残す） */
+  public synchronized void invalidateFile(String filePath) {
+    Set<Key> keys = keysByDeclaringFile.remove(filePath);
+    if (keys != null) {
+      for (Key key : keys) {
+        entries.remove(key);
+      }
+    }
+  }
+
+  /**
+   * 記述に指定した単純名を含むエントリを破棄（失敗の記録は残す）
+   * 型が追加されると，同じ単純名の記述はインポートやパッケージの優先順位によって
+   * 別の型に解決されるようになりうる（例: import q.*でq.Fooに解決していたFooは，同じパッケージに
+   * Fooが追加されるとそちらに解決される）．
+   */
+  public synchronized void invalidateSimpleNames(Collection<String> simpleNames) {
+    if (simpleNames.isEmpty()) {
+      return;
+    }
+    Iterator<Map.Entry<Key, SoftReference<Entry>>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Key, SoftReference<Entry>> e = it.next();
+      for (String name : NAME_SEPARATOR.split(e.getKey().text())) {
+        if (simpleNames.contains(name)) {
+          it.remove();
+          untrack(e.getKey(), e.getValue().get());
+          break;
+        }
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    keysByDeclaringFile.clear();
+    failures.clear();
+    failedMethodNames.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** 失敗の記録により解決を試みずに失敗とした回数 */
+  public long getNegativeHitCount() {
+    return negativeHits.sum();
+  }
+
+  public synchronized int failureCount() {
+    return failures.size();
+  }
+
+  private void remove(Key key) {
+    SoftReference<Entry> ref = entries.remove(key);
+    if (ref != null) {
+      untrack(key, ref.get());
+    }
+  }
+
+  private void untrack(Key key, Entry entry) {
+    if (entry == null || entry.declaringFile() == null) {
+      // GC済みのエントリは宣言ファイル側に残るが，invalidate時に空振りするだけなので許容する
+      return;
+    }
+    Set<Key> keys = keysByDeclaringFile.get(entry.declaringFile());
+    if (keys != null) {
+      keys.remove(key);
+      if (keys.isEmpty()) {
+        keysByDeclaringFile.remove(entry.declaringFile());
+      }
+    }
+  }
+
+  /**
+   * キャッシュキー
+   * kind: 解決結果の取り出し方（describe / qualifiedName），text: 型の記述，
+   * context: パッケージとインポート，scope: 囲んでいる型の完全名，
+   * lookup: 型を探したモジュールの探索順（WorkspaceTypeSolver.currentLookup()，モジュールごとに本体・テストで異なる）
+   */
+  public record Key(String kind, String text, String context, String scope, int lookup) {}
+
+  private record Entry(String value, String declaringFile) {}
+}
@@ -0,0 +1,99 @@
+package com.example.parser.resolution;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.cache.GuavaCache;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * ソースルート1つ分のJavaParserTypeSolver
+ * 内部キャッシュを外から渡して保持しておき，ファイルが変更されたときに該当エントリを破棄できるようにする
+ * （型探索の結果は，変更されたファイルが宣言しうる型の分だけを破棄する）．
+ */
+public class SourceRootSolver {
+  private final Path sourceRoot;
+  private final Cache<Path, Optional<CompilationUnit>> parsedFiles;
+  private final Cache<Path, List<CompilationUnit>> parsedDirectories;
+  private final Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> foundTypes;
+  private final JavaParserTypeSolver typeSolver;
+
+  public SourceRootSolver(Path sourceRoot, ParserConfiguration.LanguageLevel languageLevel) {
+    this.sourceRoot = sourceRoot.toAbsolutePath().normalize();
+    this.parsedFiles = newCache();
+    this.parsedDirectories = newCache();
+    this.foundTypes = newCache();
+
+    ParserConfiguration configuration = new ParserConfiguration();
+    configuration.setLanguageLevel(languageLevel);
+    this.typeSolver =
+        new JavaParserTypeSolver(
+            this.sourceRoot,
+            new JavaParser(configuration),
+            new GuavaCache<>(parsedFiles),
+            new GuavaCache<>(parsedDirectories),
+            new GuavaCache<>(foundTypes));
+  }
+
+  public Path getSourceRoot() {
+    return sourceRoot;
+  }
+
+  public TypeSolver getTypeSolver() {
+    return typeSolver;
+  }
+
+  public boolean contains(Path file) {
+    return file.toAbsolutePath().normalize().startsWith(sourceRoot);
+  }
+
+  /**
+   * ファイルが宣言しうる型の名前（ソースルートからの相対パスから.javaを除いたもの，例: p/B.java -> p.B）
+   * JavaParserTypeSolverは型名からファイルを探すため，このファイルから解決される型はこの名前か，
+   * その入れ子の型（p.B.Inner）に限られる．ソースルートの外ならnull．
+   */
+  public String typeNameOf(Path file) {
+    Path normalized = file.toAbsolutePath().normalize();
+    if (!normalized.startsWith(sourceRoot) || normalized.equals(sourceRoot)) {
+      return null;
+    }
+    String relative = sourceRoot.relativize(normalized).toString();
+    if (relative.endsWith(".java")) {
+      relative = relative.substring(0, relative.length() - ".java".length());
+    }
+    return relative.replace(normalized.getFileSystem().getSeparator(), ".");
+  }
+
+  /** 変更されたファイルの解析済みASTと，そのファイルが宣言しうる型の探索結果を破棄 */
+  public void invalidate(Path file) {
+    String typeName = typeNameOf(file);
+    if (typeName == null) {
+      return;
+    }
+    Path normalized = file.toAbsolutePath().normalize();
+    parsedFiles.invalidate(normalized);
+    if (normalized.getParent() != null) {
+      parsedDirectories.invalidate(normalized.getParent());
+    }
+    evictType(foundTypes, typeName);
+  }
+
+  /** 型名typeNameとその入れ子の型の探索結果を破棄 */
+  static void evictType(Cache<String, ?> cache, String typeName) {
+    String nested = typeName + ".";
+    cache.asMap().keySet().removeIf(name -> name.equals(typeName) || name.startsWith(nested));
+  }
+
+  private static <K, V> Cache<K, V> newCache() {
+    return CacheBuilder.newBuilder().softValues().build();
+  }
+}
@@ -0,0 +1,351 @@
+package com.example.parser.resolution;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+/**
+ * 1つのCompilationUnitに対する型解決の窓口
+ * 結果はファイル間で共有されるResolutionCacheにメモ化する．
+ * 解決に失敗した場合は元の例外をそのまま送出する（呼び出し側のスキップ処理は従来どおり）．
+ * 失敗もResolutionCacheに記録し，同じ文脈で同じ解決を再び求められたらCachedResolutionFailureを投げる．
+ */
+public class TypeResolver {
+  private static final String DESCRIBE = "describe";
+  private static final String QUALIFIED_NAME = "qualifiedName";
+  private static final String METHOD_DECLARING_TYPE = "methodDeclaringType";
+  private static final String METHOD_CALL = "methodCall";
+
+  private final ResolutionCache cache;
+  private final String context;
+  private final int lookup;
+
+  // このファイルでの解決の成功・失敗回数（キャッシュヒットは成功に数える）
+  private long resolvedCount;
+  private long failedCount;
+
+  // 解決できなかった型の単純名（その名前の型が追加されたら解析し直す対象の判定に使う）
+  private final Set<String> unresolvedNames = new TreeSet<>();
+
+  /** モジュールを区別しない場合（どのファイルからも同じ型が見える） */
+  public TypeResolver(ResolutionCache cache, CompilationUnit cu) {
+    this(cache, cu, -1);
+  }
+
+  /**
+   * @param lookup ファイルから見える型の範囲（WorkspaceTypeSolver.currentLookup()）．
+   *     モジュールやその本体・テストが異なれば，同じ文脈でも別のキーで記録する
+   */
+  public TypeResolver(ResolutionCache cache, CompilationUnit cu, int lookup) {
+    this(cache, importContext(cu), lookup);
+  }
+
+  private TypeResolver(ResolutionCache cache, String context, int lookup) {
+    this.cache = cache;
+    this.context = context;
+    this.lookup = lookup;
+  }
+
+  /** 同じファイルを別スレッドで解決するための複製（キャッシュは共有し，カウンタは別に持つ） */
+  public TypeResolver fork() {
+    return new TypeResolver(cache, context, lookup);
+  }
+
+  /** fork()した複製のカウンタと解決できなかった型名を加算 */
+  public void join(TypeResolver fork) {
+    resolvedCount += fork.resolvedCount;
+    failedCount += fork.failedCount;
+    unresolvedNames.addAll(fork.unresolvedNames);
+  }
+
+  /**
+   * type.resolve().describe() と同じ結果を返す
+   * varと省略されたラムダ引数の型は型テキストが同じでも初期化式ごとに解決先が変わるため，
+   * プリミティブ型・voidと同様にキャッシュ（失敗の記録を含む）を使わない．
+   */
+  public String describe(Type type) {
+    if (type.isPrimitiveType()
+        || type.isVoidType()
+        || type.isVarType()
+        || type.isUnknownType()) {
+      return count(() -> type.resolve().describe());
+    }
+    return count(type, () -> resolve(DESCRIBE, type, ResolvedType::describe));
+  }
+
+  /** type.resolve().asReferenceType().getQualifiedName() と同じ結果を返す */
+  public String qualifiedName(ClassOrInterfaceType type) {
+    return count(
+        type,
+        () ->
+            resolve(
+                QUALIFIED_NAME, type, resolved -> resolved.asReferenceType().getQualifiedName()));
+  }
+
+  /**
+   * 呼び出し先メソッドを宣言している型の完全修飾名
+   * 成功した結果はキャッシュしないが，失敗はレシーバ型・メソッド名・引数型が同じ呼び出しで共有する．
+   * キーの作成にはレシーバと引数の型解決が要るため，同じ名前のメソッドの解決に失敗したことがなければ
+   * キーを作らずに解決し，失敗したときに初めてキーを作って記録する．
+   */
+  public String declaringType(MethodCallExpr call) {
+    return count(
+        () -> {
+          if (!cache.isEnabled()) {
+            return resolveDeclaringType(call);
+          }
+          String name = call.getNameAsString();
+          try {
+            if (cache.hasFailedCall(name)) {
+              return rememberFailure(failureKey(call), () -> resolveDeclaringType(call));
+            }
+            try {
+              return resolveDeclaringType(call);
+            } catch (RuntimeException e) {
+              cache.putCallFailure(name, failureKey(call), e.getMessage());
+              throw e;
+            }
+          } catch (RuntimeException e) {
+            // 慣例上の型名への静的呼び出しは，その型が追加されれば解決できるようになりうる
+            staticScopeName(call).ifPresent(unresolvedNames::add);
+            throw e;
+          }
+        });
+  }
+
+  /**
+   * ライブラリ型のレシーバに対する呼び出しの宣言型（declaringType()と同じ結果）
+   * ライブラリ型はワークスペースの編集で変わらないため，レシーバ型・メソッド名・引数型が同じ呼び出しは
+   * ResolutionCacheでファイル間で共有する．引数の型が決まらない場合は毎回解決する．
+   */
+  public String libraryDeclaringType(MethodCallExpr call, ResolvedType receiver) {
+    return count(
+        () -> {
+          String signature = cache.isEnabled() ? callSignature(call, receiver) : null;
+          if (signature == null) {
+            return resolveDeclaringType(call);
+          }
+          ResolutionCache.Key key =
+              new ResolutionCache.Key(METHOD_DECLARING_TYPE, signature, "", "", lookup);
+          String cached = cache.get(key);
+          if (cached != null) {
+            return cached;
+          }
+          return rememberFailure(
+              key,
+              () -> {
+                String value = resolveDeclaringType(call);
+                cache.put(key, value, null);
+                return value;
+              });
+        });
+  }
+
+  /** 解決するまでもなく失敗が分かっている呼び出しを失敗として数える */
+  public void recordFailure() {
+    failedCount++;
+  }
+
+  public long getResolvedCount() {
+    return resolvedCount;
+  }
+
+  public long getFailedCount() {
+    return failedCount;
+  }
+
+  /** このファイルで解決できなかった型の単純名 */
+  public Set<String> getUnresolvedNames() {
+    return Collections.unmodifiableSet(unresolvedNames);
+  }
+
+  private String count(Supplier<String> resolution) {
+    try {
+      String value = resolution.get();
+      resolvedCount++;
+      return value;
+    } catch (RuntimeException e) {
+      failedCount++;
+      throw e;
+    }
+  }
+
+  // typeの解決に失敗したら，typeに含まれる型名を解決できなかった名前として記録する
+  private String count(Type type, Supplier<String> resolution) {
+    try {
+      return count(resolution);
+    } catch (RuntimeException e) {
+      for (ClassOrInterfaceType name : type.findAll(ClassOrInterfaceType.class)) {
+        unresolvedNames.add(name.getNameAsString());
+      }
+      throw e;
+    }
+  }
+
+  // keyの解決が以前に失敗していれば解決せずに失敗とし，新たに失敗したら記録する（keyがnullなら常に解決）
+  private String rememberFailure(ResolutionCache.Key key, Supplier<String> resolution) {
+    if (key == null) {
+      return resolution.get();
+    }
+    String failure = cache.getFailure(key);
+    if (failure != null) {
+      throw new CachedResolutionFailure(failure);
+    }
+    try {
+      return resolution.get();
+    } catch (RuntimeException e) {
+      cache.putFailure(key, e.getMessage());
+      throw e;
+    }
+  }
+
+  // 呼び出しの失敗を共有するキー（レシーバ型#メソッド名(引数型,...)）
+  // レシーバの型が決まればファイル間で共有し，修飾なし・型名の呼び出しはインポートと囲んでいる型でも区別する
+  private ResolutionCache.Key failureKey(MethodCallExpr call) {
+    Optional<Expression> scope = call.getScope();
+    if (scope.isEmpty()
+        || (scope.get().isNameExpr()
+            && Character.isUpperCase(scope.get().asNameExpr().getNameAsString().charAt(0)))) {
+      // 慣例上の型名（静的呼び出し）は値として型を求めると失敗するため名前のまま使う
+      String receiver = scope.map(name -> "static " + name).orElse("");
+      String signature = argumentSignature(call, receiver);
+      return signature == null
+          ? null
+          : new ResolutionCache.Key(
+              METHOD_CALL, signature, context, enclosingTypeName(call), lookup);
+    }
+    ResolvedType receiver;
+    try {
+      receiver = scope.get().calculateResolvedType();
+    } catch (RuntimeException e) {
+      return null;
+    }
+    String signature = callSignature(call, receiver);
+    return signature == null
+        ? null
+        : new ResolutionCache.Key(METHOD_CALL, signature, "", "", lookup);
+  }
+
+  // 慣例上の型名（大文字で始まる名前）をレシーバとする呼び出しならその名前
+  private static Optional<String> staticScopeName(MethodCallExpr call) {
+    return call.getScope()
+        .filter(Expression::isNameExpr)
+        .map(scope -> scope.asNameExpr().getNameAsString())
+        .filter(name -> Character.isUpperCase(name.charAt(0)));
+  }
+
+  private static String resolveDeclaringType(MethodCallExpr call) {
+    ResolvedMethodDeclaration resolved = call.resolve();
+    return resolved.getPackageName() + "." + resolved.getClassName();
+  }
+
+  // レシーバ型#メソッド名(引数型,...)．ラムダ式・メソッド参照・型引数つきの呼び出しは対象外（null）
+  private static String callSignature(MethodCallExpr call, ResolvedType receiver) {
+    return argumentSignature(call, receiver.describe());
+  }
+
+  private static String argumentSignature(MethodCallExpr call, String receiver) {
+    if (call.getTypeArguments().isPresent()) {
+      return null;
+    }
+    StringJoiner signature =
+        new StringJoiner(",", receiver + "#" + call.getNameAsString() + "(", ")");
+    for (Expression argument : call.getArguments()) {
+      if (argument.isLambdaExpr() || argument.isMethodReferenceExpr()) {
+        return null;
+      }
+      try {
+        signature.add(argument.calculateResolvedType().describe());
+      } catch (RuntimeException e) {
+        return null;
+      }
+    }
+    return signature.toString();
+  }
+
+  private String resolve(String kind, Type type, Function<ResolvedType, String> projection) {
+    if (!cache.isEnabled()) {
+      return projection.apply(type.resolve());
+    }
+
+    ResolutionCache.Key key =
+        new ResolutionCache.Key(
+            kind, type.asString(), context, enclosingTypeName(type), lookup);
+    String cached = cache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    return rememberFailure(
+        key,
+        () -> {
+          ResolvedType resolved = type.resolve();
+          String value = projection.apply(resolved);
+          cache.put(key, value, declaringFile(resolved));
+          return value;
+        });
+  }
+
+  // 同じ型テキストでもパッケージ・インポートが異なれば解決先が変わる
+  private static String importContext(CompilationUnit cu) {
+    StringBuilder sb = new StringBuilder();
+    cu.getPackageDeclaration().ifPresent(pkg -> sb.append(pkg.getNameAsString()));
+    for (ImportDeclaration importDeclaration : cu.getImports()) {
+      sb.append(';');
+      if (importDeclaration.isStatic()) {
+        sb.append("static ");
+      }
+      sb.append(importDeclaration.getNameAsString());
+      if (importDeclaration.isAsterisk()) {
+        sb.append(".*");
+      }
+    }
+    return sb.toString();
+  }
+
+  // ネストした型や型パラメータは囲んでいる型によって解決先が変わる
+  private static String enclosingTypeName(Node node) {
+    Optional<Node> current = node.getParentNode();
+    while (current.isPresent()) {
+      if (current.get() instanceof TypeDeclaration<?> decl) {
+        return decl.getFullyQualifiedName().orElse("");
+      }
+      current = current.get().getParentNode();
+    }
+    return "";
+  }
+
+  private static String declaringFile(ResolvedType resolved) {
+    ResolvedType type = resolved;
+    while (type.isArray()) {
+      type = type.asArrayType().getComponentType();
+    }
+    if (!type.isReferenceType()) {
+      return null;
+    }
+    Optional<ResolvedReferenceTypeDeclaration> declaration =
+        type.asReferenceType().getTypeDeclaration();
+    return declaration
+        .flatMap(ResolvedReferenceTypeDeclaration::toAst)
+        .flatMap(Node::findCompilationUnit)
+        .flatMap(CompilationUnit::getStorage)
+        .map(storage -> storage.getPath().toString())
+        .orElse(null);
+  }
+}
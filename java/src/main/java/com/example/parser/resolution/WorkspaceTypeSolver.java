@@ -0,0 +1,201 @@
+package com.example.parser.resolution;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * ワークスペース全体のTypeSolver
+ * JDK -> ソースルート（解析中のファイルが属するモジュールから見た探索順）-> 依存jarの順に型を探す．
+ * ソースルートごとにSourceRootSolverを持ち，型探索の結果は探索順（モジュールの本体・テストごと）にキャッシュする．
+ * テストのソースルートは同じモジュールのテストのファイルからだけ探す．
+ * 解析中の探索順はスレッドごとに{@link #enter(Path)}で切り替える．
+ */
+public final class WorkspaceTypeSolver implements TypeSolver {
+  private final ModuleLayout layout;
+  private final TypeSolver jdkSolver;
+  private final List<SourceRootSolver> sourceRootSolvers;
+  private volatile TypeSolver classpathSolver;
+  // 探索順ごとのソースルートと型探索結果（添字0はどのモジュールにも属さないファイル用，
+  // 以降はモジュールごとに本体・テストの順）
+  private final List<Lookup> lookups;
+  private final ThreadLocal<Integer> currentLookup = ThreadLocal.withInitial(() -> -1);
+  private TypeSolver parent;
+
+  /**
+   * @param classpathSolver 依存jarのTypeSolver（なければnull）
+   */
+  public WorkspaceTypeSolver(
+      ModuleLayout layout,
+      ParserConfiguration.LanguageLevel languageLevel,
+      TypeSolver classpathSolver) {
+    this.layout = layout;
+    this.jdkSolver = new ReflectionTypeSolver();
+    this.classpathSolver = classpathSolver;
+
+    this.sourceRootSolvers = new ArrayList<>();
+    Map<Path, TypeSolver> byRoot = new HashMap<>();
+    for (Path root : layout.getSourceRoots()) {
+      SourceRootSolver solver = new SourceRootSolver(root, languageLevel);
+      sourceRootSolvers.add(solver);
+      byRoot.put(root, solver.getTypeSolver());
+    }
+
+    int moduleCount = layout.getModules().size();
+    this.lookups = new ArrayList<>(moduleCount * 2 + 1);
+    lookups.add(newLookup(layout.lookupOrder(-1, false), byRoot));
+    for (int module = 0; module < moduleCount; module++) {
+      lookups.add(newLookup(layout.lookupOrder(module, false), byRoot));
+      lookups.add(newLookup(layout.lookupOrder(module, true), byRoot));
+    }
+
+    // 委譲先から型を探し直すときもこのTypeSolverを通す（finalなクラスなので構築途中の参照は漏れない）
+    jdkSolver.setParent(this);
+    for (SourceRootSolver solver : sourceRootSolvers) {
+      solver.getTypeSolver().setParent(this);
+    }
+    if (classpathSolver != null) {
+      classpathSolver.setParent(this);
+    }
+  }
+
+  /**
+   * 依存jarのTypeSolverを差し替え（nullなら依存jarを探さない），記録していた型探索の結果を全て破棄する
+   * 解析中に呼ばないこと（呼び出し側で解析と排他にする）．
+   */
+  public void setClasspathSolver(TypeSolver classpathSolver) {
+    if (classpathSolver != null) {
+      classpathSolver.setParent(this);
+    }
+    this.classpathSolver = classpathSolver;
+    for (Lookup lookup : lookups) {
+      lookup.types().invalidateAll();
+    }
+  }
+
+  public List<SourceRootSolver> getSourceRootSolvers() {
+    return sourceRootSolvers;
+  }
+
+  /**
+   * 現在のスレッドの探索順をfileが属するモジュール（本体かテストか）のものに切り替え，切り替え前の探索順を返す
+   * 解析後は戻り値を{@link #exit(int)}に渡して元に戻す．
+   */
+  public int enter(Path file) {
+    Path normalized = file.toAbsolutePath().normalize();
+    int module = layout.moduleOf(normalized);
+    if (module < 0) {
+      return enter(-1);
+    }
+    return enter(module * 2 + (layout.isTestSource(module, normalized) ? 1 : 0));
+  }
+
+  /** 現在のスレッドの探索順を{@link #currentLookup()}の値で切り替える（別スレッドへ解析を引き継ぐとき用） */
+  public int enter(int lookup) {
+    int previous = currentLookup.get();
+    currentLookup.set(lookup);
+    return previous;
+  }
+
+  public void exit(int previous) {
+    currentLookup.set(previous);
+  }
+
+  /**
+   * 現在のスレッドの探索順（どのモジュールにも属さなければ-1）
+   * モジュールごとに本体とテストで異なる値になり，同じ値なら同じ型が見える．
+   */
+  public int currentLookup() {
+    return currentLookup.get();
+  }
+
+  /**
+   * 変更されたファイルを含むソースルートの解析済みASTと，そのファイルが宣言しうる型（入れ子の型を含む）の
+   * 探索結果を，そのソースルートを探す探索順のキャッシュからだけ破棄する
+   * （追加されたファイルの型について記録していた未解決の結果も破棄される）．
+   */
+  public void invalidate(Path file) {
+    for (SourceRootSolver solver : sourceRootSolvers) {
+      String typeName = solver.typeNameOf(file);
+      if (typeName == null) {
+        continue;
+      }
+      solver.invalidate(file);
+      for (Lookup lookup : lookups) {
+        if (lookup.roots().contains(solver.getSourceRoot())) {
+          SourceRootSolver.evictType(lookup.types(), typeName);
+        }
+      }
+    }
+  }
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (parent == null) {
+      throw new NullPointerException("parent for type solver can't be null");
+    }
+    if (parent == this) {
+      throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+    }
+    if (this.parent != null) {
+      throw new IllegalStateException("This TypeSolver already has a parent.");
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    Lookup lookup = lookups.get(currentLookup.get() + 1);
+    SymbolReference<ResolvedReferenceTypeDeclaration> cached = lookup.types().getIfPresent(name);
+    if (cached != null) {
+      return cached;
+    }
+
+    SymbolReference<ResolvedReferenceTypeDeclaration> result = jdkSolver.tryToSolveType(name);
+    if (!result.isSolved()) {
+      for (TypeSolver solver : lookup.order()) {
+        result = solver.tryToSolveType(name);
+        if (result.isSolved()) {
+          break;
+        }
+      }
+    }
+    TypeSolver classpath = classpathSolver;
+    if (!result.isSolved() && classpath != null) {
+      result = classpath.tryToSolveType(name);
+    }
+    lookup.types().put(name, result);
+    return result;
+  }
+
+  private static Lookup newLookup(List<Path> roots, Map<Path, TypeSolver> byRoot) {
+    List<TypeSolver> order = new ArrayList<>(roots.size());
+    for (Path root : roots) {
+      order.add(byRoot.get(root));
+    }
+    return new Lookup(
+        order, Set.copyOf(roots), CacheBuilder.newBuilder().softValues().build());
+  }
+
+  // 探索順（ソースルートのTypeSolver）とその順で探した型の結果
+  private record Lookup(
+      List<TypeSolver> order,
+      Set<Path> roots,
+      Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> types) {}
+}
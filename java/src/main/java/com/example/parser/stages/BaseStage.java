@@ -4,7 +4,6 @@ import java.util.List;
 import java.util.logging.Logger;
 
 import com.example.parser.models.CodeGraph;
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 
@@ -12,13 +11,21 @@ public abstract class BaseStage {
 
   private static final Logger logger = Logger.getLogger(BaseStage.class.getName());
 
+  // サブクラスで実装: 参照するASTノードの種類（融合モードでの一括走査に使用）
+  public abstract List<Class<? extends Node>> getNodeKinds();
+
+  // 型解決とグラフへの辺の追加だけを行うStageはtrue（同じファイルの他のStageと並行に実行できる）
+  public boolean isIndependent() {
+    return false;
+  }
+
   // Pipeline Stage - 共通の処理フローを定義（デフォルト実装）
-  public void process(CompilationUnit cu, CodeGraph codeGraph) {
-    List<? extends Node> nodes = extractNodes(cu);
+  public void process(StageContext context, CodeGraph codeGraph) {
+    List<? extends Node> nodes = extractNodes(context);
 
     for (Node node : nodes) {
       try {
-        processNode(node, codeGraph);
+        processNode(node, context, codeGraph);
       } catch (Exception e) {
         handleError(node, e);
       }
@@ -26,12 +33,13 @@ public abstract class BaseStage {
   }
 
   // サブクラスで実装: 解析対象のノードを抽出（オプション）
-  protected List<? extends Node> extractNodes(CompilationUnit cu) {
+  protected List<? extends Node> extractNodes(StageContext context) {
     return List.of();
   }
 
   // サブクラスで実装: ノードを処理してグラフに追加（オプション）
-  protected void processNode(Node node, CodeGraph codeGraph) throws Exception {
+  protected void processNode(Node node, StageContext context, CodeGraph codeGraph)
+      throws Exception {
     // デフォルトは何もしない
   }
 
@@ -4,7 +4,7 @@ import java.util.List;
 import java.util.function.Function;
 
 import com.example.parser.models.CodeGraph;
-import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.AnnotationDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.EnumDeclaration;
@@ -12,9 +12,15 @@ import com.github.javaparser.ast.body.EnumDeclaration;
 public class ClassTypeStage extends BaseStage {
 
   @Override
-  public void process(CompilationUnit cu, CodeGraph codeGraph) {
+  public List<Class<? extends Node>> getNodeKinds() {
+    return List.of(
+        ClassOrInterfaceDeclaration.class, EnumDeclaration.class, AnnotationDeclaration.class);
+  }
+
+  @Override
+  public void process(StageContext context, CodeGraph codeGraph) {
     List<ClassOrInterfaceDeclaration> classOrInterfaces =
-        cu.findAll(ClassOrInterfaceDeclaration.class);
+        context.findAll(ClassOrInterfaceDeclaration.class);
 
     // Classの収集
     for (ClassOrInterfaceDeclaration decl : classOrInterfaces) {
@@ -24,12 +30,12 @@ public class ClassTypeStage extends BaseStage {
     }
 
     setNodeType(
-        cu.findAll(EnumDeclaration.class),
+        context.findAll(EnumDeclaration.class),
         codeGraph,
         "Enum",
         decl -> decl.getFullyQualifiedName().orElse("Unknown"));
     setNodeType(
-        cu.findAll(AnnotationDeclaration.class),
+        context.findAll(AnnotationDeclaration.class),
         codeGraph,
         "Annotation",
         decl -> decl.getFullyQualifiedName().orElse("Unknown"));
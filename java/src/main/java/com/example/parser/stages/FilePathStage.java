@@ -4,7 +4,7 @@ import java.util.List;
 import java.util.function.Function;
 
 import com.example.parser.models.CodeGraph;
-import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.AnnotationDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.EnumDeclaration;
@@ -12,22 +12,28 @@ import com.github.javaparser.ast.body.EnumDeclaration;
 public class FilePathStage extends BaseStage {
 
   @Override
-  public void process(CompilationUnit cu, CodeGraph codeGraph) {
-    cu.getStorage().ifPresent(storage -> {
+  public List<Class<? extends Node>> getNodeKinds() {
+    return List.of(
+        ClassOrInterfaceDeclaration.class, EnumDeclaration.class, AnnotationDeclaration.class);
+  }
+
+  @Override
+  public void process(StageContext context, CodeGraph codeGraph) {
+    context.getCompilationUnit().getStorage().ifPresent(storage -> {
       String filePath = storage.getPath().toString();
 
       setFilePath(
-          cu.findAll(ClassOrInterfaceDeclaration.class),
+          context.findAll(ClassOrInterfaceDeclaration.class),
           codeGraph,
           filePath,
           BaseStage::getFullyQualifiedName);
       setFilePath(
-          cu.findAll(EnumDeclaration.class),
+          context.findAll(EnumDeclaration.class),
           codeGraph,
           filePath,
           decl -> decl.getFullyQualifiedName().orElse("Unknown"));
       setFilePath(
-          cu.findAll(AnnotationDeclaration.class),
+          context.findAll(AnnotationDeclaration.class),
           codeGraph,
           filePath,
           decl -> decl.getFullyQualifiedName().orElse("Unknown"));
@@ -3,7 +3,6 @@ package com.example.parser.stages;
 import java.util.List;
 
 import com.example.parser.models.CodeGraph;
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.AnnotationDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
@@ -13,9 +12,16 @@ import com.github.javaparser.ast.body.EnumDeclaration;
 public class LinesOfCodeStage extends BaseStage {
 
   @Override
-  public void process(CompilationUnit cu, CodeGraph codeGraph) {
+  public List<Class<? extends Node>> getNodeKinds() {
+    return List.of(
+        ClassOrInterfaceDeclaration.class, EnumDeclaration.class, AnnotationDeclaration.class);
+  }
+
+  @Override
+  public void process(StageContext context, CodeGraph codeGraph) {
     // クラス/インターフェースの行数収集
-    List<ClassOrInterfaceDeclaration> classOrInterfaces = cu.findAll(ClassOrInterfaceDeclaration.class);
+    List<ClassOrInterfaceDeclaration> classOrInterfaces =
+        context.findAll(ClassOrInterfaceDeclaration.class);
 
     for (ClassOrInterfaceDeclaration decl : classOrInterfaces) {
       String className = getFullyQualifiedName(decl);
@@ -24,7 +30,7 @@ public class LinesOfCodeStage extends BaseStage {
     }
 
     // Enumの行数収集
-    List<EnumDeclaration> enums = cu.findAll(EnumDeclaration.class);
+    List<EnumDeclaration> enums = context.findAll(EnumDeclaration.class);
     for (EnumDeclaration enumDecl : enums) {
       String enumName = enumDecl.getFullyQualifiedName().orElse("Unknown");
       int linesOfCode = calculateLinesOfCode(enumDecl);
@@ -32,7 +38,7 @@ public class LinesOfCodeStage extends BaseStage {
     }
 
     // アノテーションの行数収集
-    List<AnnotationDeclaration> annotations = cu.findAll(AnnotationDeclaration.class);
+    List<AnnotationDeclaration> annotations = context.findAll(AnnotationDeclaration.class);
     for (AnnotationDeclaration annotationDecl : annotations) {
       String annotationName = annotationDecl.getFullyQualifiedName().orElse("Unknown");
       int linesOfCode = calculateLinesOfCode(annotationDecl);
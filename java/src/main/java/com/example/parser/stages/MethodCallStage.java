@@ -1,26 +1,216 @@
 package com.example.parser.stages;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import com.example.parser.models.CodeGraph;
+import com.example.parser.resolution.TypeResolver;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedType;
 
 public class MethodCallStage extends BaseStage {
 
+  // Objectから継承されるメソッド（自クラスの宣言だけでは呼び出し先を決められない）
+  private static final Set<String> OBJECT_METHODS =
+      Set.of(
+          "equals", "hashCode", "toString", "getClass", "notify", "notifyAll", "wait", "clone",
+          "finalize");
+
+  private final boolean lazy;
+
+  public MethodCallStage() {
+    this(false);
+  }
+
+  /**
+   * @param lazy trueの場合，呼び出しをレシーバの種類でまとめて必要な分だけ解決する
+   *     （自クラス内の呼び出しは解決せずに辺を追加し，ライブラリ型・型不明のレシーバへの呼び出しは最後にまとめて解決）
+   */
+  public MethodCallStage(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  @Override
+  public boolean isIndependent() {
+    return true;
+  }
+
+  @Override
+  public List<Class<? extends Node>> getNodeKinds() {
+    return List.of(MethodCallExpr.class);
+  }
+
+  @Override
+  public void process(StageContext context, CodeGraph codeGraph) {
+    if (!lazy) {
+      super.process(context, codeGraph);
+      return;
+    }
+
+    TypeResolver resolver = context.getTypeResolver();
+    List<Deferred> deferred = new ArrayList<>();
+    for (MethodCallExpr call : context.findAll(MethodCallExpr.class)) {
+      try {
+        String targetClassName = enclosingDeclaringType(call);
+        if (targetClassName == null) {
+          Optional<Expression> scope = call.getScope();
+          if (scope.isPresent() && !scope.get().isThisExpr()) {
+            Expression receiverScope = scope.get();
+            ResolvedType receiver;
+            if (isTypeName(receiverScope)) {
+              receiver = null;
+            } else {
+              try {
+                receiver = receiverScope.calculateResolvedType();
+              } catch (RuntimeException e) {
+                // 値として型が決まらないレシーバへの呼び出しは解決しても失敗するため辺を追加しない
+                if (!receiverScope.isFieldAccessExpr()) {
+                  resolver.recordFailure();
+                  handleError(call, e);
+                  continue;
+                }
+                // 修飾された型名（java.util.Objects.equals()など）の可能性がある
+                receiver = null;
+              }
+            }
+            if (receiver == null || !isSourceType(receiver)) {
+              // ライブラリ型・型名のレシーバ（流れるようなAPIの連鎖など）は後回し
+              deferred.add(new Deferred(call, receiver));
+              continue;
+            }
+          }
+          targetClassName = resolver.declaringType(call);
+        }
+        codeGraph.addReferNode(getSourceClassName(call), targetClassName, "MethodCall");
+      } catch (Exception e) {
+        handleError(call, e);
+      }
+    }
+
+    // レシーバ型・メソッド名・引数型が同じ呼び出しは解決結果を共有する
+    for (Deferred entry : deferred) {
+      try {
+        String targetClassName =
+            entry.receiver() == null
+                ? resolver.declaringType(entry.call())
+                : resolver.libraryDeclaringType(entry.call(), entry.receiver());
+        codeGraph.addReferNode(getSourceClassName(entry.call()), targetClassName, "MethodCall");
+      } catch (Exception e) {
+        handleError(entry.call(), e);
+      }
+    }
+  }
+
   @Override
-  protected List<? extends Node> extractNodes(CompilationUnit cu) {
-    return cu.findAll(MethodCallExpr.class);
+  protected List<? extends Node> extractNodes(StageContext context) {
+    return context.findAll(MethodCallExpr.class);
   }
 
   @Override
-  protected void processNode(Node node, CodeGraph codeGraph) throws Exception {
+  protected void processNode(Node node, StageContext context, CodeGraph codeGraph)
+      throws Exception {
     MethodCallExpr call = (MethodCallExpr) node;
 
-    var resolved = call.resolve();
-    String targetClassName = resolved.getPackageName() + "." + resolved.getClassName();
+    String targetClassName;
+    try {
+      targetClassName = context.getTypeResolver().declaringType(call);
+    } catch (RuntimeException e) {
+      // JavaParserはラムダ式やnewの引数の中の呼び出しを解決できないことがある．
+      // 自クラスのメソッドの呼び出しなら，遅延モードと同じく宣言から宣言型を決める（両モードの重みを揃える）
+      targetClassName = enclosingDeclaringType(call);
+      if (targetClassName == null) {
+        throw e;
+      }
+    }
     String sourceClassName = getSourceClassName(call);
     codeGraph.addReferNode(sourceClassName, targetClassName, "MethodCall");
   }
+
+  // 修飾なし（またはthis.）の呼び出しで，囲んでいるクラス自身が同名・同数引数のメソッドを宣言していれば
+  // 解決せずにそのクラスを宣言型とする（継承元の多重定義と衝突しうるextendsつきのクラスと，
+  // インターフェースのdefaultメソッドの多重定義と衝突しうるimplementsつきのクラスは対象外）
+  private static String enclosingDeclaringType(MethodCallExpr call) {
+    Optional<Expression> scope = call.getScope();
+    if (scope.isPresent()
+        && (!scope.get().isThisExpr() || scope.get().asThisExpr().getTypeName().isPresent())) {
+      return null;
+    }
+    String name = call.getNameAsString();
+    if (OBJECT_METHODS.contains(name)) {
+      return null;
+    }
+    ClassOrInterfaceDeclaration owner = enclosingClass(call);
+    if (owner == null
+        || owner.isInterface()
+        || !owner.getExtendedTypes().isEmpty()
+        || !owner.getImplementedTypes().isEmpty()) {
+      return null;
+    }
+    int arity = call.getArguments().size();
+    boolean declared = false;
+    for (MethodDeclaration method : owner.getMethodsByName(name)) {
+      declared |= method.getParameters().size() == arity;
+    }
+    if (!declared) {
+      return null;
+    }
+    // 解決結果（パッケージ名 + "." + クラス名）と同じ形式にする
+    String packageName =
+        owner
+            .findCompilationUnit()
+            .flatMap(CompilationUnit::getPackageDeclaration)
+            .map(pkg -> pkg.getNameAsString())
+            .orElse("");
+    return owner
+        .getFullyQualifiedName()
+        .map(fqn -> packageName.isEmpty() ? "." + fqn : fqn)
+        .orElse(null);
+  }
+
+  // 最も内側の型宣言（クラス以外の型や匿名クラスの中ならnull）
+  private static ClassOrInterfaceDeclaration enclosingClass(Node node) {
+    Optional<Node> parent = node.getParentNode();
+    while (parent.isPresent()) {
+      Node current = parent.get();
+      if (current instanceof ClassOrInterfaceDeclaration decl) {
+        return decl;
+      }
+      if (current instanceof TypeDeclaration<?>
+          || (current instanceof ObjectCreationExpr creation
+              && creation.getAnonymousClassBody().isPresent())) {
+        return null;
+      }
+      parent = current.getParentNode();
+    }
+    return null;
+  }
+
+  // 慣例上型名とみなせるレシーバ（静的呼び出し）．値として型を求めると例外になるため先に除く
+  private static boolean isTypeName(Expression scope) {
+    return scope.isNameExpr()
+        && Character.isUpperCase(scope.asNameExpr().getNameAsString().charAt(0));
+  }
+
+  // ワークスペースのソースで宣言された型（配列・型変数は宣言元が分からないためこちらに含める）
+  private static boolean isSourceType(ResolvedType type) {
+    if (!type.isReferenceType()) {
+      return true;
+    }
+    return type.asReferenceType()
+        .getTypeDeclaration()
+        .flatMap(ResolvedReferenceTypeDeclaration::toAst)
+        .isPresent();
+  }
+
+  private record Deferred(MethodCallExpr call, ResolvedType receiver) {}
 }
@@ -0,0 +1,90 @@
+package com.example.parser.stages;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.parser.resolution.TypeResolver;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+
+/**
+ * Stageに渡す解析対象のコンテキスト
+ * 融合モードではCompilationUnitを1回だけ走査し，各Stageが登録したノード種別ごとに
+ * cu.findAll()と同じ順序（前順）でノードを振り分けておく．
+ */
+public class StageContext {
+  private final CompilationUnit compilationUnit;
+  private final Map<Class<? extends Node>, List<Node>> nodesByKind;
+  private final TypeResolver typeResolver;
+
+  // findAll()で各Stageに渡したノード数（計測用）
+  private long visitedNodes;
+
+  private StageContext(
+      CompilationUnit compilationUnit,
+      Map<Class<? extends Node>, List<Node>> nodesByKind,
+      TypeResolver typeResolver) {
+    this.compilationUnit = compilationUnit;
+    this.nodesByKind = nodesByKind;
+    this.typeResolver = typeResolver;
+  }
+
+  /** Stageごとにcu.findAll()で走査するコンテキストを作成 */
+  public static StageContext multiPass(CompilationUnit cu, TypeResolver typeResolver) {
+    return new StageContext(cu, Map.of(), typeResolver);
+  }
+
+  /** 指定したノード種別を1回の走査でまとめて収集するコンテキストを作成 */
+  public static StageContext fused(
+      CompilationUnit cu,
+      Collection<Class<? extends Node>> nodeKinds,
+      TypeResolver typeResolver) {
+    Map<Class<? extends Node>, List<Node>> nodesByKind = new LinkedHashMap<>();
+    for (Class<? extends Node> kind : nodeKinds) {
+      nodesByKind.putIfAbsent(kind, new ArrayList<>());
+    }
+
+    // 走査中はMapを引かずに添字で照合する
+    List<Class<? extends Node>> kinds = new ArrayList<>(nodesByKind.keySet());
+    List<List<Node>> buckets = new ArrayList<>(nodesByKind.values());
+    cu.walk(node -> {
+      for (int i = 0; i < kinds.size(); i++) {
+        if (kinds.get(i).isInstance(node)) {
+          buckets.get(i).add(node);
+        }
+      }
+    });
+    return new StageContext(cu, nodesByKind, typeResolver);
+  }
+
+  public CompilationUnit getCompilationUnit() {
+    return compilationUnit;
+  }
+
+  public TypeResolver getTypeResolver() {
+    return typeResolver;
+  }
+
+  /** cu.findAll(kind)と同じ結果を返す（融合モードでは収集済みのリストを使用） */
+  @SuppressWarnings("unchecked")
+  public <T extends Node> List<T> findAll(Class<T> kind) {
+    List<Node> nodes = nodesByKind.get(kind);
+    List<T> result =
+        nodes == null ? compilationUnit.findAll(kind) : Collections.unmodifiableList((List<T>) nodes);
+    visitedNodes += result.size();
+    return result;
+  }
+
+  /** 別スレッドで実行したStageのコンテキスト（同じファイルを構文解析し直したもの）の走査ノード数を加算 */
+  public void join(StageContext fork) {
+    visitedNodes += fork.visitedNodes;
+  }
+
+  public long getVisitedNodes() {
+    return visitedNodes;
+  }
+}
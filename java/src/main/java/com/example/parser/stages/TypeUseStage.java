@@ -3,7 +3,8 @@ package com.example.parser.stages;
 import java.util.List;
 
 import com.example.parser.models.CodeGraph;
-import com.github.javaparser.ast.CompilationUnit;
+import com.example.parser.resolution.TypeResolver;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
@@ -14,16 +15,29 @@ import com.github.javaparser.ast.expr.VariableDeclarationExpr;
 public class TypeUseStage extends BaseStage {
 
   @Override
-  public void process(CompilationUnit cu, CodeGraph codeGraph) {
+  public boolean isIndependent() {
+    return true;
+  }
+
+  @Override
+  public List<Class<? extends Node>> getNodeKinds() {
+    return List.of(ClassOrInterfaceDeclaration.class, VariableDeclarationExpr.class);
+  }
+
+  @Override
+  public void process(StageContext context, CodeGraph codeGraph) {
+    TypeResolver resolver = context.getTypeResolver();
+
     // クラスごとに処理
-    List<ClassOrInterfaceDeclaration> classes = cu.findAll(ClassOrInterfaceDeclaration.class);
+    List<ClassOrInterfaceDeclaration> classes =
+        context.findAll(ClassOrInterfaceDeclaration.class);
     for (ClassOrInterfaceDeclaration decl : classes) {
       String className = getFullyQualifiedName(decl);
 
       // フィールドの型使用
       for (FieldDeclaration field : decl.getFields()) {
         try {
-          String target = field.getElementType().resolve().describe();
+          String target = resolver.describe(field.getElementType());
           codeGraph.addReferNode(className, target, "TypeUse");
         } catch (Exception e) {
           // 型解決失敗時はスキップ
@@ -33,21 +47,21 @@ public class TypeUseStage extends BaseStage {
       // メソッドの型使用
       for (MethodDeclaration method : decl.getMethods()) {
         // 戻り値型
-        String target = method.getType().resolve().describe();
+        String target = resolver.describe(method.getType());
         codeGraph.addReferNode(className, target, "TypeUse");
         // パラメータ型
         for (Parameter param : method.getParameters()) {
-          String paramTarget = param.getType().resolve().describe();
+          String paramTarget = resolver.describe(param.getType());
           codeGraph.addReferNode(className, paramTarget, "TypeUse");
         }
       }
     }
 
     // ローカル変数の型使用
-    List<VariableDeclarationExpr> vars = cu.findAll(VariableDeclarationExpr.class);
+    List<VariableDeclarationExpr> vars = context.findAll(VariableDeclarationExpr.class);
     for (VariableDeclarationExpr var : vars) {
       for (VariableDeclarator declarator : var.getVariables()) {
-        String target = declarator.getType().resolve().describe();
+        String target = resolver.describe(declarator.getType());
         String source = getSourceClassName(var);
         codeGraph.addReferNode(source, target, "TypeUse");
       }
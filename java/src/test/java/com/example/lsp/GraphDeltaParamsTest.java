@@ -0,0 +1,47 @@
+package com.example.lsp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.parser.models.EdgeKey;
+import com.example.parser.models.GraphDelta;
+
+class GraphDeltaParamsTest {
+  private static final EdgeKey STRONG = new EdgeKey("p.A", "p.B", "MethodCall");
+  private static final EdgeKey WEAK = new EdgeKey("p.A", "p.C", "MethodCall");
+  private static final EdgeKey GONE = new EdgeKey("p.A", "p.D", "TypeUse");
+
+  @Test
+  void sendsEveryLinkWithoutAMinimumWeight() {
+    GraphDeltaParams params = new GraphDeltaParams(delta(), 1);
+
+    assertEquals(List.of("p.B", "p.C"), targets(params.getLinks()));
+    assertEquals(List.of("p.D"), targets(params.getRemovedLinks()));
+  }
+
+  @Test
+  void linksBelowTheMinimumWeightAreSentAsRemoved() {
+    GraphDeltaParams params = new GraphDeltaParams(delta(), 3);
+
+    assertEquals(List.of("p.B"), targets(params.getLinks()));
+    assertEquals(5, params.getLinks().get(0).getWeight());
+    assertEquals(List.of("p.C", "p.D"), targets(params.getRemovedLinks()));
+    assertEquals(0, params.getRemovedLinks().get(0).getWeight());
+  }
+
+  private static GraphDelta delta() {
+    Map<EdgeKey, Integer> edges = new LinkedHashMap<>();
+    edges.put(STRONG, 5);
+    edges.put(WEAK, 2);
+    return new GraphDelta(1, 2, List.of(), List.of(), edges, List.of(GONE));
+  }
+
+  private static List<String> targets(List<GraphDeltaParams.Link> links) {
+    return links.stream().map(GraphDeltaParams.Link::getTarget).toList();
+  }
+}
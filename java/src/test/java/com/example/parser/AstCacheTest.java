@@ -0,0 +1,76 @@
+package com.example.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+class AstCacheTest {
+  private static final String A = "class A {}";
+  private static final String B = "class B { int b; }";
+
+  private final Set<String> open = new HashSet<>();
+
+  @Test
+  void takeReturnsTheAstOnlyForTheSameText() {
+    AstCache cache = new AstCache(10, Long.MAX_VALUE, open::contains);
+    CompilationUnit cu = StaticJavaParser.parse(A);
+    cache.put("A.java", A, cu);
+
+    assertNull(cache.take("A.java", "class A { }"));
+    cache.put("A.java", A, cu);
+    assertSame(cu, cache.take("A.java", A));
+    // 取り出した項目はput()まで保持しない
+    assertNull(cache.take("A.java", A));
+
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void evictsTheLeastRecentlyUsedUnpinnedEntry() {
+    AstCache cache = new AstCache(2, Long.MAX_VALUE, open::contains);
+    open.add("A.java");
+    cache.put("A.java", A, StaticJavaParser.parse(A));
+    cache.put("B.java", B, StaticJavaParser.parse(B));
+    cache.put("C.java", B, StaticJavaParser.parse(B));
+
+    // 開かれているAは残り，固定していないうち古いBが破棄される
+    assertEquals(2, cache.size());
+    assertEquals(AstCache.BYTES_PER_CHAR * (A.length() + B.length()), cache.getWeight());
+    assertNull(cache.take("B.java", B));
+
+    cache.invalidate("C.java");
+    assertEquals(1, cache.size());
+    assertEquals(AstCache.BYTES_PER_CHAR * A.length(), cache.getWeight());
+  }
+
+  @Test
+  void releasesTheStrongReferenceWhenNoLongerPinned() {
+    AstCache cache = new AstCache(20, Long.MAX_VALUE, open::contains);
+    open.add("A.java");
+    cache.put("A.java", A, StaticJavaParser.parse(A));
+    cache.markEdited("B.java");
+    cache.put("B.java", B, StaticJavaParser.parse(B));
+    assertEquals(2, cache.getPinnedCount());
+
+    open.remove("A.java");
+    cache.closed("A.java");
+    assertEquals(1, cache.getPinnedCount());
+
+    // 最近編集したファイルから外れたら固定を外す
+    for (int i = 0; i < 16; i++) {
+      cache.markEdited("Other" + i + ".java");
+    }
+    assertEquals(0, cache.getPinnedCount());
+    assertEquals(2, cache.size());
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.parser.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.parser.models.CodeGraph;
+
+class GraphAggregationTest {
+  @Test
+  void packageIsTheNamePrefixBeforeTheTypeName() {
+    assertEquals("com.example", GraphAggregation.packageOf("com.example.Foo"));
+    assertEquals("java.util", GraphAggregation.packageOf("java.util.Map.Entry"));
+    assertEquals("java.util", GraphAggregation.packageOf("java.util.List<p.A>"));
+    assertEquals(GraphAggregation.DEFAULT_PACKAGE, GraphAggregation.packageOf("Foo"));
+    assertEquals(GraphAggregation.DEFAULT_PACKAGE, GraphAggregation.packageOf("int"));
+  }
+
+  @Test
+  void linksBetweenGroupsSumTheirEdges() {
+    WorkspaceGraph workspace = workspace();
+    GraphAggregation aggregation = GraphAggregation.byPackage();
+    workspace.addAggregation(aggregation);
+
+    AggregatedGraph graph = workspace.aggregate(aggregation, null, 1);
+
+    assertEquals(List.of("a", "b"), ids(graph));
+    assertEquals(1, graph.nodes().get(0).internalLinks());
+    assertEquals(List.of(new AggregatedGraph.Link("a", "b", "MethodCall", 2, 5)), graph.links());
+    assertEquals(List.of(), workspace.aggregate(aggregation, null, 6).links());
+  }
+
+  @Test
+  void expandedGroupIsShownByClass() {
+    WorkspaceGraph workspace = workspace();
+    GraphAggregation aggregation = GraphAggregation.byPackage();
+    workspace.addAggregation(aggregation);
+
+    AggregatedGraph graph = workspace.aggregate(aggregation, "a", 2);
+
+    assertEquals(List.of("b", "a.A", "a.A2"), ids(graph));
+    assertEquals(
+        List.of(
+            new AggregatedGraph.Link("a.A", "b", "MethodCall", 1, 2),
+            new AggregatedGraph.Link("a.A2", "b", "MethodCall", 1, 3)),
+        graph.links());
+    assertThrows(IllegalArgumentException.class, () -> workspace.aggregate(aggregation, "c", 1));
+  }
+
+  @Test
+  void removedFilesAreSubtracted() {
+    WorkspaceGraph workspace = workspace();
+    GraphAggregation aggregation = GraphAggregation.byPackage();
+    workspace.addAggregation(aggregation);
+
+    workspace.remove("A2.java");
+    workspace.remove("A3.java");
+
+    AggregatedGraph graph = workspace.aggregate(aggregation, null, 1);
+    assertEquals(0, graph.nodes().get(0).internalLinks());
+    assertEquals(List.of(new AggregatedGraph.Link("a", "b", "MethodCall", 1, 2)), graph.links());
+  }
+
+  // a.A -> b.B（重み2），a.A2 -> b.B（重み3），a.A -> a.A2（パッケージ内）
+  private static WorkspaceGraph workspace() {
+    WorkspaceGraph workspace = new WorkspaceGraph(new CodeGraph());
+    workspace.update("A.java", fragment("a.A", "b.B", 2));
+    workspace.update("A2.java", fragment("a.A2", "b.B", 3));
+    workspace.update("A3.java", fragment("a.A", "a.A2", 1));
+    return workspace;
+  }
+
+  private static CodeGraph fragment(String source, String target, int weight) {
+    CodeGraph graph = new CodeGraph();
+    graph.addReferNode(source, target, "MethodCall", weight);
+    return graph;
+  }
+
+  private static List<String> ids(AggregatedGraph graph) {
+    return graph.nodes().stream().map(AggregatedGraph.Node::id).toList();
+  }
+}
@@ -0,0 +1,77 @@
+package com.example.parser.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.parser.models.CodeGraph;
+
+class GraphIndexTest {
+  private static final byte[] HASH =
+      GraphIndex.contentHash("class A {}".getBytes(StandardCharsets.UTF_8));
+  private static final byte[] FINGERPRINT = {1, 2, 3};
+
+  @Test
+  void failedEntriesAreMarkedUntilAnalyzedAgain() {
+    GraphIndex index = new GraphIndex();
+    index.putFailed("B.java", HASH, new CodeGraph());
+    index.put("A.java", HASH, new byte[] {1}, new CodeGraph(), Set.of());
+
+    assertTrue(index.get("B.java").failed());
+    assertFalse(index.get("A.java").failed());
+    assertEquals(List.of("B.java"), index.getFailedFilePaths());
+
+    index.put("B.java", HASH, new byte[] {2}, new CodeGraph(), Set.of());
+    assertEquals(List.of(), index.getFailedFilePaths());
+  }
+
+  @Test
+  void failedEntriesAreNotSaved(@TempDir Path dir) throws Exception {
+    GraphIndex index = new GraphIndex();
+    index.put("A.java", HASH, new byte[] {1}, new CodeGraph(), Set.of());
+    index.putFailed("B.java", HASH, new CodeGraph());
+    GraphIndexStore store = new GraphIndexStore(dir.resolve("graph-index.bin"));
+    store.save(index, FINGERPRINT);
+
+    GraphIndex loaded = new GraphIndex();
+    store.load(loaded, FINGERPRINT, CodeGraph::new);
+
+    assertEquals(List.of("A.java"), loaded.getFilePaths());
+    assertNull(loaded.get("B.java"));
+  }
+
+  @Test
+  void unresolvedNamesAreSaved(@TempDir Path dir) throws Exception {
+    GraphIndex index = new GraphIndex();
+    index.put("A.java", HASH, new byte[] {1}, new CodeGraph(), Set.of("Foo", "Bar"));
+    GraphIndexStore store = new GraphIndexStore(dir.resolve("graph-index.bin"));
+    store.save(index, FINGERPRINT);
+
+    GraphIndex loaded = new GraphIndex();
+    store.load(loaded, FINGERPRINT, CodeGraph::new);
+
+    assertEquals(Set.of("Foo", "Bar"), loaded.get("A.java").unresolvedNames());
+  }
+
+  @Test
+  void indexBuiltWithOtherSettingsIsIgnored(@TempDir Path dir) throws Exception {
+    GraphIndex index = new GraphIndex();
+    index.put("A.java", HASH, new byte[] {1}, new CodeGraph(), Set.of());
+    GraphIndexStore store = new GraphIndexStore(dir.resolve("graph-index.bin"));
+    store.save(index, FINGERPRINT);
+
+    GraphIndex loaded = new GraphIndex();
+    store.load(loaded, new byte[] {4}, CodeGraph::new);
+
+    assertEquals(0, loaded.size());
+  }
+}
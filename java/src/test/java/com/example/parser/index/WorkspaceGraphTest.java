@@ -0,0 +1,121 @@
+package com.example.parser.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.EdgeKey;
+import com.example.parser.models.GraphDelta;
+
+class WorkspaceGraphTest {
+  private static final EdgeKey A_TO_C = new EdgeKey("p.A", "p.C", "MethodCall");
+  private static final EdgeKey B_TO_C = new EdgeKey("p.B", "p.C", "MethodCall");
+
+  @Test
+  void mergedWeightIsTheSumOfTheFragments() {
+    WorkspaceGraph workspace = new WorkspaceGraph(new CodeGraph());
+    workspace.update("A.java", fragment("p.A", "p.C", 2));
+    workspace.update("A2.java", fragment("p.A", "p.C", 3));
+
+    assertEquals(5, workspace.snapshot(CodeGraph::new).getEdgeWeight(A_TO_C));
+    assertEquals(2, workspace.getVersion());
+  }
+
+  @Test
+  void deltaCarriesChangedWeightsAndRemovedEdges() {
+    WorkspaceGraph workspace = new WorkspaceGraph(new CodeGraph());
+    workspace.update("A.java", fragment("p.A", "p.C", 2));
+    workspace.update("B.java", fragment("p.B", "p.C", 1));
+
+    workspace.startRecording();
+    workspace.update("A.java", fragment("p.A", "p.C", 4));
+    workspace.remove("B.java");
+    GraphDelta delta = workspace.stopRecording();
+
+    assertEquals(2, delta.getFromVersion());
+    assertEquals(4, delta.getToVersion());
+    assertEquals(Map.of(A_TO_C, 4), weights(delta));
+    assertEquals(List.of(B_TO_C), delta.getRemovedEdges());
+    assertEquals(List.of("p.B"), delta.getRemovedNodes());
+  }
+
+  @Test
+  void unchangedFragmentProducesAnEmptyDelta() {
+    WorkspaceGraph workspace = new WorkspaceGraph(new CodeGraph());
+    workspace.update("A.java", fragment("p.A", "p.C", 2));
+
+    workspace.startRecording();
+    workspace.update("A.java", fragment("p.A", "p.C", 2));
+    GraphDelta delta = workspace.stopRecording();
+
+    assertTrue(delta.isEmpty());
+  }
+
+  @Test
+  void dependentFilesAreTheFilesReferencingATypeName() {
+    WorkspaceGraph workspace = new WorkspaceGraph(new CodeGraph());
+    workspace.update("A.java", declaring("p.A", "A.java", "p.C"));
+    workspace.update("B.java", declaring("p.B", "B.java", "p.C"));
+    workspace.update("C.java", declaring("p.C", "C.java", null));
+
+    assertEquals(Set.of("A.java", "B.java"), workspace.getDependentFiles(List.of("p.C")));
+    assertEquals(Set.of("p.C"), workspace.getDeclaredTypes("C.java"));
+  }
+
+  @Test
+  void filesThatCouldNotResolveASimpleNameDependOnTypesWithThatName() {
+    WorkspaceGraph workspace = new WorkspaceGraph(new CodeGraph());
+    workspace.update("A.java", declaring("p.A", "A.java", null), Set.of("Foo"));
+    workspace.update("B.java", declaring("p.B", "B.java", null), Set.of("Bar"));
+
+    assertEquals(Set.of("A.java"), workspace.getDependentFiles(List.of("q.Foo")));
+
+    workspace.update("A.java", declaring("p.A", "A.java", "q.Foo"), Set.of());
+    workspace.remove("B.java");
+    assertEquals(Set.of("A.java"), workspace.getDependentFiles(List.of("q.Foo")));
+    assertEquals(Set.of(), workspace.getDependentFiles(List.of("q.Bar")));
+  }
+
+  @Test
+  void filesReferencingTheSameSimpleNameMayBeShadowedByANewType() {
+    WorkspaceGraph workspace = new WorkspaceGraph(new CodeGraph());
+    workspace.update("A.java", declaring("p.A", "A.java", "q.Foo"));
+    workspace.update("B.java", declaring("p.B", "B.java", "q.Bar"));
+
+    assertEquals(Set.of("A.java"), workspace.getFilesReferencingSimpleNames(List.of("p.Foo")));
+    assertEquals("Entry", WorkspaceGraph.simpleName("java.util.Map.Entry"));
+    assertEquals("List", WorkspaceGraph.simpleName("java.util.List<p.A>"));
+  }
+
+  private static CodeGraph fragment(String source, String target, int weight) {
+    CodeGraph graph = new CodeGraph();
+    graph.addReferNode(source, target, "MethodCall", weight);
+    return graph;
+  }
+
+  // typeを宣言し，referencedがあればそれを参照する断片
+  private static CodeGraph declaring(String type, String filePath, String referenced) {
+    CodeGraph graph = new CodeGraph();
+    graph.setNodeType(type, "Class");
+    graph.setNodeFilePath(type, filePath);
+    if (referenced != null) {
+      graph.addReferNode(type, referenced, "TypeUse");
+    }
+    return graph;
+  }
+
+  private static Map<EdgeKey, Integer> weights(GraphDelta delta) {
+    Map<EdgeKey, Integer> weights = new HashMap<>();
+    for (int i = 0; i < delta.getEdges().size(); i++) {
+      weights.put(delta.getEdges().get(i), delta.getEdgeWeight(i));
+    }
+    return weights;
+  }
+}
@@ -0,0 +1,34 @@
+package com.example.parser.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CompactCodeGraphTest {
+  @Test
+  void viewsAreReadOnlyAndReflectTheGraph() {
+    CompactCodeGraph graph = new CompactCodeGraph();
+    graph.addReferNode("p.A", "p.B", "MethodCall", 2);
+    graph.setNodeType("p.A", "Class");
+    graph.setNodeLinesOfCode("p.A", 10);
+
+    List<GraphNode> nodes = graph.getGraphNodes();
+    assertEquals("Class", nodes.get(0).getType());
+    assertEquals(10, nodes.get(0).getLinesOfCode());
+    assertEquals(2, graph.getGraphEdges().get(0).getWeight());
+    assertThrows(UnsupportedOperationException.class, () -> nodes.remove(0));
+    assertThrows(UnsupportedOperationException.class, () -> graph.getGraphEdges().clear());
+  }
+
+  @Test
+  void codeGraphViewsAreReadOnly() {
+    CodeGraph graph = new CodeGraph();
+    graph.addReferNode("p.A", "p.B", "MethodCall");
+
+    assertThrows(UnsupportedOperationException.class, () -> graph.getGraphNodes().remove(0));
+    assertThrows(UnsupportedOperationException.class, () -> graph.getGraphEdges().clear());
+  }
+}
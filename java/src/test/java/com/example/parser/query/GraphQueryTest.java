@@ -0,0 +1,69 @@
+package com.example.parser.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.GraphNode;
+
+class GraphQueryTest {
+  @Test
+  void cyclesExcludeSelfLoopsUnlessRequested() {
+    CodeGraph graph = new CodeGraph();
+    graph.addReferNode("p.A", "p.B", "TypeUse");
+    graph.addReferNode("p.B", "p.A", "MethodCall");
+    graph.addReferNode("p.C", "p.C", "MethodCall");
+    graph.addReferNode("p.C", "p.A", "TypeUse");
+    GraphQuery query = new GraphQuery(graph, 1);
+
+    assertEquals(List.of(List.of("p.A", "p.B")), query.cycles(null, false));
+    assertEquals(List.of(List.of("p.A", "p.B"), List.of("p.C")), query.cycles(null, true));
+  }
+
+  @Test
+  void cyclesFollowOnlyTheRequestedEdgeTypes() {
+    CodeGraph graph = new CodeGraph();
+    graph.addReferNode("p.A", "p.B", "TypeUse");
+    graph.addReferNode("p.B", "p.A", "MethodCall");
+    GraphQuery query = new GraphQuery(graph, 1);
+
+    assertEquals(List.of(), query.cycles(List.of("TypeUse"), true));
+  }
+
+  @Test
+  void dependenciesStopAtTheRequestedDepth() {
+    CodeGraph graph = new CodeGraph();
+    graph.addReferNode("p.A", "p.B", "TypeUse");
+    graph.addReferNode("p.B", "p.C", "TypeUse");
+    GraphQuery query = new GraphQuery(graph, 1);
+
+    assertEquals(List.of("p.A", "p.B"), names(query.dependencies("p.A", 1, null)));
+    assertEquals(List.of("p.A", "p.B", "p.C"), names(query.dependencies("p.A", -1, null)));
+    assertEquals(List.of("p.C", "p.B", "p.A"), names(query.dependents("p.C", -1, null)));
+  }
+
+  @Test
+  void shortestPathListsNodesInPathOrder() {
+    CodeGraph graph = new CodeGraph();
+    graph.addReferNode("p.A", "p.B", "TypeUse");
+    graph.addReferNode("p.B", "p.C", "TypeUse");
+    graph.addReferNode("p.A", "p.D", "TypeUse");
+    graph.addReferNode("p.D", "p.E", "TypeUse");
+    graph.addReferNode("p.E", "p.C", "TypeUse");
+    GraphQuery query = new GraphQuery(graph, 1);
+
+    CodeGraph path = query.shortestPath("p.A", "p.C", null);
+    assertEquals(List.of("p.A", "p.B", "p.C"), names(path));
+    assertEquals(2, path.getGraphEdges().size());
+    assertEquals(List.of(), names(query.shortestPath("p.C", "p.A", null)));
+    assertThrows(IllegalArgumentException.class, () -> query.shortestPath("p.A", "p.X", null));
+  }
+
+  private static List<String> names(CodeGraph graph) {
+    return graph.getGraphNodes().stream().map(GraphNode::getNodeName).toList();
+  }
+}
@@ -0,0 +1,103 @@
+package com.example.parser.resolution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ResolutionCacheTest {
+  private static final ResolutionCache.Key LIST =
+      new ResolutionCache.Key("describe", "List<String>", "p;java.util.List", "p.A", -1);
+  private static final ResolutionCache.Key B =
+      new ResolutionCache.Key("describe", "B", "p", "p.A", -1);
+  private static final ResolutionCache.Key MISSING =
+      new ResolutionCache.Key("describe", "Missing", "p", "p.A", -1);
+
+  @Test
+  void countsHitsAndMisses() {
+    ResolutionCache cache = new ResolutionCache(10);
+    assertNull(cache.get(LIST));
+    cache.put(LIST, "java.util.List<java.lang.String>", null);
+
+    assertEquals("java.util.List<java.lang.String>", cache.get(LIST));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  void invalidateFileDropsOnlyEntriesResolvedIntoThatFile() {
+    ResolutionCache cache = new ResolutionCache(10);
+    cache.put(LIST, "java.util.List<java.lang.String>", null);
+    cache.put(B, "p.B", "/ws/p/B.java");
+
+    cache.invalidateFile("/ws/p/B.java");
+
+    assertNull(cache.get(B));
+    assertEquals("java.util.List<java.lang.String>", cache.get(LIST));
+  }
+
+  @Test
+  void invalidateSimpleNamesDropsEntriesMentioningTheName() {
+    ResolutionCache cache = new ResolutionCache(10);
+    cache.put(LIST, "java.util.List<java.lang.String>", null);
+    cache.put(B, "q.B", "/ws/q/B.java");
+
+    cache.invalidateSimpleNames(Set.of("String"));
+    assertNull(cache.get(LIST));
+    assertEquals("q.B", cache.get(B));
+
+    cache.invalidateSimpleNames(Set.of("B"));
+    assertNull(cache.get(B));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void invalidateFileKeepsFailures() {
+    ResolutionCache cache = new ResolutionCache(10);
+    cache.putFailure(MISSING, "Unsolved symbol : Missing");
+    cache.putCallFailure("builder", null, "Unsolved method");
+
+    cache.invalidateFile("/ws/p/A.java");
+
+    assertEquals("Unsolved symbol : Missing", cache.getFailure(MISSING));
+    assertTrue(cache.hasFailedCall("builder"));
+    assertEquals(1, cache.getNegativeHitCount());
+  }
+
+  @Test
+  void clearFailuresForgetsFailedKeysAndMethodNames() {
+    ResolutionCache cache = new ResolutionCache(10);
+    cache.putFailure(MISSING, null);
+    cache.putCallFailure("builder", B, "Unsolved method");
+
+    cache.clearFailures();
+
+    assertNull(cache.getFailure(MISSING));
+    assertNull(cache.getFailure(B));
+    assertFalse(cache.hasFailedCall("builder"));
+    assertEquals(0, cache.failureCount());
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedEntriesBeyondTheLimit() {
+    ResolutionCache cache = new ResolutionCache(2);
+    cache.put(LIST, "java.util.List<java.lang.String>", null);
+    cache.put(B, "p.B", "/ws/p/B.java");
+    cache.get(LIST);
+    cache.put(MISSING, "p.Missing", null);
+
+    assertEquals(2, cache.size());
+    assertNull(cache.get(B));
+    assertEquals("java.util.List<java.lang.String>", cache.get(LIST));
+  }
+
+  @Test
+  void zeroSizeDisablesTheCache() {
+    assertFalse(new ResolutionCache(0).isEnabled());
+    assertTrue(new ResolutionCache(1).isEnabled());
+  }
+}
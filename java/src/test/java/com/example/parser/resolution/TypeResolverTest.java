@@ -0,0 +1,191 @@
+package com.example.parser.resolution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.parser.AnalysisEngine;
+import com.example.parser.AnalysisOptions;
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.GraphEdge;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+class TypeResolverTest {
+  @TempDir Path workspace;
+
+  @Test
+  void varDeclarationsInOneClassResolveFromTheirOwnInitializers() throws Exception {
+    write("p/B.java", "package p; public class B {}");
+    Path a =
+        write(
+            "p/A.java",
+            """
+            package p;
+            import java.util.ArrayList;
+            class A {
+              void m() {
+                var s = new StringBuilder();
+                var l = new ArrayList<String>();
+                var b = new B();
+              }
+            }
+            """);
+
+    CodeGraph graph = engine().analyzeFile(a.toString());
+
+    assertEquals(
+        Set.of(
+            "java.lang.StringBuilder", "java.util.ArrayList<java.lang.String>", "p.B", "void"),
+        typeUses(graph, "p.A"));
+  }
+
+  @Test
+  void failedVarDoesNotPoisonLaterVarsInTheSameClass() {
+    CompilationUnit cu =
+        parse(
+            """
+            class A {
+              void m() {
+                var missing = new Missing();
+                var s = new StringBuilder();
+              }
+            }
+            """);
+    ResolutionCache cache = new ResolutionCache(100);
+    TypeResolver resolver = new TypeResolver(cache, cu);
+    List<VariableDeclarator> vars = cu.findAll(VariableDeclarator.class);
+
+    assertThrows(RuntimeException.class, () -> resolver.describe(vars.get(0).getType()));
+    assertEquals("java.lang.StringBuilder", resolver.describe(vars.get(1).getType()));
+    assertEquals(0, cache.failureCount());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void sameTypeTextIsSharedAcrossFilesWithTheSameImports() {
+    ResolutionCache cache = new ResolutionCache(100);
+    CompilationUnit first = parse("import java.util.List; class A { List<String> names; }");
+    CompilationUnit second = parse("import java.util.List; class A { List<String> other; }");
+
+    assertEquals("java.util.List<java.lang.String>", describeField(cache, first));
+    assertEquals("java.util.List<java.lang.String>", describeField(cache, second));
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  void differentImportsDoNotShareResults() {
+    ResolutionCache cache = new ResolutionCache(100);
+    CompilationUnit util = parse("import java.util.List; class A { List<String> names; }");
+    CompilationUnit awt = parse("import java.awt.List; class A { List names; }");
+
+    assertEquals("java.util.List<java.lang.String>", describeField(cache, util));
+    assertEquals("java.awt.List", describeField(cache, awt));
+    assertEquals(0, cache.getHitCount());
+  }
+
+  @Test
+  void repeatedUnresolvableCallFailsFromTheRecord() {
+    CompilationUnit cu =
+        parse(
+            """
+            class A {
+              void m(StringBuilder sb) {
+                sb.missing(1);
+                sb.missing(2);
+                sb.append(3);
+              }
+            }
+            """);
+    ResolutionCache cache = new ResolutionCache(100);
+    TypeResolver resolver = new TypeResolver(cache, cu);
+    List<MethodCallExpr> calls = cu.findAll(MethodCallExpr.class);
+
+    assertFalse(cache.hasFailedCall("append"));
+    assertEquals("java.lang.StringBuilder", resolver.declaringType(calls.get(2)));
+    assertThrows(RuntimeException.class, () -> resolver.declaringType(calls.get(0)));
+    assertTrue(cache.hasFailedCall("missing"));
+    assertThrows(CachedResolutionFailure.class, () -> resolver.declaringType(calls.get(1)));
+    assertEquals(1, cache.getNegativeHitCount());
+    assertEquals(1, resolver.getResolvedCount());
+    assertEquals(2, resolver.getFailedCount());
+  }
+
+  @Test
+  void failuresAreForgottenWhenACalleeSignatureChanges() throws Exception {
+    Path b = write("p/B.java", "package p; public class B {}");
+    write("p/A.java", "package p; class A { void m(B b) { b.run(); } }");
+    AnalysisEngine engine = engine();
+    engine.analyzeWorkspace();
+    assertEquals(Set.of(), methodCalls(engine.analyzeWorkspace(), "p.A"));
+
+    // 本体だけの変更では失敗の記録は残る
+    write("p/B.java", "package p; public class B { { int x = 1; } }");
+    engine.reanalyzeFile(b.toString());
+    write("p/B.java", "package p; public class B { public void run() {} }");
+    engine.reanalyzeFile(b.toString());
+
+    assertEquals(Set.of("p.B"), methodCalls(engine.analyzeWorkspace(), "p.A"));
+  }
+
+  private AnalysisEngine engine() {
+    AnalysisOptions options = new AnalysisOptions();
+    options.setPersistentIndex(false);
+    options.setClasspath(false);
+    return new AnalysisEngine(workspace.toString(), options);
+  }
+
+  private static CompilationUnit parse(String text) {
+    ParserConfiguration configuration =
+        new ParserConfiguration()
+            .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21)
+            .setSymbolResolver(new JavaSymbolSolver(new ReflectionTypeSolver()));
+    return new JavaParser(configuration).parse(text).getResult().orElseThrow();
+  }
+
+  private static String describeField(ResolutionCache cache, CompilationUnit cu) {
+    FieldDeclaration field = cu.findFirst(FieldDeclaration.class).orElseThrow();
+    return new TypeResolver(cache, cu).describe(field.getElementType());
+  }
+
+  private Path write(String relative, String text) throws IOException {
+    Path file = workspace.resolve(relative);
+    Files.createDirectories(file.getParent());
+    return Files.writeString(file, text);
+  }
+
+  private static Set<String> typeUses(CodeGraph graph, String source) {
+    return targets(graph, source, "TypeUse");
+  }
+
+  private static Set<String> methodCalls(CodeGraph graph, String source) {
+    return targets(graph, source, "MethodCall");
+  }
+
+  private static Set<String> targets(CodeGraph graph, String source, String type) {
+    Set<String> targets = new TreeSet<>();
+    for (GraphEdge edge : graph.getGraphEdges()) {
+      if (edge.getType().equals(type) && edge.getSourceNode().getNodeName().equals(source)) {
+        targets.add(edge.getTargetNode().getNodeName());
+      }
+    }
+    return targets;
+  }
+}
@@ -0,0 +1,86 @@
+package com.example.parser.resolution;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+
+class WorkspaceTypeSolverTest {
+  @TempDir Path workspace;
+
+  @Test
+  void mainSourcesDoNotSeeTestRoots() throws Exception {
+    Path main = write("src/main/java/p/A.java", "package p; public class A {}");
+    Path test = write("src/test/java/p/ATest.java", "package p; class ATest {}");
+    WorkspaceTypeSolver solver = solver();
+
+    assertFalse(solveFrom(solver, main, "p.ATest").isSolved());
+    assertTrue(solveFrom(solver, test, "p.ATest").isSolved());
+    assertTrue(solveFrom(solver, test, "p.A").isSolved());
+  }
+
+  @Test
+  void invalidateEvictsOnlyTheTypesOfTheChangedFile() throws Exception {
+    Path a = write("src/main/java/p/A.java", "package p; public class A {}");
+    WorkspaceTypeSolver solver = solver();
+    SymbolReference<ResolvedReferenceTypeDeclaration> before = solveFrom(solver, a, "p.A");
+    assertFalse(solveFrom(solver, a, "p.B").isSolved());
+
+    Path b = write("src/main/java/p/B.java", "package p; public class B { class Inner {} }");
+    solver.invalidate(b);
+
+    assertTrue(solveFrom(solver, a, "p.B").isSolved());
+    assertSame(before, solveFrom(solver, a, "p.A"));
+
+    solver.invalidate(a);
+    assertNotSame(before, solveFrom(solver, a, "p.A"));
+  }
+
+  @Test
+  void replacingTheClasspathDiscardsUnresolvedResults(@TempDir Path library) throws Exception {
+    Path a = write("src/main/java/p/A.java", "package p; public class A {}");
+    Path lib = library.resolve("lib/L.java");
+    Files.createDirectories(lib.getParent());
+    Files.writeString(lib, "package lib; public class L {}");
+    WorkspaceTypeSolver solver = solver();
+    assertFalse(solveFrom(solver, a, "lib.L").isSolved());
+
+    solver.setClasspathSolver(new JavaParserTypeSolver(library));
+
+    assertTrue(solveFrom(solver, a, "lib.L").isSolved());
+  }
+
+  private WorkspaceTypeSolver solver() {
+    ModuleLayout layout = ModuleLayout.discover(workspace, dir -> false);
+    return new WorkspaceTypeSolver(layout, ParserConfiguration.LanguageLevel.JAVA_21, null);
+  }
+
+  private static SymbolReference<ResolvedReferenceTypeDeclaration> solveFrom(
+      WorkspaceTypeSolver solver, Path file, String name) {
+    int previous = solver.enter(file);
+    try {
+      return solver.tryToSolveType(name);
+    } finally {
+      solver.exit(previous);
+    }
+  }
+
+  private Path write(String relative, String content) throws IOException {
+    Path file = workspace.resolve(relative);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+    return file;
+  }
+}
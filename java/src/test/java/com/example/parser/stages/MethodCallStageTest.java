@@ -0,0 +1,87 @@
+package com.example.parser.stages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.parser.AnalysisEngine;
+import com.example.parser.AnalysisOptions;
+import com.example.parser.models.CodeGraph;
+import com.example.parser.models.GraphEdge;
+
+class MethodCallStageTest {
+  @TempDir Path workspace;
+
+  @Test
+  void lazyModeResolvesCallsThatMayHitAnInterfaceDefaultMethod() throws Exception {
+    write("p/I.java", "package p; public interface I { default void m(String s) {} }");
+    Path c =
+        write(
+            "p/C.java",
+            """
+            package p;
+            class C implements I {
+              void m(Object o) {}
+              void run() { m("s"); }
+            }
+            """);
+
+    assertEquals(Map.of("p.I", 1), methodCalls(c, true));
+    assertEquals(Map.of("p.I", 1), methodCalls(c, false));
+  }
+
+  @Test
+  void eagerAndLazyModesCountOwnCallsInsideConstructorArguments() throws Exception {
+    write(
+        "p/Holder.java",
+        "package p; public record Holder(java.util.function.Function<String, String> f) {}");
+    Path a =
+        write(
+            "p/A.java",
+            """
+            package p;
+            class A {
+              static String trim(String s) { return s.trim(); }
+              static Holder holder() { return new Holder(s -> trim(s)); }
+              String twice(String s) { return trim(trim(s)); }
+            }
+            """);
+
+    Map<String, Integer> lazy = methodCalls(a, true);
+    assertEquals(3, lazy.get("p.A"));
+    assertEquals(lazy, methodCalls(a, false));
+  }
+
+  // sourceのファイルから出るMethodCallの辺（宣言型 -> 重み）
+  private Map<String, Integer> methodCalls(Path source, boolean lazy) throws Exception {
+    AnalysisOptions options = new AnalysisOptions();
+    options.setPersistentIndex(false);
+    options.setClasspath(false);
+    options.setLazyMethodCalls(lazy);
+    CodeGraph graph;
+    try (AnalysisEngine engine = new AnalysisEngine(workspace.toString(), options)) {
+      graph = engine.analyzeFile(source.toString());
+    }
+    Map<String, Integer> targets = new TreeMap<>();
+    for (GraphEdge edge : graph.getGraphEdges()) {
+      if (edge.getType().equals("MethodCall")) {
+        targets.merge(edge.getTargetNode().getNodeName(), edge.getWeight(), Integer::sum);
+      }
+    }
+    targets.remove("java.lang.String");
+    return targets;
+  }
+
+  private Path write(String relative, String text) throws IOException {
+    Path file = workspace.resolve(relative);
+    Files.createDirectories(file.getParent());
+    return Files.writeString(file, text);
+  }
+}
@@ -58,12 +58,27 @@ class AnalyzerContext {
         return analyzer.isFileSupported(filePath);
     }
 
-    async analyzeProject() {
+    /**
+     * アクティブなアナライザーからのグラフ差分だけをlistenerに渡す
+     */
+    setGraphDeltaListener(listener) {
+        Object.values(this._analyzers).forEach((analyzer) => {
+            analyzer.setGraphDeltaListener((delta) => {
+                if (this.getActiveAnalyzer() === analyzer) {
+                    listener(delta);
+                }
+            });
+        });
+    }
+
+    async analyzeProject(options = {}) {
         const analyzer = this.getActiveAnalyzer();
         if (!analyzer || typeof analyzer.analyze !== 'function') {
             return null;
         }
-        return analyzer.analyze();
+        // 重みの小さいリンクはサーバー側で除く（対応していないアナライザーは無視する）
+        const { minLinkWeight } = this._configManager.loadControls();
+        return analyzer.analyze({ minWeight: minLinkWeight, ...options });
     }
 
     async analyzeFile(filePath) {
@@ -74,6 +89,30 @@ class AnalyzerContext {
         return analyzer.analyzeFile(filePath);
     }
 
+    /**
+     * ワークスペースグラフへの問い合わせ（対応していないアナライザーではnull）
+     */
+    async query(params) {
+        const analyzer = this.getActiveAnalyzer();
+        if (!analyzer || typeof analyzer.query !== 'function') {
+            return null;
+        }
+        return analyzer.query(params);
+    }
+
+    /**
+     * パッケージ・モジュール単位に集約したグラフ（対応していないアナライザーではnull）
+     * リンクの重みの下限は表示設定のものを使う
+     */
+    async getAggregatedGraph(params = {}) {
+        const analyzer = this.getActiveAnalyzer();
+        if (!analyzer || typeof analyzer.getAggregatedGraph !== 'function') {
+            return null;
+        }
+        const { minLinkWeight } = this._configManager.loadControls();
+        return analyzer.getAggregatedGraph({ minWeight: minLinkWeight, ...params });
+    }
+
     async stopAll() {
         const analyzers = Object.values(this._analyzers);
         for (const analyzer of analyzers) {
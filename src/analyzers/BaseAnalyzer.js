@@ -11,6 +11,12 @@ class BaseAnalyzer {
         return true;
     }
 
+    /**
+     * グラフの差分通知を受け取るリスナーを設定（差分を通知しないアナライザーでは何もしない）
+     */
+    setGraphDeltaListener() {
+    }
+
     async stop() {
     }
 
@@ -1,7 +1,7 @@
 const vscode = require('vscode');
 const path = require('path');
 const { LanguageClient, TransportKind } = require('vscode-languageclient/node');
-const { mergeGraphData, validateGraphData } = require('../utils/graph');
+const { validateGraphData } = require('../utils/graph');
 const BaseAnalyzer = require('./BaseAnalyzer');
 
 /**
@@ -40,6 +40,11 @@ class JavaAnalyzer extends BaseAnalyzer {
         this.context = context;
         this.client = null;
         this.outputChannel = null;
+        this._graphDeltaListener = null;
+    }
+
+    setGraphDeltaListener(listener) {
+        this._graphDeltaListener = listener;
     }
 
     isFileSupported(filePath) {
@@ -91,7 +96,11 @@ class JavaAnalyzer extends BaseAnalyzer {
             const clientOptions = {
                 documentSelector: [{ scheme: 'file', language: 'java' }],
                 synchronize: {
-                    fileEvents: vscode.workspace.createFileSystemWatcher('**/*.java')
+                    // ビルドファイルの変更でサーバーが依存jarを読み直す
+                    fileEvents: [
+                        vscode.workspace.createFileSystemWatcher('**/*.java'),
+                        vscode.workspace.createFileSystemWatcher('**/{pom.xml,build.gradle,build.gradle.kts}')
+                    ]
                 },
                 workspaceFolder: workspaceFolder,
                 outputChannel: this.outputChannel,
@@ -122,6 +131,13 @@ class JavaAnalyzer extends BaseAnalyzer {
                 }
             });
 
+            // 編集に伴うワークスペースグラフの差分
+            this.client.onNotification('dependviz/graphDelta', (delta) => {
+                if (this._graphDeltaListener) {
+                    this._graphDeltaListener(delta);
+                }
+            });
+
             // クライアントを起動して初期化を待つ
             console.log('Starting Language Server...');
             this.outputChannel.appendLine('Starting Language Server...');
@@ -199,6 +215,125 @@ class JavaAnalyzer extends BaseAnalyzer {
         }
     }
 
+    /**
+     * ワークスペース全体の依存関係グラフを取得
+     * サーバー側のスナップショットをページ単位で受け取り，受信するたびにonPageを呼ぶ
+     * （ノードが全て届いてからリンクが届く）．戻り値のfailedFileCountは解析に失敗したファイルの数
+     * @param {Object} [options]
+     * @param {(page: {nodes: Array, links: Array}, index: number) => void} [options.onPage]
+     * @param {number} [options.minWeight] - 重みがこれ未満のリンクを送らない（以降の差分でも削除として届く）
+     */
+    async getWorkspaceDependencyGraph({ onPage, minWeight } = {}) {
+        if (!this.client) {
+            await this.startLanguageClient();
+        }
+
+        try {
+            const header = this._parseResponse(
+                await this.client.sendRequest('dependviz/beginWorkspaceDependencyGraph', {
+                    minWeight: minWeight > 1 ? minWeight : undefined
+                })
+            );
+            const graphData = {
+                nodes: [],
+                links: [],
+                version: header.version,
+                failedFileCount: header.failedFileCount ?? 0
+            };
+            for (let page = 0; page < header.pageCount; page++) {
+                const data = this._parseResponse(
+                    await this.client.sendRequest('dependviz/getWorkspaceDependencyGraphPage', {
+                        snapshotId: header.snapshotId,
+                        page
+                    })
+                );
+                validateGraphData(data);
+                graphData.nodes.push(...data.nodes);
+                graphData.links.push(...data.links);
+                if (onPage) {
+                    onPage({ nodes: data.nodes, links: data.links }, page);
+                }
+            }
+            return graphData;
+        } catch (error) {
+            const message = `Failed to get workspace dependency graph: ${error.message}`;
+            console.error(message, error);
+            if (this.outputChannel) {
+                this.outputChannel.appendLine(message);
+                if (error.stack) {
+                    this.outputChannel.appendLine(error.stack);
+                }
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * ワークスペースグラフへの問い合わせ（dependviz/query）
+     * @param {Object} params - kind（dependencies / dependents / path / cycles），node，target，depth，
+     *     edgeTypes，includeSelfLoops（cyclesで自己ループも循環に含めるか）
+     * @returns {Promise<{kind: string, version: number, components?: string[][], nodes: Array, links: Array}>}
+     */
+    async query(params) {
+        if (!this.client) {
+            await this.startLanguageClient();
+        }
+
+        try {
+            const data = this._parseResponse(await this.client.sendRequest('dependviz/query', params));
+            validateGraphData(data);
+            return data;
+        } catch (error) {
+            const message = `Failed to query dependency graph: ${error.message}`;
+            console.error(message, error);
+            if (this.outputChannel) {
+                this.outputChannel.appendLine(message);
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * パッケージ・モジュール単位に集約したワークスペースグラフ（dependviz/getAggregatedGraph）
+     * @param {Object} [params]
+     * @param {string} [params.level] - package（既定）/ module
+     * @param {string} [params.expand] - クラス単位に展開するグループ名
+     * @param {number} [params.minWeight] - 重みの合計がこれ未満のリンクを送らない
+     * @returns {Promise<{level: string, expanded?: string, version: number, nodes: Array, links: Array}>}
+     */
+    async getAggregatedGraph({ level, expand, minWeight } = {}) {
+        if (!this.client) {
+            await this.startLanguageClient();
+        }
+
+        try {
+            const data = this._parseResponse(
+                await this.client.sendRequest('dependviz/getAggregatedGraph', {
+                    level,
+                    expand,
+                    minWeight: minWeight > 1 ? minWeight : undefined
+                })
+            );
+            validateGraphData(data);
+            return data;
+        } catch (error) {
+            const message = `Failed to get aggregated dependency graph: ${error.message}`;
+            console.error(message, error);
+            if (this.outputChannel) {
+                this.outputChannel.appendLine(message);
+            }
+            throw error;
+        }
+    }
+
+    _parseResponse(result) {
+        const data = typeof result === 'string' ? JSON.parse(result) : result;
+        if (!data || typeof data !== 'object') {
+            throw new Error('Analyzer response must be an object');
+        }
+        return data;
+    }
+
     async analyzeFile(filePath) {
         return this._analyzeFileInternal(filePath, { openDocument: true });
     }
@@ -216,8 +351,9 @@ class JavaAnalyzer extends BaseAnalyzer {
 
     /**
      * プロジェクト全体を解析
+     * @param {Object} [options] - onPageを渡すとページを受信するたびに呼ばれる
      */
-    async analyze() {
+    async analyze(options = {}) {
         try {
             // Language Clientを起動
             await this.startLanguageClient();
@@ -229,46 +365,24 @@ class JavaAnalyzer extends BaseAnalyzer {
                 return { nodes: [], links: [] };
             }
 
-            const mergedGraph = { nodes: [], links: [] };
-            let successCount = 0;
-            let errorCount = 0;
-
-            await vscode.window.withProgress({
+            // サーバー側でワークスペース全体を並列解析し，マージ済みグラフを1回で受け取る
+            const graphData = await vscode.window.withProgress({
                 location: vscode.ProgressLocation.Notification,
-                title: `Javaプロジェクトを解析中 (0/${javaFiles.length})...`,
+                title: `Javaプロジェクトを解析中 (${javaFiles.length}ファイル)...`,
                 cancellable: false
-            }, async (progress) => {
-                const increment = 100 / javaFiles.length;
-                for (let i = 0; i < javaFiles.length; i++) {
-                    const file = javaFiles[i];
-                    try {
-                        const graphData = await this._analyzeFileInternal(file.fsPath);
-                        mergeGraphData(mergedGraph, graphData);
-                        successCount++;
-                    } catch (error) {
-                        const message = `Failed to analyze file: ${file.fsPath}: ${error.message}`;
-                        console.error(message, error);
-                        if (this.outputChannel) {
-                            this.outputChannel.appendLine(message);
-                            if (error.stack) {
-                                this.outputChannel.appendLine(error.stack);
-                            }
-                        }
-                        errorCount++;
-                    } finally {
-                        progress.report({
-                            message: `(${i + 1}/${javaFiles.length})`,
-                            increment
-                        });
-                    }
-                }
-            });
-            // TODO: 現在エラー検知が甘い
-            vscode.window.showInformationMessage(
-                `解析完了: ${successCount}ファイル成功, ${errorCount}ファイル失敗 (${mergedGraph.nodes.length}ノード, ${mergedGraph.links.length}リンク)`
-            );
+            }, () => this.getWorkspaceDependencyGraph(options));
+
+            const summary = `${graphData.nodes.length}ノード, ${graphData.links.length}リンク`;
+            if (graphData.failedFileCount > 0) {
+                // 構文エラーなどで解析できなかったファイルはグラフに含まれない
+                vscode.window.showWarningMessage(
+                    `解析完了: ${javaFiles.length}ファイル中${graphData.failedFileCount}ファイルの解析に失敗 (${summary})`
+                );
+            } else {
+                vscode.window.showInformationMessage(`解析完了: ${javaFiles.length}ファイル (${summary})`);
+            }
 
-            return mergedGraph;
+            return graphData;
 
         } catch (error) {
             vscode.window.showErrorMessage(`解析失敗: ${error.message}`);
@@ -10,6 +10,10 @@
 const EXTENSION_TO_WEBVIEW = {
     /** グラフデータと設定を更新 */
     GRAPH_UPDATE: 'graph:update',
+    /** 受信済みのグラフデータの末尾にノード・リンクを追加（ページ単位の受信用） */
+    GRAPH_APPEND: 'graph:append',
+    /** サーバー側のグラフの差分を適用（追加・削除・変更されたノード・リンクのみ） */
+    GRAPH_DELTA: 'graph:delta',
     /** ビュー設定のみを更新 */
     VIEW_UPDATE: 'view:update',
     /** 特定のノードにフォーカス */
@@ -50,6 +50,14 @@ class WebviewBridge {
         }
     }
 
+    /**
+     * Webviewの準備が完了しているか
+     * @returns {boolean} 準備完了後（送信したメッセージがキューを経ずに届く）の場合true
+     */
+    isReady() {
+        return this._webview !== null && this._ready;
+    }
+
     /**
      * Webviewにメッセージを送信
      * Webview未準備の場合はキューに追加
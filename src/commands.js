@@ -5,6 +5,19 @@ function registerCommands(providers) {
     const getAnalyzerName = () => analyzerManager.getActiveAnalyzerName();
     const getAnalyzerId = () => analyzerManager.getActiveAnalyzerId();
 
+    // 最後に表示した集約グラフ（グループの展開の候補に使う）
+    let aggregated = null;
+    const showAggregatedGraph = async (level, expand) => {
+        const result = await analyzerManager.getAggregatedGraph({ level, expand });
+        if (!result) {
+            vscode.window.showErrorMessage(`${getAnalyzerName()} は集約表示に対応していません`);
+            return;
+        }
+        aggregated = { level, nodes: result.nodes.filter(node => node.type === result.level) };
+        // ワークスペースグラフそのものではないのでバージョンは付けない（差分は適用しない）
+        graphViewProvider.setGraphData({ nodes: result.nodes, links: result.links });
+    };
+
     const commands = [
         vscode.commands.registerCommand('forceGraphViewer.refresh', async () => {
             settingsProvider.refresh();
@@ -12,11 +25,83 @@ function registerCommands(providers) {
             graphViewProvider.syncToWebview();
         }),
         vscode.commands.registerCommand('forceGraphViewer.analyzeProject', async () => {
-            const graphData = await analyzerManager.analyzeProject();
+            // ページ単位で届くアナライザーは受信した分から描画を始める
+            let paged = false;
+            const graphData = await analyzerManager.analyzeProject({
+                onPage: (page, index) => {
+                    paged = true;
+                    if (index === 0) {
+                        graphViewProvider.setGraphData(page);
+                    } else {
+                        graphViewProvider.appendGraphData(page);
+                    }
+                }
+            });
             if (!graphData) {
                 return vscode.window.showErrorMessage('有効なアナライザーが選択されていません');
             }
-            graphViewProvider.setGraphData(graphData);
+            // 受信済みのページが全体と同じなので，送り直さずにバージョンだけを設定する
+            if (paged) {
+                graphViewProvider.setGraphVersion(graphData.version);
+            } else {
+                graphViewProvider.setGraphData(graphData);
+            }
+        }),
+        vscode.commands.registerCommand('forceGraphViewer.showCycles', async (options = {}) => {
+            // 自己ループ（再帰呼び出しなど）はほとんどのクラスにあるため，既定では循環に含めない
+            try {
+                const result = await analyzerManager.query({
+                    kind: 'cycles',
+                    includeSelfLoops: !!options.includeSelfLoops
+                });
+                if (!result) {
+                    return vscode.window.showErrorMessage(`${getAnalyzerName()} は循環の検出に対応していません`);
+                }
+                const components = result.components ?? [];
+                if (components.length === 0) {
+                    return vscode.window.showInformationMessage('循環依存は見つかりませんでした');
+                }
+                // 部分グラフなのでバージョンは付けない（ワークスペース全体の差分は適用しない）
+                graphViewProvider.setGraphData({ nodes: result.nodes, links: result.links });
+                vscode.window.showInformationMessage(
+                    `循環依存: ${components.length}件 (${result.nodes.length}クラス)`
+                );
+            } catch (error) {
+                vscode.window.showErrorMessage(`循環の検出に失敗: ${error.message}`);
+            }
+        }),
+        vscode.commands.registerCommand('forceGraphViewer.showAggregatedGraph', async (options = {}) => {
+            const level = options.level ?? (await vscode.window.showQuickPick(
+                [
+                    { label: 'パッケージ', level: 'package' },
+                    { label: 'モジュール', level: 'module' }
+                ],
+                { placeHolder: '集約の単位' }
+            ))?.level;
+            if (!level) return;
+            try {
+                await showAggregatedGraph(level, options.expand);
+            } catch (error) {
+                vscode.window.showErrorMessage(`集約グラフの取得に失敗: ${error.message}`);
+            }
+        }),
+        vscode.commands.registerCommand('forceGraphViewer.expandGroup', async (options = {}) => {
+            if (!aggregated) {
+                return vscode.window.showErrorMessage('先にパッケージ・モジュール単位のグラフを表示してください');
+            }
+            const expand = options.expand ?? (await vscode.window.showQuickPick(
+                aggregated.nodes.map(node => ({
+                    label: node.id,
+                    description: `${node.memberCount}クラス, ${node.linesOfCode}行`
+                })),
+                { placeHolder: 'クラス単位に展開するグループ' }
+            ))?.label;
+            if (!expand) return;
+            try {
+                await showAggregatedGraph(aggregated.level, expand);
+            } catch (error) {
+                vscode.window.showErrorMessage(`集約グラフの取得に失敗: ${error.message}`);
+            }
         }),
         vscode.commands.registerCommand('forceGraphViewer.analyzeCurrentFile', async () => {
             const editor = vscode.window.activeTextEditor;
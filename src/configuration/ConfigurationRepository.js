@@ -27,6 +27,7 @@ const CONTROL_DEFAULTS = {
     arrowSize: 3,
     textSize: 12,
     sliceDepth: 3,
+    minLinkWeight: 1,
     enableForwardSlice: true,
     enableBackwardSlice: true,
     analyzerId: AnalyzerContext.getDefaultAnalyzerId()
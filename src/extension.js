@@ -62,6 +62,12 @@ function activate(context) {
     configSubject.notifyAll();
 
     const analyzerManager = new AnalyzerContext(context, configSubject);
+    analyzerManager.setGraphDeltaListener(delta => {
+        // 差分を取りこぼしていればワークスペースグラフを取得し直す
+        if (!graphViewProvider.applyGraphDelta(delta)) {
+            vscode.commands.executeCommand('forceGraphViewer.analyzeProject');
+        }
+    });
 
     const providers = {
         settingsProvider,
@@ -115,6 +115,7 @@ const SLIDER_RANGES = {
     arrowSize: { min: 0, max: 20 },
     textSize: { min: 0, max: 24 },
     sliceDepth: { min: 1, max: 10 },
+    minLinkWeight: { min: 1, max: 100 },
     dimOpacity: { min: 0, max: 10 }
 };
 
@@ -129,6 +130,7 @@ const SETTINGS_ITEMS = [
     ['checkbox', '順方向スライス', 'enableForwardSlice'],
     ['checkbox', '逆方向スライス', 'enableBackwardSlice'],
     ['slider', 'スライス深度', 'sliceDepth', SLIDER_RANGES.sliceDepth],
+    ['slider', 'リンク重みの下限', 'minLinkWeight', SLIDER_RANGES.minLinkWeight],
     ['slider', 'リンク距離', 'linkDistance', SLIDER_RANGES.linkDistance],
     ['slider', 'フォーカス距離 (3D)', 'focusDistance', SLIDER_RANGES.focusDistance],
     ['slider', 'ノードサイズ', 'nodeSize', SLIDER_RANGES.nodeSize],
@@ -2,7 +2,12 @@ const vscode = require('vscode');
 const fs = require('fs');
 const path = require('path');
 const { BaseProvider } = require('./BaseProvider');
-const { validateGraphData, mergeGraphData } = require('../utils/graph');
+const {
+    validateGraphData,
+    mergeGraphData,
+    createGraphIndex,
+    applyGraphDelta
+} = require('../utils/graph');
 const { COLORS } = require('../configuration/ConfigurationRepository');
 const {
     EXTENSION_TO_WEBVIEW,
@@ -21,6 +26,9 @@ class GraphViewProvider extends BaseProvider {
         this._view = null;
         this._data = { nodes: [], links: [] };
         this._dataVersion = 0;
+        // サーバー側のグラフバージョンと差分適用用の索引（未作成ならnull）
+        this._graphVersion = null;
+        this._graphIndex = null;
 
         this._updateQueue = [];
         this._updating = false;
@@ -74,20 +82,84 @@ class GraphViewProvider extends BaseProvider {
 
     mergeGraphData(newData) {
         mergeGraphData(this._data, newData);
+        this._graphIndex = null;
         this._dataVersion++;
         this.syncToWebview();
     }
 
+    /**
+     * 重複のないデータをそのまま末尾に追加（ページ単位の受信用）
+     * Webviewには追加したページだけを送り，Webview側で末尾に追加させる
+     * （準備完了前は送らない．準備完了時のsyncToWebview()で全体が届く）
+     */
+    appendGraphData(data) {
+        validateGraphData(data);
+        this._data.nodes.push(...data.nodes);
+        this._data.links.push(...data.links);
+        this._graphIndex = null;
+        this._dataVersion++;
+        if (!this._view || !this._webviewBridge.isReady()) return;
+        this._sendToWebview(EXTENSION_TO_WEBVIEW.GRAPH_APPEND, {
+            data: { nodes: data.nodes, links: data.links },
+            dataVersion: this._dataVersion
+        });
+    }
+
     setGraphData(data) {
         validateGraphData(data);
         this._data = {
             nodes: data.nodes ?? [],
             links: data.links ?? []
         };
+        this._graphVersion = data.version ?? null;
+        this._graphIndex = null;
         this._dataVersion++;
         this.syncToWebview();
     }
 
+    /**
+     * ページ単位で受信し終えたデータのサーバー側バージョンを設定（以降の差分の適用元になる）
+     */
+    setGraphVersion(version) {
+        this._graphVersion = version ?? null;
+    }
+
+    /**
+     * サーバーから通知されたグラフの差分を適用
+     * ワークスペースグラフを表示していない場合と，表示中のデータより古いバージョンの差分は無視する
+     *
+     * @param {Object} delta - {fromVersion, version, nodes, removedNodes, links, removedLinks}
+     * @returns {boolean} 差分を取りこぼしていて取得し直す必要がある場合false
+     */
+    applyGraphDelta(delta) {
+        if (!delta || this._graphVersion === null) return true;
+        if (delta.version <= this._graphVersion) return true;
+        if (delta.fromVersion !== this._graphVersion) {
+            // 途中の差分が欠けている（取得し直すまで以降の差分も適用しない）
+            this._graphVersion = null;
+            return false;
+        }
+
+        if (!this._graphIndex) {
+            this._graphIndex = createGraphIndex(this._data);
+        }
+        applyGraphDelta(this._data, this._graphIndex, delta);
+        this._graphVersion = delta.version;
+        this._dataVersion++;
+        // 表示中のWebviewには差分だけを送る（未準備ならREADY時に全体を送る）
+        if (!this._view || !this._webviewBridge.isReady()) return true;
+        this._sendToWebview(EXTENSION_TO_WEBVIEW.GRAPH_DELTA, {
+            delta: {
+                nodes: delta.nodes,
+                removedNodes: delta.removedNodes,
+                links: delta.links,
+                removedLinks: delta.removedLinks
+            },
+            dataVersion: this._dataVersion
+        });
+        return true;
+    }
+
     /**
      * データ更新を処理（ノードフォーカスなど）
      * ConfigurationObserverのupdate(controls)とは異なる
@@ -5,6 +5,13 @@ function validateGraphData(data) {
 }
 
 
+// リンクの重複チェック用キー生成
+function linkKey(link) {
+    const sourceId = typeof link.source === 'object' ? link.source.id : link.source;
+    const targetId = typeof link.target === 'object' ? link.target.id : link.target;
+    return `${sourceId}-${link.type}-${targetId}`;
+}
+
 /**
  * グラフデータをマージ（重複を排除）
  * Java側のCodeGraph.merge()ロジックと同等の処理
@@ -42,13 +49,6 @@ function mergeGraphData(target, source) {
         }
     });
 
-    // リンクの重複チェック用キー生成
-    const linkKey = (link) => {
-        const sourceId = typeof link.source === 'object' ? link.source.id : link.source;
-        const targetId = typeof link.target === 'object' ? link.target.id : link.target;
-        return `${sourceId}-${link.type}-${targetId}`;
-    };
-
     // 既存リンクのキーセット
     const existingLinkKeys = new Set(target.links.map(linkKey));
 
@@ -62,7 +62,73 @@ function mergeGraphData(target, source) {
     });
 }
 
+/**
+ * ノードID・リンクキーから配列上の位置への索引を作成（applyGraphDeltaで使用）
+ * @param {Object} data - グラフデータ
+ * @returns {{nodes: Map<string, number>, links: Map<string, number>}}
+ */
+function createGraphIndex(data) {
+    const nodes = new Map();
+    data.nodes.forEach((node, i) => nodes.set(node.id, i));
+    const links = new Map();
+    data.links.forEach((link, i) => links.set(linkKey(link), i));
+    return { nodes, links };
+}
+
+/**
+ * サーバーから届いた差分（dependviz/graphDelta）をグラフデータに適用
+ * 索引を使って差分の大きさに比例するコストで更新する（配列の順序は保たない）
+ * @param {Object} target - 適用先のグラフデータ
+ * @param {Object} index - createGraphIndex()で作成した索引（この関数内で更新される）
+ * @param {Object} delta - {nodes, removedNodes, links, removedLinks}
+ */
+function applyGraphDelta(target, index, delta) {
+    // 末尾の要素を空いた位置に移して削除
+    const removeAt = (array, positions, key, keyOf) => {
+        const i = positions.get(key);
+        if (i === undefined) return;
+        positions.delete(key);
+        const last = array.pop();
+        if (i < array.length) {
+            array[i] = last;
+            positions.set(keyOf(last), i);
+        }
+    };
+
+    (delta.removedLinks || []).forEach(link => {
+        removeAt(target.links, index.links, linkKey(link), linkKey);
+    });
+    (delta.removedNodes || []).forEach(id => {
+        removeAt(target.nodes, index.nodes, id, node => node.id);
+    });
+
+    // 追加・属性が変わったノードは既存のオブジェクトを更新（描画側の座標などを保つ）
+    (delta.nodes || []).forEach(node => {
+        const i = index.nodes.get(node.id);
+        if (i === undefined) {
+            index.nodes.set(node.id, target.nodes.length);
+            target.nodes.push(node);
+        } else {
+            // 宣言元のないノードではfilePathが省略される
+            Object.assign(target.nodes[i], { filePath: null }, node);
+        }
+    });
+    // 既存のリンクは重み（参照の回数）だけが変わる
+    (delta.links || []).forEach(link => {
+        const key = linkKey(link);
+        const i = index.links.get(key);
+        if (i === undefined) {
+            index.links.set(key, target.links.length);
+            target.links.push(link);
+        } else if (link.weight !== undefined) {
+            target.links[i].weight = link.weight;
+        }
+    });
+}
+
 module.exports = {
     validateGraphData,
-    mergeGraphData
+    mergeGraphData,
+    createGraphIndex,
+    applyGraphDelta
 };
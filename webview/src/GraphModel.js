@@ -11,6 +11,9 @@ class GraphModel {
     this._links = [];
     this._version = 0;
     this._nodeById = new Map();
+    // 差分の適用用の索引（ノードID・リンクのキー -> 配列内の位置）
+    this._nodePositions = new Map();
+    this._linkPositions = new Map();
   }
 
   /**
@@ -26,6 +29,48 @@ class GraphModel {
     this._version = typeof version === 'number' ? version : this._version + 1;
   }
 
+  /**
+   * 受信済みのデータの末尾にノード・リンクを追加（重複しないことは送信側が保証する）
+   * 既存のノード・リンクの前処理はやり直さない
+   * @param {Object} data - 追加するグラフデータ
+   * @param {number} version - 追加後のデータバージョン（省略時は自動インクリメント）
+   */
+  append(data, version) {
+    (data.nodes || []).forEach(node => this._addNode(node));
+    (data.links || []).forEach(link => this._addLink(link));
+    this._version = typeof version === 'number' ? version : this._version + 1;
+  }
+
+  /**
+   * サーバーから届いた差分（削除・追加・属性の変わったノード・リンク）を適用
+   * 差分に含まれるノード・リンクだけを更新し、既存のオブジェクト（描画側の座標など）は保つ
+   * @param {Object} delta - {nodes, removedNodes, links, removedLinks}
+   * @param {number} version - 適用後のデータバージョン（省略時は自動インクリメント）
+   */
+  applyDelta(delta, version) {
+    (delta.removedLinks || []).forEach(link => this._removeLink(this._linkKey(link)));
+    (delta.removedNodes || []).forEach(id => this._removeNode(id));
+    (delta.nodes || []).forEach(node => {
+      const existing = this._nodeById.get(node.id);
+      if (existing) {
+        // 宣言元のないノードではfilePathが省略される
+        Object.assign(existing, { filePath: null }, node);
+      } else {
+        this._addNode(node);
+      }
+    });
+    // 既存のリンクは重み（参照の回数）だけが変わる
+    (delta.links || []).forEach(link => {
+      const i = this._linkPositions.get(this._linkKey(link));
+      if (i === undefined) {
+        this._addLink(link);
+      } else if (link.weight !== undefined) {
+        this._links[i].weight = link.weight;
+      }
+    });
+    this._version = typeof version === 'number' ? version : this._version + 1;
+  }
+
   /**
    * ノードIDでノードを検索
    * @param {string|number} nodeId - ノードID
@@ -63,16 +108,29 @@ class GraphModel {
   _preprocessNodes(nodes) {
     const processed = [...nodes];
     this._nodeById.clear();
-    processed.forEach(node => {
-      node.neighbors = [];
-      node.links = [];
-      if (node.id != null) {
-        this._nodeById.set(node.id, node);
-      }
+    this._nodePositions.clear();
+    processed.forEach((node, i) => {
+      this._prepareNode(node);
+      this._nodePositions.set(node.id, i);
     });
     return processed;
   }
 
+  /**
+   * ノードにneighbors/linksプロパティを追加し、ID->ノードマップに登録
+   * @param {Object} node - ノード
+   * @returns {Object} 前処理済みノード
+   * @private
+   */
+  _prepareNode(node) {
+    node.neighbors = [];
+    node.links = [];
+    if (node.id != null) {
+      this._nodeById.set(node.id, node);
+    }
+    return node;
+  }
+
   /**
    * リンクを前処理
    * 各ノードのneighbors/linksプロパティに関連ノード/リンクを追加
@@ -82,19 +140,115 @@ class GraphModel {
    */
   _preprocessLinks(links) {
     const processed = [...links];
-    processed.forEach(link => {
-      const sourceId = typeof link.source === 'object' ? link.source.id : link.source;
-      const targetId = typeof link.target === 'object' ? link.target.id : link.target;
-      const a = this._nodeById.get(sourceId);
-      const b = this._nodeById.get(targetId);
-      if (!a || !b) return;
-      a.neighbors.push(b);
-      b.neighbors.push(a);
-      a.links.push(link);
-      b.links.push(link);
+    this._linkPositions.clear();
+    processed.forEach((link, i) => {
+      this._connect(link);
+      this._linkPositions.set(this._linkKey(link), i);
     });
     return processed;
   }
+
+  /**
+   * ノードを前処理して末尾に追加
+   * @param {Object} node - ノード
+   * @private
+   */
+  _addNode(node) {
+    this._nodePositions.set(node.id, this._nodes.length);
+    this._nodes.push(this._prepareNode(node));
+  }
+
+  /**
+   * リンクを両端のノードに関連付けて末尾に追加
+   * @param {Object} link - リンク
+   * @private
+   */
+  _addLink(link) {
+    this._connect(link);
+    this._linkPositions.set(this._linkKey(link), this._links.length);
+    this._links.push(link);
+  }
+
+  /**
+   * ノードを削除（末尾の要素を空いた位置に移す）
+   * @param {string|number} id - ノードID
+   * @private
+   */
+  _removeNode(id) {
+    const i = this._nodePositions.get(id);
+    if (i === undefined) return;
+    this._nodePositions.delete(id);
+    this._nodeById.delete(id);
+    const last = this._nodes.pop();
+    if (i < this._nodes.length) {
+      this._nodes[i] = last;
+      this._nodePositions.set(last.id, i);
+    }
+  }
+
+  /**
+   * リンクを削除し、両端のノードのneighbors/linksから外す（末尾の要素を空いた位置に移す）
+   * @param {string} key - リンクのキー
+   * @private
+   */
+  _removeLink(key) {
+    const i = this._linkPositions.get(key);
+    if (i === undefined) return;
+    const link = this._links[i];
+    this._linkPositions.delete(key);
+    const last = this._links.pop();
+    if (i < this._links.length) {
+      this._links[i] = last;
+      this._linkPositions.set(this._linkKey(last), i);
+    }
+
+    const a = this._nodeById.get(this._endpointId(link.source));
+    const b = this._nodeById.get(this._endpointId(link.target));
+    if (!a || !b) return;
+    const removeOne = (array, item) => {
+      const j = array.indexOf(item);
+      if (j !== -1) array.splice(j, 1);
+    };
+    removeOne(a.neighbors, b);
+    removeOne(b.neighbors, a);
+    removeOne(a.links, link);
+    removeOne(b.links, link);
+  }
+
+  /**
+   * リンクの端点のノードID（描画後は端点がノードのオブジェクトに置き換わる）
+   * @param {string|number|Object} endpoint - 端点
+   * @returns {string|number} ノードID
+   * @private
+   */
+  _endpointId(endpoint) {
+    return typeof endpoint === 'object' ? endpoint.id : endpoint;
+  }
+
+  /**
+   * リンクの重複判定用のキー（src/utils/graph.jsのlinkKey()と同じ形式）
+   * @param {Object} link - リンク
+   * @returns {string} キー
+   * @private
+   */
+  _linkKey(link) {
+    return `${this._endpointId(link.source)}-${link.type}-${this._endpointId(link.target)}`;
+  }
+
+  /**
+   * リンクの両端のノードのneighbors/linksプロパティに関連ノード/リンクを追加
+   * @param {Object} link - リンク
+   * @private
+   */
+  _connect(link) {
+    const a = this._nodeById.get(this._endpointId(link.source));
+    const b = this._nodeById.get(this._endpointId(link.target));
+    if (!a || !b) return;
+    a.neighbors.push(b);
+    b.neighbors.push(a);
+    a.links.push(link);
+    b.links.push(link);
+  }
 }
 
 export { GraphModel };
\ No newline at end of file
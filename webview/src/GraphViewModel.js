@@ -91,6 +91,8 @@ class GraphViewModel {
 
     const handlers = {
       [EXTENSION_TO_WEBVIEW.GRAPH_UPDATE]: payload => this._handleGraphUpdate(payload || {}),
+      [EXTENSION_TO_WEBVIEW.GRAPH_APPEND]: payload => this._handleGraphAppend(payload || {}),
+      [EXTENSION_TO_WEBVIEW.GRAPH_DELTA]: payload => this._handleGraphDelta(payload || {}),
       [EXTENSION_TO_WEBVIEW.VIEW_UPDATE]: payload => this._handleViewUpdate(payload || {}),
       [EXTENSION_TO_WEBVIEW.NODE_FOCUS]: payload => this._executeFocusNodeCommand(payload || {}),
       [EXTENSION_TO_WEBVIEW.FOCUS_CLEAR]: () => this._executeClearFocusCommand()
@@ -121,6 +123,34 @@ class GraphViewModel {
     }
   }
 
+  /**
+   * グラフデータ追加メッセージを処理（ページ単位で届いた分だけを追加）
+   * MVVMパターン: Modelへの追加とViewへの反映
+   * @param {Object} payload - 追加データ（data、dataVersion）
+   * @private
+   */
+  _handleGraphAppend(payload) {
+    if (!payload.data) return;
+    const version = typeof payload.dataVersion === 'number' ? payload.dataVersion : undefined;
+    this._model.append(payload.data, version);
+    this._computePresentationSlice();
+    this._viewContext.update(this._createRenderingContext(), { reheatSimulation: true });
+  }
+
+  /**
+   * グラフ差分メッセージを処理（変わったノード・リンクだけを更新）
+   * MVVMパターン: Modelへの差分の適用とViewへの反映
+   * @param {Object} payload - 差分データ（delta、dataVersion）
+   * @private
+   */
+  _handleGraphDelta(payload) {
+    if (!payload.delta) return;
+    const version = typeof payload.dataVersion === 'number' ? payload.dataVersion : undefined;
+    this._model.applyDelta(payload.delta, version);
+    this._computePresentationSlice();
+    this._viewContext.update(this._createRenderingContext(), { reheatSimulation: true });
+  }
+
   /**
    * ビュー更新メッセージを処理
    * MVVMパターン: プレゼンテーション状態の更新とViewへの反映